@@ -0,0 +1,30 @@
+package com.example.analysis;
+
+import java.util.List;
+
+/**
+ * Một loại phân tích trên các ô 00-99 (đầu ĐB, ĐB, đầu G1, G1).
+ * Mỗi loại được biên dịch thành bảng phân loại 100 phần tử: phân loại một ô chỉ là một lần đọc mảng.
+ * Thêm loại mới: khai báo một bean implement interface này, AnalysisTypeRegistry sẽ tự nhận.
+ */
+public interface AnalysisType {
+
+    int VALUE_COUNT = 100;
+
+    /**
+     * Tên dùng trong tham số analysisType (VD: "even-odd")
+     */
+    String getName();
+
+    /**
+     * Bảng phân loại: classTable[giá trị] = giá trị match hiển thị trên từng ô
+     * @param rangeStart Khoảng lọc của cột (chỉ dùng cho loại có tham số, VD: 50-50)
+     * @param rangeEnd Khoảng lọc của cột
+     */
+    byte[] classTable(Integer rangeStart, Integer rangeEnd);
+
+    /**
+     * Các loại được thống kê chuỗi rỗng cho mỗi cột (rỗng nếu không thống kê)
+     */
+    List<StreakClass> streakClasses(Integer rangeStart, Integer rangeEnd);
+}
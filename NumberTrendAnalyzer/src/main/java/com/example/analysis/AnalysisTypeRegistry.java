@@ -0,0 +1,50 @@
+package com.example.analysis;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Danh sách các loại phân tích theo tên: các loại có sẵn + mọi bean AnalysisType khác
+ * (bean trùng tên sẽ thay thế loại có sẵn). Tên không tồn tại được xử lý như 50-50.
+ */
+@Slf4j
+@Component
+public class AnalysisTypeRegistry {
+
+    @Autowired(required = false)
+    private List<AnalysisType> plugins = List.of();
+
+    private final Map<String, AnalysisType> types = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (AnalysisType type : BuiltInAnalysisTypes.all()) {
+            register(type);
+        }
+        for (AnalysisType type : plugins) {
+            register(type);
+        }
+        log.info("Đã đăng ký {} loại phân tích", types.size());
+    }
+
+    public AnalysisType get(String name) {
+        AnalysisType type = name != null ? types.get(name) : null;
+        return type != null ? type : types.get(RangeAnalysisType.NAME);
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(new ArrayList<>(types.keySet()));
+    }
+
+    private void register(AnalysisType type) {
+        types.put(type.getName(), type);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Các loại phân tích có sẵn
+ */
+public final class BuiltInAnalysisTypes {
+
+    private BuiltInAnalysisTypes() {
+    }
+
+    public static List<AnalysisType> all() {
+        List<AnalysisType> types = new ArrayList<>();
+        types.add(new RangeAnalysisType());
+
+        // Chẵn = 0, Lẻ = 1
+        types.add(new TableAnalysisType("even-odd", value -> value % 2,
+                List.of(new StreakClass(1, "Chẵn/Lẻ"))));
+
+        // Số nguyên tố = 1, không phải = 0
+        types.add(new TableAnalysisType("prime", value -> isPrimeNumber(value) ? 1 : 0,
+                List.of(new StreakClass(1, "Số nguyên tố"))));
+
+        // Số dư khi chia 3 (0, 1, 2)
+        types.add(new TableAnalysisType("divide-3", value -> value % 3,
+                classes(3, remainder -> "Dư " + remainder)));
+
+        // Tổng 2 chữ số (lấy hàng đơn vị, 0-9)
+        types.add(new TableAnalysisType("sum", value -> (value / 10 + value % 10) % 10,
+                classes(10, sum -> "Tổng " + sum)));
+
+        // Lớn (50-99) = 1, Nhỏ (00-49) = 0
+        types.add(new TableAnalysisType("big-small", value -> value >= 50 ? 1 : 0,
+                List.of(new StreakClass(1, "Lớn/Nhỏ"))));
+
+        // Chữ số hàng chục (0-9)
+        types.add(new TableAnalysisType("head", value -> value / 10,
+                classes(10, head -> "Đầu " + head)));
+
+        // Chữ số hàng đơn vị (0-9)
+        types.add(new TableAnalysisType("tail", value -> value % 10,
+                classes(10, tail -> "Đuôi " + tail)));
+
+        // Chạm k: số có chứa chữ số k = 1 (VD: cham-3 gồm 03, 13, 30-39...)
+        for (int digit = 0; digit <= 9; digit++) {
+            int touched = digit;
+            types.add(new TableAnalysisType("cham-" + digit,
+                    value -> value / 10 == touched || value % 10 == touched ? 1 : 0,
+                    List.of(new StreakClass(1, "Chạm " + digit))));
+        }
+        return types;
+    }
+
+    private static List<StreakClass> classes(int count, IntFunction<String> label) {
+        List<StreakClass> classes = new ArrayList<>(count);
+        for (int target = 0; target < count; target++) {
+            classes.add(new StreakClass(target, label.apply(target)));
+        }
+        return classes;
+    }
+
+    /**
+     * Kiểm tra xem một số có phải là số nguyên tố không (chỉ dùng khi dựng bảng)
+     * @param n Số cần kiểm tra (0-99)
+     */
+    static boolean isPrimeNumber(int n) {
+        if (n < 2) {
+            return false;
+        }
+        if (n == 2) {
+            return true;
+        }
+        if (n % 2 == 0) {
+            return false;
+        }
+        for (int i = 3; i * i <= n; i += 2) {
+            if (n % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.analysis;
+
+import java.util.List;
+
+/**
+ * Loại 50-50: match = 1 nếu giá trị nằm trong khoảng [rangeStart, rangeEnd] của cột.
+ * Không có khoảng thì mọi ô là 0 và không thống kê chuỗi.
+ */
+public class RangeAnalysisType implements AnalysisType {
+
+    public static final String NAME = "50-50";
+
+    private static final byte[] EMPTY_TABLE = new byte[VALUE_COUNT];
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] classTable(Integer rangeStart, Integer rangeEnd) {
+        if (rangeStart == null || rangeEnd == null) {
+            return EMPTY_TABLE;
+        }
+        byte[] table = new byte[VALUE_COUNT];
+        for (int value = Math.max(0, rangeStart); value <= Math.min(VALUE_COUNT - 1, rangeEnd); value++) {
+            table[value] = 1;
+        }
+        return table;
+    }
+
+    @Override
+    public List<StreakClass> streakClasses(Integer rangeStart, Integer rangeEnd) {
+        if (rangeStart == null || rangeEnd == null) {
+            return List.of();
+        }
+        return List.of(new StreakClass(1, rangeStart + "-" + rangeEnd));
+    }
+}
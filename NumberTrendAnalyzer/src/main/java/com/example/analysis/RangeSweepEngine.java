@@ -0,0 +1,198 @@
+package com.example.analysis;
+
+import com.example.index.AnalysisDrawStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Quét mọi khoảng [start, end] (0 <= start <= end <= 99, 5050 khoảng mỗi cột) của chế độ 50-50
+ * trên một đoạn ngày của kho dữ liệu phân tích, trả về top N khoảng của từng cột.
+ * Số ngày trúng của một khoảng lấy từ tổng tiền tố của biểu đồ giá trị 00-99 (O(1) mỗi khoảng);
+ * chỉ số chuỗi được cập nhật tăng dần khi mở rộng end nên mỗi start chỉ cần O(số ngày).
+ * Mỗi cột được chia thành nhiều phần theo start, chạy song song trên backtestPool.
+ */
+@Slf4j
+@Component
+public class RangeSweepEngine {
+
+    // Số phần chia cho mỗi cột (start được chia xen kẽ để các phần có khối lượng gần bằng nhau)
+    private static final int SHARDS_PER_COLUMN = 8;
+
+    @Autowired
+    @Qualifier("backtestPool")
+    private ForkJoinPool backtestPool;
+
+    /**
+     * Điểm của một khoảng trên đoạn ngày đã quét
+     */
+    @lombok.Value
+    public static class IntervalScore {
+        int start;
+        int end;
+        int hits;          // Số ngày có giá trị trong khoảng
+        int longestStreak; // Chuỗi trúng liên tiếp dài nhất
+        int streakCount;   // Số chuỗi có độ dài trong [minStreak, maxStreak]
+
+        int width() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Top N khoảng của từng cột trên đoạn [from, to) của kho, tốt nhất trước
+     * @param minWidth Độ rộng khoảng tối thiểu (số giá trị)
+     * @param maxWidth Độ rộng khoảng tối đa
+     * @return Mảng theo thứ tự cột AnalysisDrawStore.DAU_DB, DB, DAU_G1, G1
+     */
+    public List<IntervalScore>[] sweep(AnalysisDrawStore.Snapshot snapshot, int from, int to, SweepMetric metric,
+                                       int top, int minStreak, int maxStreak, int minWidth, int maxWidth) {
+        long startTime = System.nanoTime();
+        int columnCount = AnalysisDrawStore.COLUMN_COUNT;
+
+        List<ForkJoinTask<PriorityQueue<IntervalScore>>> tasks = new ArrayList<>(columnCount * SHARDS_PER_COLUMN);
+        for (int column = 0; column < columnCount; column++) {
+            ValueBuckets buckets = new ValueBuckets(snapshot.column(column), from, to);
+            for (int shard = 0; shard < SHARDS_PER_COLUMN; shard++) {
+                int firstStart = shard;
+                tasks.add(ForkJoinTask.adapt(() -> sweepShard(buckets, to - from, firstStart, metric,
+                        top, minStreak, maxStreak, minWidth, maxWidth)));
+            }
+        }
+        backtestPool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+
+        // Gộp top N của các phần trong cùng một cột
+        @SuppressWarnings("unchecked")
+        List<IntervalScore>[] result = new List[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            List<IntervalScore> merged = new ArrayList<>();
+            for (int shard = 0; shard < SHARDS_PER_COLUMN; shard++) {
+                merged.addAll(tasks.get(column * SHARDS_PER_COLUMN + shard).join());
+            }
+            merged.sort(comparator(metric).reversed());
+            result[column] = new ArrayList<>(merged.subList(0, Math.min(top, merged.size())));
+        }
+        log.debug("Quét lưới 50-50 ({} ngày, {}) trong {} ms", to - from, metric.getParamName(),
+                (System.nanoTime() - startTime) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Vị trí các ngày (tính từ from) nhóm theo giá trị 00-99: các ngày có giá trị v là
+     * positions[prefix[v]] .. positions[prefix[v + 1] - 1], với prefix là tổng tiền tố của biểu đồ giá trị
+     * (số ngày trúng khoảng [start, end] = prefix[end + 1] - prefix[start])
+     */
+    private static class ValueBuckets {
+        private final int[] prefix = new int[AnalysisType.VALUE_COUNT + 1];
+        private final int[] positions;
+
+        ValueBuckets(byte[] values, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (values[i] != AnalysisDrawStore.NONE) {
+                    prefix[values[i] + 1]++;
+                }
+            }
+            for (int value = 0; value < AnalysisType.VALUE_COUNT; value++) {
+                prefix[value + 1] += prefix[value];
+            }
+            positions = new int[prefix[AnalysisType.VALUE_COUNT]];
+            int[] fill = new int[AnalysisType.VALUE_COUNT];
+            for (int i = from; i < to; i++) {
+                int value = values[i];
+                if (value != AnalysisDrawStore.NONE) {
+                    positions[prefix[value] + fill[value]++] = i - from;
+                }
+            }
+        }
+    }
+
+    /**
+     * Quét các khoảng có start = firstStart, firstStart + SHARDS_PER_COLUMN, ... và giữ lại top N.
+     * Với mỗi start, tăng dần end: các ngày có giá trị = end được thêm vào tập ngày trúng và nối với chuỗi
+     * hai bên (O(1) mỗi ngày), nên cả dãy end của một start chỉ tốn O(số ngày) thay vì duyệt lại mỗi khoảng.
+     */
+    private static PriorityQueue<IntervalScore> sweepShard(ValueBuckets buckets, int days, int firstStart,
+                                                           SweepMetric metric, int top, int minStreak, int maxStreak,
+                                                           int minWidth, int maxWidth) {
+        Comparator<IntervalScore> comparator = comparator(metric);
+        // Heap nhỏ nhất ở đầu: phần tử đầu là ngưỡng để vào top N
+        PriorityQueue<IntervalScore> best = new PriorityQueue<>(top + 1, comparator);
+        boolean[] inRange = new boolean[days];
+        // Với chuỗi [a, b]: partner[a] = b và partner[b] = a
+        int[] partner = new int[days];
+        for (int start = firstStart; start < AnalysisType.VALUE_COUNT; start += SHARDS_PER_COLUMN) {
+            Arrays.fill(inRange, false);
+            int longest = 0;
+            int streaks = 0;
+            int lastEnd = Math.min(AnalysisType.VALUE_COUNT - 1, start + maxWidth - 1);
+            for (int end = start; end <= lastEnd; end++) {
+                for (int k = buckets.prefix[end]; k < buckets.prefix[end + 1]; k++) {
+                    int day = buckets.positions[k];
+                    int runStart = day;
+                    int runEnd = day;
+                    if (day > 0 && inRange[day - 1]) {
+                        runStart = partner[day - 1];
+                        streaks -= counted(day - runStart, minStreak, maxStreak);
+                    }
+                    if (day + 1 < days && inRange[day + 1]) {
+                        runEnd = partner[day + 1];
+                        streaks -= counted(runEnd - day, minStreak, maxStreak);
+                    }
+                    inRange[day] = true;
+                    partner[runStart] = runEnd;
+                    partner[runEnd] = runStart;
+                    int length = runEnd - runStart + 1;
+                    streaks += counted(length, minStreak, maxStreak);
+                    longest = Math.max(longest, length);
+                }
+                if (end - start + 1 < minWidth) {
+                    continue;
+                }
+                IntervalScore score = new IntervalScore(start, end,
+                        buckets.prefix[end + 1] - buckets.prefix[start], longest, streaks);
+                if (best.size() < top) {
+                    best.add(score);
+                } else if (comparator.compare(score, best.peek()) > 0) {
+                    best.poll();
+                    best.add(score);
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int counted(int length, int minStreak, int maxStreak) {
+        return length >= minStreak && length <= maxStreak ? 1 : 0;
+    }
+
+    private static int primary(IntervalScore score, SweepMetric metric) {
+        switch (metric) {
+            case LONGEST:
+                return score.getLongestStreak();
+            case FREQUENCY:
+                return score.getStreakCount();
+            default:
+                return score.getHits();
+        }
+    }
+
+    /**
+     * Thứ tự tăng dần theo độ tốt: chỉ số chính, rồi số ngày trúng, rồi khoảng hẹp hơn, rồi start nhỏ hơn
+     * (thứ tự toàn phần nên kết quả không phụ thuộc cách chia phần)
+     */
+    private static Comparator<IntervalScore> comparator(SweepMetric metric) {
+        return Comparator.<IntervalScore>comparingInt(score -> primary(score, metric))
+                .thenComparingInt(IntervalScore::getHits)
+                .thenComparingInt(score -> -score.width())
+                .thenComparingInt(score -> -score.getStart());
+    }
+}
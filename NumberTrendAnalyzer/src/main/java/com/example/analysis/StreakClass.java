@@ -0,0 +1,12 @@
+package com.example.analysis;
+
+import lombok.Value;
+
+/**
+ * Một dòng thống kê rỗng: đếm các chuỗi ngày liên tiếp có giá trị match = target
+ */
+@Value
+public class StreakClass {
+    int target;
+    String label; // Hiển thị ở cột khoảng lọc, VD: "Dư 1"
+}
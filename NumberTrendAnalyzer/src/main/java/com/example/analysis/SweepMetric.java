@@ -0,0 +1,33 @@
+package com.example.analysis;
+
+import lombok.Getter;
+
+/**
+ * Tiêu chí xếp hạng các khoảng [start, end] khi quét lưới 50-50
+ */
+@Getter
+public enum SweepMetric {
+    LONGEST("longest"),     // Chuỗi ngày liên tiếp trúng khoảng dài nhất
+    FREQUENCY("frequency"), // Số chuỗi có độ dài trong [minStreak, maxStreak]
+    HIT_RATE("hit-rate");   // Tỉ lệ ngày trúng khoảng
+
+    private final String paramName;
+
+    SweepMetric(String paramName) {
+        this.paramName = paramName;
+    }
+
+    /**
+     * Tìm theo tên tham số ("longest", "frequency", "hit-rate"); mặc định LONGEST
+     */
+    public static SweepMetric fromName(String name) {
+        if (name != null) {
+            for (SweepMetric metric : values()) {
+                if (metric.paramName.equalsIgnoreCase(name.trim())) {
+                    return metric;
+                }
+            }
+        }
+        return LONGEST;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.analysis;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Loại phân tích không có tham số: bảng phân loại được tính một lần khi khởi tạo
+ */
+public class TableAnalysisType implements AnalysisType {
+
+    private final String name;
+    private final byte[] table;
+    private final List<StreakClass> streakClasses;
+
+    public TableAnalysisType(String name, IntUnaryOperator classifier, List<StreakClass> streakClasses) {
+        this.name = name;
+        this.table = new byte[VALUE_COUNT];
+        for (int value = 0; value < VALUE_COUNT; value++) {
+            this.table[value] = (byte) classifier.applyAsInt(value);
+        }
+        this.streakClasses = List.copyOf(streakClasses);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] classTable(Integer rangeStart, Integer rangeEnd) {
+        return table;
+    }
+
+    @Override
+    public List<StreakClass> streakClasses(Integer rangeStart, Integer rangeEnd) {
+        return streakClasses;
+    }
+}
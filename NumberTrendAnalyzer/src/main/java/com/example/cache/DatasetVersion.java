@@ -0,0 +1,17 @@
+package com.example.cache;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Phiên bản của tập dữ liệu: thay đổi mỗi khi có ngày quay thưởng mới được lưu hoặc dữ liệu cũ bị ghi đè
+ */
+@Value
+public class DatasetVersion {
+    LocalDate latestDrawDate; // null nếu chưa có dữ liệu
+    long rowCount;            // Số ngày có dữ liệu
+    long revision;            // Id lớn nhất trong lottery_daily_results: ghi đè (reparse) xóa rồi ghi lại nên id luôn tăng, kể cả qua các lần khởi động lại
+    long generation;          // Tăng mỗi lần dữ liệu thay đổi
+    long modifiedAt;          // Thời điểm đọc phiên bản này (epoch millis), dùng cho Last-Modified
+}
@@ -0,0 +1,66 @@
+package com.example.cache;
+
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.LotteryDailyResultRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Theo dõi phiên bản hiện tại của tập dữ liệu (ngày mới nhất + số ngày có dữ liệu + revision).
+ * Các cache dùng phiên bản này làm một phần của key nên không bao giờ trả về dữ liệu cũ.
+ */
+@Component
+public class DatasetVersionTracker {
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepository;
+
+    private volatile DatasetVersion current;
+
+    public DatasetVersion current() {
+        DatasetVersion version = current;
+        if (version == null) {
+            synchronized (this) {
+                if (current == null) {
+                    current = readVersion(0);
+                }
+                version = current;
+            }
+        }
+        return version;
+    }
+
+    // Chạy trước các listener khác để chúng thấy phiên bản mới
+    @Order(0)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        bump();
+    }
+
+    @Order(0)
+    @EventListener
+    public void onDrawsReplaced(DrawsReplacedEvent event) {
+        bump();
+    }
+
+    /**
+     * Đọc lại phiên bản từ database và tăng generation
+     */
+    public synchronized DatasetVersion bump() {
+        long generation = current == null ? 1 : current.getGeneration() + 1;
+        current = readVersion(generation);
+        return current;
+    }
+
+    private DatasetVersion readVersion(long generation) {
+        return new DatasetVersion(
+                resultRepository.findLatestDrawDate().orElse(null),
+                resultRepository.count(),
+                resultRepository.findMaxId().orElse(0L),
+                generation,
+                System.currentTimeMillis());
+    }
+}
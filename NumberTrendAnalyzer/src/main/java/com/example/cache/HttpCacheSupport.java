@@ -0,0 +1,108 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * HTTP conditional request cho các API chỉ đọc: dữ liệu chỉ đổi khi có ngày mới được lưu hoặc bị ghi đè, nên
+ * ETag (mạnh) = phiên bản dữ liệu + tham số request, Last-Modified = thời điểm phiên bản dữ liệu thay đổi.
+ * Client (hoặc reverse proxy) gửi If-None-Match / If-Modified-Since khớp thì trả 304 ngay, không tính lại body.
+ * API có nội dung phụ thuộc ngày hiện tại (số ngày chưa về, fromDate mặc định = hôm nay - 30) dùng respondForToday.
+ */
+@Component
+public class HttpCacheSupport {
+
+    @Autowired
+    private DatasetVersionTracker datasetVersionTracker;
+
+    // 0 = cache được nhưng phải hỏi lại mỗi lần (no-cache)
+    @Value("${http.cache.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Trả 304 nếu client đã có bản mới nhất, ngược lại gọi handler và gắn ETag/Last-Modified/Cache-Control
+     * vào response 2xx (response lỗi hoặc đã tự đặt Cache-Control thì giữ nguyên)
+     * @param params Các tham số (đã áp giá trị mặc định) quyết định nội dung response
+     */
+    public <T> ResponseEntity<T> respond(WebRequest request, Supplier<ResponseEntity<T>> handler, Object... params) {
+        DatasetVersion version = datasetVersionTracker.current();
+        return respond(request, handler, etag(version, params), version.getModifiedAt());
+    }
+
+    /**
+     * Như respond, cho response phụ thuộc ngày hiện tại: ngày hôm nay nằm trong ETag và
+     * Last-Modified = max(thời điểm dữ liệu thay đổi, đầu ngày hôm nay), để client chỉ gửi
+     * If-Modified-Since cũng không nhận 304 cho bản đã tính từ hôm qua
+     */
+    public <T> ResponseEntity<T> respondForToday(WebRequest request, Supplier<ResponseEntity<T>> handler, Object... params) {
+        DatasetVersion version = datasetVersionTracker.current();
+        LocalDate today = LocalDate.now(clock);
+        Object[] keyed = Arrays.copyOf(params, params.length + 1);
+        keyed[params.length] = today;
+        long startOfToday = today.atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        return respond(request, handler, etag(version, keyed), Math.max(version.getModifiedAt(), startOfToday));
+    }
+
+    private <T> ResponseEntity<T> respond(WebRequest request, Supplier<ResponseEntity<T>> handler,
+                                          String etag, long lastModified) {
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(cacheControl())
+                    .build();
+        }
+
+        ResponseEntity<T> response = handler.get();
+        if (!response.getStatusCode().is2xxSuccessful() || response.getHeaders().getCacheControl() != null) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl())
+                .body(response.getBody());
+    }
+
+    private CacheControl cacheControl() {
+        if (maxAgeSeconds <= 0) {
+            return CacheControl.noCache().cachePublic();
+        }
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+    }
+
+    /**
+     * VD: "2025-12-11.5230.5231.3f9a0c12e4b7d681" (revision đổi khi reparse ghi đè mà ngày mới nhất và số ngày giữ nguyên)
+     */
+    private static String etag(DatasetVersion version, Object... params) {
+        StringBuilder key = new StringBuilder();
+        for (Object param : params) {
+            key.append(param).append('\u0000');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + version.getLatestDrawDate() + "." + version.getRowCount() + "."
+                    + version.getRevision() + "." + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
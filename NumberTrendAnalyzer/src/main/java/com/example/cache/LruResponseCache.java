@@ -0,0 +1,122 @@
+package com.example.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache giới hạn kích thước, loại bỏ phần tử ít được dùng nhất (LRU).
+ * Nhiều request cùng miss một key chỉ tính toán một lần: request đầu tiên tính,
+ * các request còn lại chờ cùng một CompletableFuture.
+ */
+public class LruResponseCache<K, V> {
+
+    private final int maxEntries;
+    private final Map<K, CompletableFuture<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+                if (size() > LruResponseCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        CompletableFuture<V> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            hits.increment();
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        misses.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Không cache lỗi: request sau sẽ tính lại. Bắt cả Error (VD: OutOfMemoryError, StackOverflowError)
+            // để các request đang chờ cùng future không bị treo
+            invalidate(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Xóa một key (VD: kết quả không đầy đủ, không nên phục vụ lại)
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void invalidate(K key, CompletableFuture<V> future) {
+        synchronized (entries) {
+            entries.remove(key, future);
+        }
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Các thread pool dùng riêng cho từng loại công việc
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Thread pool tính song song các phần của dashboard
+     */
+    @Bean(name = "dashboardExecutor")
+    public ExecutorService dashboardExecutor(@Value("${dashboard.executor.threads:6}") int threads) {
+        return Executors.newFixedThreadPool(threads, namedDaemonThreads("dashboard-"));
+    }
+
+    /**
+     * Thread pool tính và gửi bản cập nhật dashboard qua SSE
+     */
+    @Bean(name = "streamExecutor")
+    public ExecutorService streamExecutor(@Value("${dashboard.stream.threads:2}") int threads) {
+        return Executors.newFixedThreadPool(threads, namedDaemonThreads("dashboard-stream-"));
+    }
+
+    /**
+     * Thread pool tải trang kết quả khi cào nhiều ngày (số request đồng thời tối đa)
+     */
+    @Bean(name = "crawlExecutor")
+    public ExecutorService crawlExecutor(@Value("${crawler.concurrency:4}") int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), namedDaemonThreads("crawler-"));
+    }
+
+    /**
+     * Thread pool chạy các job cào dữ liệu (số job chạy cùng lúc, các job còn lại xếp hàng)
+     */
+    @Bean(name = "crawlJobExecutor")
+    public ExecutorService crawlJobExecutor(@Value("${crawler.jobs.threads:1}") int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), namedDaemonThreads("crawl-job-"));
+    }
+
+    /**
+     * Thread pool đọc + bóc tách lại các trang trong kho khi reparse (mặc định bằng số CPU),
+     * tách khỏi backtestPool để reparse không tranh CPU với backtest/quét khoảng
+     */
+    @Bean(name = "reparseExecutor")
+    public ExecutorService reparseExecutor(@Value("${crawler.reparse.threads:0}") int threads) {
+        return Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                namedDaemonThreads("reparse-"));
+    }
+
+    /**
+     * Fork-join pool chạy song song các tổ hợp backtest (mặc định bằng số CPU)
+     */
+    @Bean(name = "backtestPool")
+    public ForkJoinPool backtestPool(@Value("${backtest.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
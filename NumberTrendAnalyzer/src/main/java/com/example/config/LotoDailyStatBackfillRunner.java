@@ -0,0 +1,31 @@
+package com.example.config;
+
+import com.example.repository.LotoDailyStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Khi khởi động: dựng bảng tổng hợp loto_daily_stats cho các ngày đã cào trước khi có bảng này
+ */
+@Slf4j
+@Component
+public class LotoDailyStatBackfillRunner implements ApplicationRunner {
+
+    @Autowired
+    private LotoDailyStatRepository dailyStatRepo;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int inserted = dailyStatRepo.backfillFromLotoDigits();
+            if (inserted > 0) {
+                log.info("Đã dựng bảng tổng hợp loto_daily_stats: {} dòng", inserted);
+            }
+        } catch (Exception e) {
+            log.warn("Không dựng được bảng tổng hợp loto_daily_stats: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.config;
+
+import com.example.repository.PredictionLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Khi khởi động: xóa các dự đoán trùng (thuật toán, ngày đích) còn lại từ trước khi có unique constraint,
+ * giữ dự đoán được lưu đầu tiên. Hibernate (ddl-auto=update) chỉ tạo được constraint khi bảng hết trùng,
+ * nên constraint có hiệu lực từ lần khởi động sau lần dọn đầu tiên.
+ */
+@Slf4j
+@Component
+public class PredictionLogDedupeRunner implements ApplicationRunner {
+
+    @Autowired
+    private PredictionLogRepository predictionLogRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            List<Long> duplicates = predictionLogRepository.findDuplicateIds();
+            if (!duplicates.isEmpty()) {
+                predictionLogRepository.deleteAllByIdInBatch(duplicates);
+                log.info("Đã xóa {} dự đoán trùng (thuật toán, ngày đích)", duplicates.size());
+            }
+        } catch (Exception e) {
+            log.warn("Không dọn được dự đoán trùng: {}", e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.example.controller;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.cache.HttpCacheSupport;
 import com.example.dto.response.AnalysisDataDTO;
+import com.example.dto.response.RangeSweepDTO;
 import com.example.service.AnalysisService;
 
 @RestController
@@ -22,10 +32,14 @@ public class AnalysisController {
     @Autowired
     private AnalysisService analysisService;
     
+    @Autowired
+    private HttpCacheSupport httpCache;
+    
     /**
      * Lấy dữ liệu phân tích với phân trang
      * GET /api/analysis?fromDate=2025-01-25&page=0&size=30&analysisType=50-50&dauDBStart=36&dauDBEnd=96&dbStart=36&dbEnd=95&dauG1Start=29&dauG1End=68&g1Start=29&g1End=8
      * GET /api/analysis?fromDate=2025-01-25&page=0&size=30&analysisType=even-odd
+     * GET /api/analysis?fromDate=2025-01-25&size=30&cursor=<nextCursor|prevCursor>  (phân trang theo con trỏ, bỏ qua page)
      */
     @GetMapping
     public ResponseEntity<AnalysisDataDTO> getAnalysisData(
@@ -41,7 +55,11 @@ public class AnalysisController {
             @RequestParam(value = "dauG1Start", required = false) Integer dauG1Start,
             @RequestParam(value = "dauG1End", required = false) Integer dauG1End,
             @RequestParam(value = "g1Start", required = false) Integer g1Start,
-            @RequestParam(value = "g1End", required = false) Integer g1End) {
+            @RequestParam(value = "g1End", required = false) Integer g1End,
+            @RequestParam(value = "minStreak", required = false) Integer minStreak,
+            @RequestParam(value = "maxStreak", required = false) Integer maxStreak,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest request) {
         
         // Nếu không có fromDate, mặc định lấy từ 30 ngày trước
         if (fromDate == null) {
@@ -53,18 +71,184 @@ public class AnalysisController {
         if (size < 1) size = 30;
         if (size > 100) size = 100; // Giới hạn tối đa 100 phần tử mỗi trang
         
-        AnalysisDataDTO data = analysisService.getAnalysisData(
-                fromDate,
-                page,
-                size,
+        LocalDate from = fromDate;
+        int pageNumber = page;
+        int pageSize = size;
+        // fromDate mặc định tính từ hôm nay nên response được gắn với ngày hiện tại
+        return httpCache.respondForToday(request, () -> {
+            try {
+                AnalysisDataDTO data = analysisService.getAnalysisData(
+                        from,
+                        pageNumber,
+                        pageSize,
+                        analysisType,
+                        dauDBStart, dauDBEnd,
+                        dbStart, dbEnd,
+                        dauG1Start, dauG1End,
+                        g1Start, g1End,
+                        minStreak, maxStreak,
+                        cursor
+                );
+                return ResponseEntity.ok(data);
+            } catch (IllegalArgumentException e) {
+                // Con trỏ không hợp lệ
+                return ResponseEntity.badRequest().build();
+            }
+        }, "analysis", from, pageNumber, pageSize, analysisType, dauDBStart, dauDBEnd, dbStart, dbEnd,
+                dauG1Start, dauG1End, g1Start, g1End, minStreak, maxStreak, cursor);
+    }
+    
+    /**
+     * Thống kê chuỗi rỗng kèm vị trí các chuỗi dài nhất
+     * GET /api/analysis/streaks?fromDate=2020-01-01&analysisType=divide-3&minStreak=5&maxStreak=20&top=5
+     */
+    @GetMapping("/streaks")
+    public ResponseEntity<List<AnalysisDataDTO.EmptyStatsDTO>> getStreakStats(
+            @RequestParam(value = "fromDate", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate fromDate,
+            @RequestParam(value = "analysisType", defaultValue = "50-50") String analysisType,
+            @RequestParam(value = "dauDBStart", required = false) Integer dauDBStart,
+            @RequestParam(value = "dauDBEnd", required = false) Integer dauDBEnd,
+            @RequestParam(value = "dbStart", required = false) Integer dbStart,
+            @RequestParam(value = "dbEnd", required = false) Integer dbEnd,
+            @RequestParam(value = "dauG1Start", required = false) Integer dauG1Start,
+            @RequestParam(value = "dauG1End", required = false) Integer dauG1End,
+            @RequestParam(value = "g1Start", required = false) Integer g1Start,
+            @RequestParam(value = "g1End", required = false) Integer g1End,
+            @RequestParam(value = "minStreak", required = false) Integer minStreak,
+            @RequestParam(value = "maxStreak", required = false) Integer maxStreak,
+            @RequestParam(value = "top", defaultValue = "5") int top,
+            WebRequest request) {
+        
+        // Không có fromDate thì lấy toàn bộ lịch sử
+        if (fromDate == null) {
+            fromDate = LocalDate.MIN;
+        }
+        if (top < 1) top = 1;
+        if (top > 50) top = 50;
+        
+        LocalDate from = fromDate;
+        int limit = top;
+        return httpCache.respond(request, () -> ResponseEntity.ok(analysisService.getStreakStats(
+                from,
                 analysisType,
                 dauDBStart, dauDBEnd,
                 dbStart, dbEnd,
                 dauG1Start, dauG1End,
-                g1Start, g1End
-        );
+                g1Start, g1End,
+                minStreak, maxStreak,
+                limit
+        )), "streaks", from, analysisType, dauDBStart, dauDBEnd, dbStart, dbEnd,
+                dauG1Start, dauG1End, g1Start, g1End, minStreak, maxStreak, limit);
+    }
+    
+    /**
+     * Quét mọi khoảng lọc 50-50 của cả 4 cột, trả về các khoảng tốt nhất theo tiêu chí
+     * GET /api/analysis/sweep?fromDate=2020-01-01&metric=longest&top=10
+     * GET /api/analysis/sweep?fromDate=2020-01-01&toDate=2024-12-31&metric=frequency&minStreak=4&minWidth=40&maxWidth=60
+     */
+    @GetMapping("/sweep")
+    public ResponseEntity<RangeSweepDTO> sweepRanges(
+            @RequestParam(value = "fromDate", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate fromDate,
+            @RequestParam(value = "toDate", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate toDate,
+            @RequestParam(value = "metric", defaultValue = "longest") String metric,
+            @RequestParam(value = "top", defaultValue = "10") int top,
+            @RequestParam(value = "minStreak", required = false) Integer minStreak,
+            @RequestParam(value = "maxStreak", required = false) Integer maxStreak,
+            @RequestParam(value = "minWidth", required = false) Integer minWidth,
+            @RequestParam(value = "maxWidth", required = false) Integer maxWidth,
+            WebRequest request) {
         
-        return ResponseEntity.ok(data);
+        // Không có fromDate thì quét toàn bộ lịch sử
+        if (fromDate == null) {
+            fromDate = LocalDate.MIN;
+        }
+        if (top < 1) top = 1;
+        if (top > 100) top = 100;
+        
+        LocalDate from = fromDate;
+        int limit = top;
+        return httpCache.respond(request, () -> ResponseEntity.ok(analysisService.sweepRanges(
+                from, toDate, metric, limit, minStreak, maxStreak, minWidth, maxWidth)),
+                "sweep", from, toDate, metric, limit, minStreak, maxStreak, minWidth, maxWidth);
+    }
+    
+    /**
+     * Xuất toàn bộ các dòng phân tích trong khoảng ngày dưới dạng stream (ghi tới đâu gửi tới đó)
+     * GET /api/analysis/export?fromDate=2010-01-01&toDate=2025-12-31&format=csv&analysisType=50-50
+     * GET /api/analysis/export?format=ndjson&gzip=true  (tải về file .gz)
+     * Client gửi Accept-Encoding: gzip cũng nhận được body nén (Content-Encoding: gzip)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAnalysisData(
+            @RequestParam(value = "fromDate", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate fromDate,
+            @RequestParam(value = "toDate", required = false) 
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate toDate,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(value = "analysisType", defaultValue = "50-50") String analysisType,
+            @RequestParam(value = "dauDBStart", required = false) Integer dauDBStart,
+            @RequestParam(value = "dauDBEnd", required = false) Integer dauDBEnd,
+            @RequestParam(value = "dbStart", required = false) Integer dbStart,
+            @RequestParam(value = "dbEnd", required = false) Integer dbEnd,
+            @RequestParam(value = "dauG1Start", required = false) Integer dauG1Start,
+            @RequestParam(value = "dauG1End", required = false) Integer dauG1End,
+            @RequestParam(value = "g1Start", required = false) Integer g1Start,
+            @RequestParam(value = "g1End", required = false) Integer g1End) {
+        
+        // Không có fromDate thì xuất toàn bộ lịch sử
+        LocalDate from = fromDate != null ? fromDate : LocalDate.MIN;
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        String exportFormat = ndjson ? "ndjson" : "csv";
+        MediaType contentType = ndjson
+                ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8");
+        // gzip=true: trả về file .gz; chỉ có Accept-Encoding: gzip thì nén trong suốt với client
+        boolean contentEncoding = !gzip && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String fileName = "analysis-" + analysisType.replaceAll("[^A-Za-z0-9_-]", "") + "." + exportFormat + (gzip ? ".gz" : "");
+        
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip || contentEncoding ? new GZIPOutputStream(outputStream, 16 * 1024) : outputStream;
+            analysisService.exportAnalysisRows(
+                    from,
+                    toDate,
+                    analysisType,
+                    dauDBStart, dauDBEnd,
+                    dbStart, dbEnd,
+                    dauG1Start, dauG1End,
+                    g1Start, g1End,
+                    exportFormat,
+                    out
+            );
+            if (out instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (gzip) {
+            response.contentType(MediaType.parseMediaType("application/gzip"));
+        } else {
+            response.contentType(contentType);
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (contentEncoding) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        return response.body(body);
+    }
+    
+    /**
+     * Danh sách các loại phân tích (giá trị hợp lệ của analysisType)
+     * GET /api/analysis/types
+     */
+    @GetMapping("/types")
+    public ResponseEntity<List<String>> getAnalysisTypes() {
+        return ResponseEntity.ok(analysisService.getAnalysisTypes());
     }
 }
-
@@ -1,12 +1,21 @@
 package com.example.controller;
 
+import com.example.crawler.CrawlJobConflictException;
+import com.example.dto.response.CrawlJobDTO;
+import com.example.dto.response.GapReportDTO;
+import com.example.dto.response.ReparseResultDTO;
+import com.example.service.CrawlJobService;
 import com.example.service.CrawlerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/crawl")
@@ -15,6 +24,12 @@ public class CrawlerController {
     @Autowired
     private CrawlerService crawlerService;
 
+    @Autowired
+    private CrawlJobService crawlJobService;
+
+    @Value("${crawler.jobs.auto-update-wait-ms:30000}")
+    private long autoUpdateWaitMs;
+
     // API 1: Cào 1 ngày cụ thể
     // Gọi: GET /api/crawl/single?date=11-12-2025
     @GetMapping("/single")
@@ -22,29 +37,115 @@ public class CrawlerController {
         return crawlerService.crawlAndSaveData(date);
     }
 
-    // API 2: Cào cả năm (Dùng để nạp dữ liệu lần đầu)
+    // API 2: Cào cả năm (Dùng để nạp dữ liệu lần đầu), chạy ngầm bằng một job
     // Gọi: GET /api/crawl/range?from=01-01-2023&to=31-12-2023
     @GetMapping("/range")
-    public String crawlRange(
+    public ResponseEntity<String> crawlRange(
             @RequestParam("from") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
             @RequestParam("to") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to) {
-
-        // Chạy ngầm (Async) để không bắt người dùng chờ
-        new Thread(() -> crawlerService.crawlRange(from, to)).start();
-
-        return "Đang bắt đầu cào dữ liệu từ " + from + " đến " + to + ". Hãy kiểm tra console log.";
+        try {
+            CrawlJobDTO job = crawlJobService.submit(from, to);
+            return ResponseEntity.accepted().body("Đang bắt đầu cào dữ liệu từ " + from + " đến " + to
+                    + ". Theo dõi tiến độ tại /api/crawl/jobs/" + job.getId());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CrawlJobConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
     
-    // API 3: Tự động cập nhật từ ngày cuối cùng đến hôm nay
+    // API 3: Tự động cập nhật đến hôm nay, lấp cả các ngày thiếu ở giữa lịch sử
+    // Chờ job xong tối đa crawler.jobs.auto-update-wait-ms, quá thời gian thì trả về cách theo dõi job
     // Gọi: GET /api/crawl/auto-update
     @GetMapping("/auto-update")
     @CrossOrigin(origins = "*")
     public ResponseEntity<String> autoUpdate() {
         try {
-            String result = crawlerService.autoUpdateFromLastDate();
+            String result = crawlJobService.autoUpdateFromLastDate(autoUpdateWaitMs);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Lỗi khi cập nhật dữ liệu: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // API 4: Tạo job cào một khoảng ngày, trả về 202 + trạng thái job (409 nếu đã có job giao nhau)
+    // Gọi: POST /api/crawl/jobs?from=01-01-2023&to=31-12-2023
+    @PostMapping("/jobs")
+    public ResponseEntity<CrawlJobDTO> submitJob(
+            @RequestParam("from") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to) {
+        try {
+            CrawlJobDTO job = crawlJobService.submit(from, to);
+            return ResponseEntity.accepted().location(URI.create("/api/crawl/jobs/" + job.getId())).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (CrawlJobConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getExisting());
+        }
+    }
+
+    // API 5: Các job gần đây (tiến độ, tốc độ ngày/giây, số ngày lỗi, thời gian còn lại)
+    // Gọi: GET /api/crawl/jobs?limit=20
+    @GetMapping("/jobs")
+    public ResponseEntity<List<CrawlJobDTO>> getJobs(@RequestParam(value = "limit", defaultValue = "20") int limit) {
+        int validLimit = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(crawlJobService.getRecentJobs(validLimit));
+    }
+
+    // Gọi: GET /api/crawl/jobs/{id}
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<CrawlJobDTO> getJob(@PathVariable("id") String id) {
+        return ResponseEntity.of(crawlJobService.getJob(id));
+    }
+
+    // API 6: Hủy job (job đang chạy lưu nốt các trang đã tải rồi dừng)
+    // Gọi: DELETE /api/crawl/jobs/{id}
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<CrawlJobDTO> cancelJob(@PathVariable("id") String id) {
+        return ResponseEntity.of(crawlJobService.cancel(id));
+    }
+
+    // API 7: Bóc tách lại dữ liệu từ kho trang đã tải (không truy cập mạng), dùng sau khi sửa lỗi parser
+    // Gọi: POST /api/crawl/reparse?from=01-01-2023&to=31-12-2023 (bỏ trống = toàn bộ kho)
+    @PostMapping("/reparse")
+    public ResponseEntity<ReparseResultDTO> reparse(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(crawlerService.reparseFromArchive(from, to));
+    }
+
+    // API 8: Báo cáo các ngày còn thiếu (mặc định: từ ngày sớm nhất trong database đến hôm nay)
+    // Gọi: GET /api/crawl/gaps?from=01-01-2020&to=31-12-2023&limit=100
+    @GetMapping("/gaps")
+    public ResponseEntity<GapReportDTO> getGaps(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int validLimit = Math.max(1, Math.min(limit, 1000));
+        return ResponseEntity.ok(crawlJobService.getGapReport(from, to, validLimit));
+    }
+
+    // API 9: Tạo job lấp các ngày còn thiếu (202 + trạng thái job, 204 nếu không thiếu ngày nào, 409 nếu có job giao nhau)
+    // Gọi: POST /api/crawl/gaps?from=01-01-2020&to=31-12-2023 (bỏ trống = toàn bộ lịch sử đến hôm nay)
+    @PostMapping("/gaps")
+    public ResponseEntity<CrawlJobDTO> fillGaps(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return crawlJobService.fillGaps(from, to)
+                    .map(job -> ResponseEntity.accepted().location(URI.create("/api/crawl/jobs/" + job.getId())).body(job))
+                    .orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (CrawlJobConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getExisting());
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.controller;
 
+import com.example.cache.HttpCacheSupport;
+import com.example.dto.response.CacheStatsDTO;
 import com.example.dto.response.DashboardStatsDTO;
+import com.example.dto.response.PredictionAccuracyDTO;
 import com.example.service.DashboardService;
+import com.example.service.DashboardStreamService;
+import com.example.service.PredictionLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.YearMonth;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -17,6 +27,15 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
     
+    @Autowired
+    private PredictionLogService predictionLogService;
+    
+    @Autowired
+    private DashboardStreamService dashboardStreamService;
+    
+    @Autowired
+    private HttpCacheSupport httpCache;
+    
     /**
      * Lấy thống kê tổng quan cho dashboard
      * GET /api/dashboard/stats
@@ -33,16 +52,47 @@ public class DashboardController {
             @RequestParam(value = "loHotMonth", required = false)
             @DateTimeFormat(pattern = "yyyy-MM") YearMonth loHotMonth,
             @RequestParam(value = "algorithm", required = false) String algorithm,
-            @RequestParam(value = "rangeSize", required = false) Integer rangeSize) {
+            @RequestParam(value = "rangeSize", required = false) Integer rangeSize,
+            WebRequest request) {
         
-        DashboardStatsDTO stats;
         // Nếu có month thì dùng cho cả hai, nếu không thì dùng loGanMonth và loHotMonth riêng
-        if (month != null) {
-            stats = dashboardService.getDashboardStats(month, month, algorithm, rangeSize);
-        } else {
-            stats = dashboardService.getDashboardStats(loGanMonth, loHotMonth, algorithm, rangeSize);
-        }
-        return ResponseEntity.ok(stats);
+        YearMonth ganMonth = month != null ? month : loGanMonth;
+        YearMonth hotMonth = month != null ? month : loHotMonth;
+        // Số ngày chưa về phụ thuộc vào hôm nay nên ngày hiện tại cũng là một phần của ETag/Last-Modified
+        return httpCache.respondForToday(request, () -> {
+            DashboardStatsDTO stats = dashboardService.getDashboardStats(ganMonth, hotMonth, algorithm, rangeSize);
+            if (!stats.getFailedSections().isEmpty()) {
+                // Kết quả thiếu phần: không cho client/proxy giữ lại
+                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(stats);
+            }
+            return ResponseEntity.ok(stats);
+        }, "dashboard", ganMonth, hotMonth, algorithm, rangeSize);
+    }
+    
+    /**
+     * Số liệu cache thống kê dashboard
+     * GET /api/dashboard/cache-stats
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(dashboardService.getCacheStats());
+    }
+    
+    /**
+     * Tỷ lệ dự đoán đúng theo từng thuật toán (từ các dự đoán đã được chấm)
+     * GET /api/dashboard/accuracy
+     */
+    @GetMapping("/accuracy")
+    public ResponseEntity<List<PredictionAccuracyDTO>> getPredictionAccuracy() {
+        return ResponseEntity.ok(predictionLogService.getAccuracySummary());
+    }
+    
+    /**
+     * Nhận kết quả mới + thống kê dashboard mỗi khi có ngày mới được lưu (thay cho việc polling)
+     * GET /api/dashboard/stream (text/event-stream, event: dashboard-update)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        return dashboardStreamService.subscribe();
     }
 }
-
@@ -1,11 +1,14 @@
 package com.example.controller;
 
+import com.example.cache.HttpCacheSupport;
 import com.example.dto.LotteryDataDTO;
+import com.example.dto.response.LotteryHistoryDTO;
 import com.example.service.CrawlerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 
@@ -17,21 +20,51 @@ public class LotteryController {
     @Autowired
     private CrawlerService crawlerService;
 
+    @Autowired
+    private HttpCacheSupport httpCache;
+
     /**
      * Lấy dữ liệu xổ số theo ngày
      * GET /api/lottery?date=2025-12-11
      */
     @GetMapping
     public ResponseEntity<LotteryDataDTO> getLotteryData(
-            @RequestParam("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+            @RequestParam("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+            WebRequest request) {
         
-        LotteryDataDTO data = crawlerService.getLotteryDataByDate(date);
+        return httpCache.respond(request, () -> {
+            LotteryDataDTO data = crawlerService.getLotteryDataByDate(date);
+            
+            if (data == null) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            return ResponseEntity.ok(data);
+        }, "lottery", date);
+    }
+
+    /**
+     * Lịch sử kết quả, mới nhất trước, phân trang theo con trỏ
+     * GET /api/lottery/history?size=20
+     * GET /api/lottery/history?size=20&cursor=<nextCursor|prevCursor>
+     */
+    @GetMapping("/history")
+    public ResponseEntity<LotteryHistoryDTO> getLotteryHistory(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            WebRequest request) {
         
-        if (data == null) {
-            return ResponseEntity.notFound().build();
-        }
+        if (size < 1) size = 20;
+        if (size > 100) size = 100;
         
-        return ResponseEntity.ok(data);
+        int pageSize = size;
+        return httpCache.respond(request, () -> {
+            try {
+                return ResponseEntity.ok(crawlerService.getLotteryHistory(cursor, pageSize));
+            } catch (IllegalArgumentException e) {
+                // Con trỏ không hợp lệ
+                return ResponseEntity.badRequest().build();
+            }
+        }, "history", cursor, pageSize);
     }
 }
-
@@ -0,0 +1,18 @@
+package com.example.crawler;
+
+import com.example.dto.response.CrawlJobDTO;
+import lombok.Getter;
+
+/**
+ * Đã có job đang chờ/đang chạy với khoảng ngày giao nhau
+ */
+@Getter
+public class CrawlJobConflictException extends RuntimeException {
+
+    private final CrawlJobDTO existing;
+
+    public CrawlJobConflictException(CrawlJobDTO existing) {
+        super("Đang có job " + existing.getId() + " cào từ " + existing.getFromDate() + " đến " + existing.getToDate());
+        this.existing = existing;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.crawler;
+
+import java.time.LocalDate;
+
+/**
+ * Nhận tiến độ khi cào nhiều ngày (gọi trên thread đang cào)
+ */
+public interface CrawlProgress {
+
+    /**
+     * Đã lập kế hoạch: total ngày trong khoảng, trong đó skipped ngày không cần tải
+     * (đã có trong database hoặc đã xác nhận không có kết quả, xem GapPlanner)
+     */
+    void planned(int total, int skipped);
+
+    /**
+     * Một ngày đã được lưu (sau khi transaction chứa ngày đó commit)
+     */
+    void saved(LocalDate date);
+
+    /**
+     * Một ngày không lưu được (lỗi tải, bóc tách hoặc ghi)
+     */
+    void failed(LocalDate date, String message);
+}
@@ -0,0 +1,202 @@
+package com.example.crawler;
+
+import com.example.repository.LotteryDailyResultRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lập kế hoạch cào: tìm các ngày chưa có trong database bằng một truy vấn cho cả khoảng
+ * (bitmap theo ngày thay vì existsByDrawDate từng ngày), kể cả các lỗ ở giữa lịch sử.
+ * Ngày có mục trong PageArchive được tải đủ lâu sau ngày quay mà nguồn trả 404 hoặc trang không có kết quả
+ * (VD: nghỉ Tết) được coi là đã xác nhận không có kết quả và không bị tải lại mỗi lần cập nhật.
+ */
+@Slf4j
+@Component
+public class GapPlanner {
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepo;
+
+    @Autowired(required = false)
+    private PageArchive pageArchive;
+
+    @Autowired
+    private ResultPageParser resultPageParser;
+
+    @Autowired
+    private PageFetcher pageFetcher;
+
+    @Value("${crawler.gaps.settled-after-days:3}")
+    private int settledAfterDays;
+
+    // Trang đã lưu (theo SHA-256) có phải là trang không có kết quả không: nội dung không đổi nên chỉ cần bóc tách một lần
+    private final Map<String, Boolean> emptyPages = new ConcurrentHashMap<>();
+
+    /**
+     * Kế hoạch cho [fromDate, toDate]
+     */
+    public GapPlan plan(LocalDate fromDate, LocalDate toDate) {
+        int days = fromDate.isAfter(toDate) ? 0 : Math.toIntExact(toDate.toEpochDay() - fromDate.toEpochDay() + 1);
+        BitSet existing = new BitSet(days);
+        BitSet noResult = new BitSet(days);
+        if (days == 0) {
+            return new GapPlan(fromDate, toDate, 0, existing, noResult);
+        }
+        for (LocalDate date : resultRepo.findDrawDatesBetween(fromDate, toDate)) {
+            existing.set(offset(fromDate, date));
+        }
+        if (pageArchive != null && pageArchive.isEnabled()) {
+            ZoneId zone = ZoneId.systemDefault();
+            for (PageArchive.Entry entry : pageArchive.entries(fromDate, toDate)) {
+                int i = offset(fromDate, entry.getDate());
+                long settledAt = entry.getDate().plusDays(settledAfterDays).atStartOfDay(zone).toInstant().toEpochMilli();
+                if (!existing.get(i) && entry.getArchivedAt() >= settledAt && isEmptyPage(entry)) {
+                    noResult.set(i);
+                }
+            }
+        }
+        return new GapPlan(fromDate, toDate, days, existing, noResult);
+    }
+
+    /**
+     * Kế hoạch cho toàn bộ lịch sử: từ ngày sớm nhất trong database đến toDate
+     * (null nếu database chưa có dữ liệu)
+     */
+    public GapPlan planHistory(LocalDate toDate) {
+        return resultRepo.findEarliestDrawDate()
+                .map(earliest -> plan(earliest, toDate))
+                .orElse(null);
+    }
+
+    /**
+     * Nguồn trả 404 hoặc trang đã lưu không bóc tách được kết quả
+     * (ngày còn thiếu mà trang lại có kết quả thì vẫn phải tải lại)
+     */
+    private boolean isEmptyPage(PageArchive.Entry entry) {
+        if (!entry.hasPage()) return true; // Nguồn trả 404
+        Boolean empty = emptyPages.get(entry.getSha256());
+        if (empty != null) return empty;
+        try {
+            resultPageParser.parse(pageArchive.load(entry, pageFetcher.urlFor(entry.getDate())), entry.getDate());
+            empty = false;
+        } catch (ResultPageException e) {
+            empty = true;
+        } catch (IOException e) {
+            log.warn("Không đọc được trang {} trong kho: {}", entry.getDate(), e.getMessage());
+            return false;
+        }
+        emptyPages.put(entry.getSha256(), empty);
+        return empty;
+    }
+
+    private static int offset(LocalDate fromDate, LocalDate date) {
+        return (int) (date.toEpochDay() - fromDate.toEpochDay());
+    }
+
+    /**
+     * Kết quả lập kế hoạch: mỗi ngày trong khoảng thuộc đúng một loại
+     * (đã có, đã xác nhận không có kết quả, hoặc còn thiếu)
+     */
+    public static class GapPlan {
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final int totalDays;
+        private final BitSet existing;
+        private final BitSet noResult;
+        private final BitSet missing;
+
+        GapPlan(LocalDate fromDate, LocalDate toDate, int totalDays, BitSet existing, BitSet noResult) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.totalDays = totalDays;
+            this.existing = existing;
+            this.noResult = noResult;
+            this.missing = new BitSet(totalDays);
+            missing.set(0, totalDays);
+            missing.andNot(existing);
+            missing.andNot(noResult);
+        }
+
+        public LocalDate getFromDate() {
+            return fromDate;
+        }
+
+        public LocalDate getToDate() {
+            return toDate;
+        }
+
+        public int getTotalDays() {
+            return totalDays;
+        }
+
+        public int getExistingDays() {
+            return existing.cardinality();
+        }
+
+        public int getNoResultDays() {
+            return noResult.cardinality();
+        }
+
+        public int getMissingDays() {
+            return missing.cardinality();
+        }
+
+        /**
+         * Các ngày cần tải, theo thứ tự ngày
+         */
+        public List<LocalDate> missingDates() {
+            List<LocalDate> dates = new ArrayList<>(missing.cardinality());
+            for (int i = missing.nextSetBit(0); i >= 0; i = missing.nextSetBit(i + 1)) {
+                dates.add(fromDate.plusDays(i));
+            }
+            return dates;
+        }
+
+        /**
+         * Các đoạn ngày thiếu liên tiếp, theo thứ tự ngày
+         */
+        public List<Gap> gaps() {
+            List<Gap> gaps = new ArrayList<>();
+            for (int start = missing.nextSetBit(0); start >= 0; ) {
+                int end = missing.nextClearBit(start);
+                gaps.add(new Gap(fromDate.plusDays(start), fromDate.plusDays(end - 1), end - start));
+                start = missing.nextSetBit(end);
+            }
+            return gaps;
+        }
+
+        /**
+         * Ngày thiếu đầu tiên (null nếu không thiếu ngày nào)
+         */
+        public LocalDate firstMissing() {
+            int i = missing.nextSetBit(0);
+            return i >= 0 ? fromDate.plusDays(i) : null;
+        }
+
+        public LocalDate lastMissing() {
+            int i = missing.previousSetBit(totalDays - 1);
+            return i >= 0 ? fromDate.plusDays(i) : null;
+        }
+    }
+
+    /**
+     * Một đoạn ngày thiếu liên tiếp [fromDate, toDate]
+     */
+    @lombok.Value
+    public static class Gap {
+        LocalDate fromDate;
+        LocalDate toDate;
+        int days;
+    }
+}
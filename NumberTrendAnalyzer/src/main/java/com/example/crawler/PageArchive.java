@@ -0,0 +1,178 @@
+package com.example.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Kho trang kết quả đã tải, lưu trên đĩa theo nội dung: mỗi trang là một file gzip đặt tên theo SHA-256
+ * của HTML gốc (blobs/ab/abcd....html.gz, trang giống hệt nhau chỉ lưu một lần), còn file index.tsv
+ * ghi nối thêm từng dòng "ngày, sha256, charset, thời điểm lưu" (dòng sau của cùng một ngày thắng).
+ * Ngày nguồn trả HTTP 404 được ghi thành dòng không có sha256 (không có blob) để biết ngày đó đã được hỏi.
+ * Dùng để bóc tách lại dữ liệu khi sửa lỗi parser mà không phải tải lại từ nguồn.
+ */
+@Slf4j
+@Component
+public class PageArchive {
+
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String BLOB_DIR = "blobs";
+
+    @Value("${crawler.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.archive.dir:data/pages}")
+    private String archiveDir;
+
+    private TreeMap<LocalDate, Entry> index;
+
+    /**
+     * Trang đã lưu của một ngày
+     */
+    @lombok.Value
+    public static class Entry {
+        LocalDate date;
+        String sha256; // null = nguồn trả 404, không có trang
+        String charset; // Charset lúc tải (null = tự nhận dạng từ trang)
+        long archivedAt; // Lần tải gần nhất ra nội dung này
+
+        public boolean hasPage() {
+            return sha256 != null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lưu HTML gốc của một ngày. Trang trùng nội dung không ghi lại blob nhưng vẫn cập nhật thời điểm tải
+     * (GapPlanner dựa vào thời điểm này để biết trang không có kết quả đã được tải đủ lâu sau ngày quay chưa)
+     */
+    public synchronized void store(LocalDate date, byte[] html, String charset) throws IOException {
+        if (!enabled) return;
+        ensureLoaded();
+        String sha256 = sha256(html);
+        Path blob = blobPath(sha256);
+        if (!Files.exists(blob)) {
+            Files.createDirectories(blob.getParent());
+            Path tmp = blob.resolveSibling(blob.getFileName() + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(html);
+            }
+            Files.move(tmp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        append(new Entry(date, sha256, charset, System.currentTimeMillis()));
+    }
+
+    /**
+     * Ghi nhận nguồn trả 404 cho một ngày (không có trang để lưu).
+     * Ngày đã có trang thì giữ nguyên: 404 tạm thời của nguồn không được xóa bản đã tải trước đó.
+     */
+    public synchronized void storeMissing(LocalDate date) throws IOException {
+        if (!enabled) return;
+        ensureLoaded();
+        Entry existing = index.get(date);
+        if (existing != null && existing.hasPage()) return;
+        append(new Entry(date, null, null, System.currentTimeMillis()));
+    }
+
+    private void append(Entry entry) throws IOException {
+        Files.createDirectories(root());
+        try (BufferedWriter writer = Files.newBufferedWriter(root().resolve(INDEX_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(entry.getDate() + "\t" + (entry.getSha256() != null ? entry.getSha256() : "") + "\t"
+                    + (entry.getCharset() != null ? entry.getCharset() : "") + "\t" + entry.getArchivedAt());
+            writer.newLine();
+        }
+        index.put(entry.getDate(), entry);
+    }
+
+    /**
+     * Các ngày đã lưu trong [fromDate, toDate] (null = không giới hạn), theo thứ tự ngày, kể cả ngày 404 (hasPage() = false)
+     */
+    public synchronized List<Entry> entries(LocalDate fromDate, LocalDate toDate) {
+        ensureLoaded();
+        if (index.isEmpty()) return new ArrayList<>();
+        LocalDate from = fromDate != null ? fromDate : index.firstKey();
+        LocalDate to = toDate != null ? toDate : index.lastKey();
+        if (from.isAfter(to)) return new ArrayList<>();
+        return new ArrayList<>(index.subMap(from, true, to, true).values());
+    }
+
+    public synchronized Optional<Entry> entry(LocalDate date) {
+        ensureLoaded();
+        return Optional.ofNullable(index.get(date));
+    }
+
+    /**
+     * Đọc và dựng lại Document từ trang đã lưu (an toàn khi gọi song song, chỉ gọi khi hasPage())
+     */
+    public Document load(Entry entry, String baseUri) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(blobPath(entry.getSha256())), 16 * 1024)) {
+            return Jsoup.parse(in, entry.getCharset(), baseUri);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (index != null) return;
+        index = new TreeMap<>();
+        Path file = root().resolve(INDEX_FILE);
+        if (!Files.exists(file)) return;
+        try {
+            int skipped = 0;
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", -1);
+                try {
+                    LocalDate date = LocalDate.parse(parts[0]);
+                    index.put(date, new Entry(date, parts[1].isEmpty() ? null : parts[1],
+                            parts[2].isEmpty() ? null : parts[2], Long.parseLong(parts[3])));
+                } catch (RuntimeException e) {
+                    skipped++; // Dòng ghi dở (VD: tắt máy giữa chừng)
+                }
+            }
+            log.info("Đã nạp kho trang: {} ngày{}", index.size(), skipped > 0 ? " (bỏ qua " + skipped + " dòng lỗi)" : "");
+        } catch (IOException e) {
+            log.warn("Không đọc được index kho trang {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path root() {
+        return Paths.get(archiveDir);
+    }
+
+    private Path blobPath(String sha256) {
+        return root().resolve(BLOB_DIR).resolve(sha256.substring(0, 2)).resolve(sha256 + ".html.gz");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tải trang kết quả của một ngày: giới hạn tốc độ theo từng host (token bucket dùng chung cho mọi thread)
+ * và thử lại với thời gian chờ tăng gấp đôi khi lỗi mạng, quá hạn, HTTP 429 hoặc 5xx.
+ * Trang tải thành công được lưu nguyên bản vào PageArchive (nếu có) để có thể bóc tách lại sau này,
+ * ngày nguồn trả 404 cũng được ghi nhận (không có trang) để biết ngày đó không có kết quả.
+ */
+@Slf4j
+@Component
+public class PageFetcher {
+
+    private static final DateTimeFormatter URL_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final String baseUrl;
+    private final double ratePerSecond;
+    private final int burst;
+    private final int timeoutMs;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private PageArchive pageArchive;
+
+    public PageFetcher(
+            @Value("${crawler.base-url:https://www.minhngoc.net.vn/ket-qua-xo-so/mien-bac/}") String baseUrl,
+            @Value("${crawler.rate-per-second:2}") double ratePerSecond,
+            @Value("${crawler.burst:2}") int burst,
+            @Value("${crawler.timeout-ms:15000}") int timeoutMs,
+            @Value("${crawler.retry.max-attempts:4}") int maxAttempts,
+            @Value("${crawler.retry.initial-backoff-ms:1000}") long initialBackoffMs) {
+        this.baseUrl = baseUrl;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.timeoutMs = timeoutMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+    }
+
+    /**
+     * URL trang kết quả, VD: https://www.minhngoc.net.vn/ket-qua-xo-so/mien-bac/11-12-2025.html
+     */
+    public String urlFor(LocalDate date) {
+        return baseUrl + date.format(URL_DATE_FORMAT) + ".html";
+    }
+
+    /**
+     * Tải trang của một ngày (chặn tới khi có lượt theo giới hạn tốc độ)
+     * @throws IOException nếu vẫn lỗi sau maxAttempts lần, hoặc lỗi không nên thử lại (VD: HTTP 404)
+     */
+    public Document fetch(LocalDate date) throws IOException, InterruptedException {
+        String url = urlFor(date);
+        TokenBucket bucket = buckets.computeIfAbsent(URI.create(url).getHost(),
+                host -> new TokenBucket(ratePerSecond, burst));
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            bucket.acquire();
+            byte[] html;
+            String charset;
+            try {
+                Connection.Response response = Jsoup.connect(url)
+                        .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64)")
+                        .timeout(timeoutMs)
+                        .execute();
+                html = readBody(response);
+                charset = response.charset();
+            } catch (IOException e) {
+                if (isNotFound(e)) {
+                    archiveMissing(date); // Ngày không quay thưởng: ghi nhận để GapPlanner không tải lại mãi
+                }
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                // Chờ ngẫu nhiên trong [backoff/2, backoff] để các thread không thử lại cùng lúc
+                long sleepMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+                log.debug("Lỗi tải {} (lần {}): {}, thử lại sau {} ms", url, attempt, e.getMessage(), sleepMs);
+                Thread.sleep(sleepMs);
+                backoffMs *= 2;
+                continue;
+            }
+            archive(date, html, charset);
+            return Jsoup.parse(new ByteArrayInputStream(html), charset, url);
+        }
+    }
+
+    private static byte[] readBody(Connection.Response response) throws IOException {
+        try {
+            return response.bodyAsBytes();
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Lỗi mạng khi đang đọc nội dung: thử lại như lỗi kết nối
+        }
+    }
+
+    // Lỗi ghi kho trang không được làm hỏng lượt tải
+    private void archive(LocalDate date, byte[] html, String charset) {
+        if (pageArchive == null || !pageArchive.isEnabled()) return;
+        try {
+            pageArchive.store(date, html, charset);
+        } catch (IOException e) {
+            log.warn("Không lưu được trang {} vào kho: {}", date, e.getMessage());
+        }
+    }
+
+    private void archiveMissing(LocalDate date) {
+        if (pageArchive == null || !pageArchive.isEnabled()) return;
+        try {
+            pageArchive.storeMissing(date);
+        } catch (IOException e) {
+            log.warn("Không ghi được ngày {} (404) vào kho: {}", date, e.getMessage());
+        }
+    }
+
+    private static boolean isNotFound(IOException e) {
+        return e instanceof HttpStatusException && ((HttpStatusException) e).getStatusCode() == 404;
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof HttpStatusException) {
+            int status = ((HttpStatusException) e).getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return true; // Lỗi mạng, quá hạn...
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.crawler;
+
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Cào nhiều ngày: tải song song trên crawlExecutor (tốc độ do PageFetcher giới hạn theo host),
+ * còn bóc tách + lưu chạy tuần tự trên thread gọi hàm, nên thời gian chờ mạng của các request chồng lên nhau
+ * và tổng thời gian chỉ bị giới hạn bởi tốc độ cho phép. Số trang đang tải/chờ lưu tối đa là 2 × concurrency.
+ */
+@Component
+public class RangeCrawler {
+
+    private final PageFetcher pageFetcher;
+    private final ExecutorService crawlExecutor;
+    private final int window;
+
+    public RangeCrawler(PageFetcher pageFetcher,
+                        @Qualifier("crawlExecutor") ExecutorService crawlExecutor,
+                        @Value("${crawler.concurrency:4}") int concurrency) {
+        this.pageFetcher = pageFetcher;
+        this.crawlExecutor = crawlExecutor;
+        this.window = Math.max(1, concurrency) * 2;
+    }
+
+    /**
+     * Kết quả tải một ngày: document, hoặc lỗi nếu đã hết lượt thử lại
+     */
+    @lombok.Value
+    public static class FetchedPage {
+        LocalDate date;
+        Document document;
+        Exception error;
+    }
+
+    /**
+     * Tải các ngày và giao từng trang cho handler (trên thread hiện tại, theo thứ tự tải xong)
+     */
+    public void crawl(List<LocalDate> dates, Consumer<FetchedPage> handler) throws InterruptedException {
+        CompletionService<FetchedPage> completion = new ExecutorCompletionService<>(crawlExecutor);
+        // Chỉ giữ các future chưa xong: future đã lấy ra giữ cả Document, giữ lại hết sẽ tốn bộ nhớ theo số ngày
+        Set<Future<FetchedPage>> inFlight = new HashSet<>();
+        Iterator<LocalDate> pending = dates.iterator();
+        try {
+            while (inFlight.size() < window && pending.hasNext()) {
+                inFlight.add(completion.submit(fetchTask(pending.next())));
+            }
+            while (!inFlight.isEmpty()) {
+                Future<FetchedPage> done = completion.take();
+                inFlight.remove(done);
+                FetchedPage page = done.get();
+                // Lấp chỗ trống trước khi xử lý để mạng không phải chờ phần lưu
+                if (pending.hasNext()) {
+                    inFlight.add(completion.submit(fetchTask(pending.next())));
+                }
+                handler.accept(page);
+            }
+        } catch (ExecutionException e) {
+            // fetchTask không ném lỗi ra ngoài, chỉ còn lỗi lập trình
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (Future<FetchedPage> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Callable<FetchedPage> fetchTask(LocalDate date) {
+        return () -> {
+            try {
+                return new FetchedPage(date, pageFetcher.fetch(date), null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new FetchedPage(date, null, e);
+            } catch (Exception e) {
+                return new FetchedPage(date, null, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.crawler;
+
+/**
+ * Trang tải về không có (hoặc chưa có) kết quả hợp lệ cho ngày cần cào
+ */
+public class ResultPageException extends Exception {
+
+    public ResultPageException(String message) {
+        super(message);
+    }
+}
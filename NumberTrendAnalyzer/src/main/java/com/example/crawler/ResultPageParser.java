@@ -0,0 +1,117 @@
+package com.example.crawler;
+
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bóc tách trang kết quả Minh Ngọc thành LotteryDailyResult (chưa lưu), không phụ thuộc mạng hay database
+ */
+@Component
+public class ResultPageParser {
+
+    /**
+     * @throws ResultPageException nếu trang không phải kết quả của ngày này hoặc chưa có giải ĐB
+     */
+    public LotteryDailyResult parse(Document doc, LocalDate date) throws ResultPageException {
+        String dateStr = date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+
+        // Nếu tiêu đề báo lỗi hoặc không tìm thấy ngày
+        if (doc.title().contains("404") || !doc.text().contains(dateStr.replace("-", "/"))) {
+            throw new ResultPageException("Không tìm thấy trang kết quả cho ngày " + dateStr);
+        }
+
+        LotteryDailyResult dailyResult = new LotteryDailyResult();
+        dailyResult.setDrawDate(date);
+        dailyResult.setRegion("MB");
+        List<LotoDigit> digits = new ArrayList<>();
+
+        // Minh Ngọc dùng Class rất rõ ràng cho từng giải
+        // Bảng kết quả nằm trong div class="box_kqxs"
+        Element boxKqxs = doc.selectFirst(".box_kqxs");
+        if (boxKqxs == null) boxKqxs = doc.selectFirst(".bkqt"); // Dự phòng class cũ
+
+        if (boxKqxs == null) throw new ResultPageException("Không tìm thấy bảng .box_kqxs hoặc .bkqt");
+
+        // Lấy giải ĐB (Class: giai_db hoặc giaidb)
+        String db = getPrizeText(boxKqxs, ".giai_db, .giaidb");
+        if (db.isEmpty()) throw new ResultPageException("Chưa có KQ giải ĐB (Có thể chưa đến giờ quay)");
+
+        dailyResult.setSpecialPrizeRaw(db);
+        digits.add(createDigit(db, "Giai_DB", dailyResult));
+
+        // Lấy các giải khác (Hàm tách chuỗi bên dưới xử lý việc 1 giải có nhiều số)
+        parseAndAddDigits(boxKqxs, ".giai_nhat, .giai1", "Giai_1", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_nhi, .giai2", "Giai_2", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_ba, .giai3", "Giai_3", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_tu, .giai4", "Giai_4", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_nam, .giai5", "Giai_5", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_sau, .giai6", "Giai_6", dailyResult, digits);
+        parseAndAddDigits(boxKqxs, ".giai_bay, .giai7", "Giai_7", dailyResult, digits);
+
+        dailyResult.setLotoDigits(digits);
+        return dailyResult;
+    }
+
+    // Lấy text từ selector (VD: lấy "52668")
+    private String getPrizeText(Element container, String cssSelector) {
+        Elements els = container.select(cssSelector);
+        if (els.isEmpty()) return "";
+        return els.text().trim();
+    }
+
+    // Tách chuỗi giải thưởng thành các số và thêm vào list
+    // VD: Giải 3 là "12345 67890 54321" -> Tách thành 3 số
+    private void parseAndAddDigits(Element container, String cssSelector, String prizeName,
+                                   LotteryDailyResult dailyResult, List<LotoDigit> digits) {
+        String rawText = getPrizeText(container, cssSelector);
+        if (rawText.isEmpty()) return;
+
+        // Minh Ngọc ngăn cách số bằng dấu cách hoặc " - "
+        String[] nums = rawText.split("[\\s\\-]+");
+
+        for (String num : nums) {
+            if (num.trim().length() > 0) {
+                digits.add(createDigit(num.trim(), prizeName, dailyResult));
+            }
+        }
+    }
+
+    // Tạo đối tượng LotoDigit
+    private LotoDigit createDigit(String rawVal, String prizeName, LotteryDailyResult dailyResult) {
+        LotoDigit d = new LotoDigit();
+        d.setPrizeName(prizeName);
+        d.setDailyResult(dailyResult);
+
+        // 1. Clean số (chỉ giữ ký tự số, bỏ chữ SR, dấu cách...)
+        String cleanNum = rawVal.replaceAll("[^0-9]", "");
+
+        // 2. LƯU SỐ ĐẦY ĐỦ (NEW)
+        // Lưu nguyên bản "52668" hoặc "08" vào cột fullNumber
+        d.setFullNumber(cleanNum);
+
+        // 3. Vẫn tính và lưu 2 số cuối (OLD)
+
+        if (cleanNum.length() >= 2) {
+            try {
+                String last2 = cleanNum.substring(cleanNum.length() - 2);
+                d.setValue(Integer.parseInt(last2)); // Lưu 68
+            } catch (Exception e) {
+                // Ignore lỗi
+            }
+        } else if (cleanNum.length() == 1) {
+            // Trường hợp hãn hữu số chỉ có 1 chữ số (ít gặp ở XSMB)
+            d.setValue(Integer.parseInt(cleanNum));
+        }
+
+        return d;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.crawler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Giới hạn tốc độ kiểu token bucket: tối đa `capacity` request liền nhau, sau đó `permitsPerSecond` request mỗi giây.
+ * Mỗi lần acquire() đặt trước một token (số token có thể âm), nên các thread chờ được xếp lượt đều nhau
+ * thay vì cùng ngủ một khoảng cố định.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier clock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    // Đồng hồ (nano giây) truyền vào được để test kiểm tra lịch cấp token mà không phụ thuộc thời gian thật
+    TokenBucket(double permitsPerSecond, int capacity, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("permitsPerSecond phải > 0 và capacity >= 1");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Chờ tới lượt của mình rồi trả về
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Đặt trước một token, trả về số nano giây phải chờ tới lượt (0 nếu có sẵn)
+     */
+    synchronized long reserve() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint của một job cào dữ liệu: được ghi lại định kỳ trong lúc chạy để sau khi ứng dụng khởi động lại
+ * job QUEUED/RUNNING/INTERRUPTED được chạy tiếp (các ngày đã lưu có trong lottery_daily_results nên không bị tải lại)
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "crawl_jobs", indexes = @Index(columnList = "status"))
+public class CrawlJob {
+
+    @Id
+    @Column(length = 36)
+    private String id; // UUID
+
+    @Column(nullable = false)
+    private LocalDate fromDate;
+
+    @Column(nullable = false)
+    private LocalDate toDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CrawlJobStatus status;
+
+    private Integer totalDays;   // Số ngày trong khoảng
+    private Integer skippedDays; // Đã có sẵn khi bắt đầu (lần chạy gần nhất)
+    private Integer savedDays;   // Lưu thành công
+    private Integer failedDays;  // Lỗi
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;  // Lần chạy gần nhất
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.domain;
+
+/**
+ * Trạng thái của một job cào dữ liệu
+ */
+public enum CrawlJobStatus {
+    QUEUED,      // Đang chờ thread trống
+    RUNNING,     // Đang cào
+    COMPLETED,   // Đã cào hết khoảng ngày
+    CANCELLED,   // Bị người dùng hủy
+    FAILED,      // Dừng do lỗi ngoài từng ngày (VD: mất kết nối database)
+    INTERRUPTED; // Dừng do ứng dụng tắt, sẽ được chạy tiếp khi khởi động lại
+
+    public boolean isActive() {
+        return this == QUEUED || this == RUNNING;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Bảng tổng hợp theo (ngày, số lô): mỗi số về trong ngày có đúng một dòng.
+ * Được ghi cùng transaction với LotteryDailyResult để các truy vấn thống kê
+ * không phải JOIN loto_digits với lottery_daily_results.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@IdClass(LotoDailyStat.Key.class)
+@Table(name = "loto_daily_stats", indexes = @Index(columnList = "lotoNumber, drawDate"))
+public class LotoDailyStat implements Persistable<LotoDailyStat.Key> {
+
+    // Thứ tự bit trong prizeMask: Giai_DB = bit 0, Giai_1 = bit 1, ..., Giai_7 = bit 7
+    public static final String[] PRIZE_NAMES = {
+            "Giai_DB", "Giai_1", "Giai_2", "Giai_3", "Giai_4", "Giai_5", "Giai_6", "Giai_7"
+    };
+
+    @Id
+    private LocalDate drawDate;
+
+    @Id
+    private Integer lotoNumber; // Số lô (00-99)
+
+    @Column(nullable = false)
+    private Integer occurrenceCount; // Số lần về trong ngày
+
+    @Column(nullable = false)
+    private Integer prizeMask; // Các giải có số này (mỗi giải một bit)
+
+    @Column(nullable = false)
+    private Boolean specialPrize; // true nếu là 2 số cuối giải ĐB
+
+    // Dòng mới luôn được INSERT thẳng, không cần SELECT trước như merge()
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRow = true;
+
+    public LotoDailyStat(LocalDate drawDate, Integer lotoNumber) {
+        this.drawDate = drawDate;
+        this.lotoNumber = lotoNumber;
+        this.occurrenceCount = 0;
+        this.prizeMask = 0;
+        this.specialPrize = false;
+    }
+
+    /**
+     * Ghi nhận thêm một lần về của số này ở giải prizeName
+     */
+    public void addOccurrence(String prizeName) {
+        occurrenceCount++;
+        int bit = prizeBit(prizeName);
+        if (bit >= 0) {
+            prizeMask |= 1 << bit;
+        }
+        if ("Giai_DB".equals(prizeName)) {
+            specialPrize = true;
+        }
+    }
+
+    public static int prizeBit(String prizeName) {
+        for (int i = 0; i < PRIZE_NAMES.length; i++) {
+            if (PRIZE_NAMES[i].equals(prizeName)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(drawDate, lotoNumber);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRow = false;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate drawDate;
+        private Integer lotoNumber;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tổng hợp độ chính xác theo thuật toán, được cộng dồn mỗi lần chấm điểm các dự đoán
+ * (không phải đếm lại toàn bộ prediction_logs)
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "prediction_accuracy")
+public class PredictionAccuracy {
+
+    @Id
+    @Column(length = 50)
+    private String algorithmUsed; // Tên thuật toán (VD: "Markov Chains")
+
+    @Column(nullable = false)
+    private Long evaluatedCount; // Số dự đoán đã có kết quả
+
+    @Column(nullable = false)
+    private Long correctCount; // Số dự đoán đúng
+}
@@ -11,7 +11,8 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "prediction_logs")
+@Table(name = "prediction_logs", uniqueConstraints = @UniqueConstraint(
+        name = "uk_prediction_logs_algorithm_target", columnNames = {"algorithm_used", "target_date"}))
 public class PredictionLog {
 
     @Id
@@ -19,7 +20,7 @@ public class PredictionLog {
     private Long id;
 
     private LocalDate predictionDate; // Ngày thực hiện dự đoán
-    private LocalDate targetDate;     // Dự đoán cho ngày nào (thường là predictionDate + 1)
+    private LocalDate targetDate;     // Dự đoán cho ngày nào (thường là predictionDate + 1), mỗi thuật toán một dự đoán
 
     // Khoảng dự đoán
     private Integer rangeStart; // VD: 60
@@ -32,5 +33,8 @@ public class PredictionLog {
     // Sau khi có kết quả thực tế, cập nhật trường này
     private Boolean isCorrect; // True nếu kết quả thực tế rơi đúng vào khoảng này
 
+    @Column(length = 36)
+    private String evaluationBatch; // Mã lượt chấm điểm đã cập nhật isCorrect (để cộng dồn vào bảng tổng hợp)
+
     // Getters, Setters...
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.example.dto.response;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +18,12 @@ public class AnalysisDataDTO {
     private Integer currentPage; // Trang hiện tại
     private Long totalElements; // Tổng số phần tử
     
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor; // Con trỏ trang sau (null nếu là trang cuối)
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String prevCursor; // Con trỏ trang trước (null nếu là trang đầu)
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -39,6 +47,9 @@ public class AnalysisDataDTO {
         private String range; // Khoảng lọc: "51-99"
         private List<EmptyCountDTO> counts; // Danh sách số lần xuất hiện rỗng
         
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private List<StreakRunDTO> longestStreaks; // Các chuỗi dài nhất (chỉ có ở /api/analysis/streaks)
+        
         @Data
         @NoArgsConstructor
         @AllArgsConstructor
@@ -46,6 +57,15 @@ public class AnalysisDataDTO {
             private Integer emptyLength; // Độ dài rỗng (3, 4, 5, 6, ...)
             private Integer count; // Số lần xuất hiện
         }
+        
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class StreakRunDTO {
+            private String fromDate; // Ngày đầu chuỗi (dd-MM-yyyy)
+            private String toDate; // Ngày cuối chuỗi (dd-MM-yyyy)
+            private Integer length; // Độ dài chuỗi
+        }
     }
 }
 
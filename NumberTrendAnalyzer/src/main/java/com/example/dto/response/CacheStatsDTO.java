@@ -0,0 +1,17 @@
+package com.example.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private Long hits; // Số lần lấy được từ cache
+    private Long misses; // Số lần phải tính lại
+    private Long evictions; // Số phần tử bị loại do đầy cache
+    private Integer size; // Số phần tử hiện tại
+    private Integer maxEntries; // Kích thước tối đa
+    private String datasetVersion; // Phiên bản dữ liệu hiện tại
+}
@@ -0,0 +1,33 @@
+package com.example.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CrawlJobDTO {
+    private String id;
+    private String fromDate; // dd-MM-yyyy
+    private String toDate;
+    private String status; // QUEUED, RUNNING, COMPLETED, CANCELLED, INTERRUPTED
+    private boolean cancelRequested;
+
+    private Integer totalDays; // null khi chưa lập kế hoạch
+    private Integer skippedDays; // Đã có sẵn trong database
+    private int savedDays;
+    private int failedDays;
+    private Integer remainingDays;
+
+    private Double daysPerSecond; // Tốc độ xử lý của lần chạy hiện tại
+    private Long etaSeconds; // Thời gian còn lại ước tính
+
+    private String lastError;
+    private String createdAt;
+    private String startedAt;
+    private String finishedAt;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -28,6 +29,12 @@ public class DashboardStatsDTO {
     // Gợi ý dựa trên tổng hợp 3 thuật toán
     private RecommendationDTO recommendation;
     
+    // Thời gian tính từng phần (ms), VD: {"topLoGan": 0.12, ..., "total": 35.4}
+    private Map<String, Double> sectionTimings;
+    
+    // Các phần bị lỗi hoặc quá thời gian (giá trị tương ứng để null)
+    private List<String> failedSections;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,15 @@
+package com.example.dto.response;
+
+import com.example.dto.LotteryDataDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardUpdateDTO {
+    private String datasetVersion; // Phiên bản dữ liệu sau khi lưu ngày mới
+    private LotteryDataDTO lottery; // Kết quả của ngày vừa được lưu
+    private DashboardStatsDTO stats; // Thống kê dashboard (mặc định) đã tính lại
+}
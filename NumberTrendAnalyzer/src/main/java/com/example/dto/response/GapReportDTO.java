@@ -0,0 +1,30 @@
+package com.example.dto.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GapReportDTO {
+    private String fromDate; // dd-MM-yyyy, null nếu database chưa có dữ liệu
+    private String toDate;
+    private int totalDays; // Số ngày trong khoảng
+    private int existingDays; // Đã có trong database
+    private int noResultDays; // Trang đã tải sau ngày quay mà không có kết quả (VD: nghỉ Tết), không tải lại
+    private int missingDays; // Còn thiếu, sẽ được tải khi lấp chỗ trống
+    private int gapCount; // Số đoạn ngày thiếu liên tiếp
+    private List<GapDTO> gaps; // Theo thứ tự ngày, tối đa limit đoạn đầu tiên
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GapDTO {
+        private String fromDate;
+        private String toDate;
+        private int days;
+    }
+}
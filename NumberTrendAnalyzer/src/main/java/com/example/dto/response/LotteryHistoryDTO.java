@@ -0,0 +1,23 @@
+package com.example.dto.response;
+
+import java.util.List;
+
+import com.example.dto.LotteryDataDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotteryHistoryDTO {
+    private List<LotteryDataDTO> items; // Mới nhất trước
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor; // Con trỏ trang cũ hơn (null nếu hết)
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String prevCursor; // Con trỏ trang mới hơn (null nếu là trang mới nhất)
+}
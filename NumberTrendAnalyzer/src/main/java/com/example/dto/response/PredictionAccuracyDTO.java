@@ -0,0 +1,15 @@
+package com.example.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionAccuracyDTO {
+    private String algorithm; // Tên thuật toán
+    private Long evaluatedCount; // Số dự đoán đã có kết quả
+    private Long correctCount; // Số dự đoán đúng
+    private Double accuracy; // Tỷ lệ đúng (0-1), null nếu chưa có dự đoán nào được chấm
+}
@@ -0,0 +1,41 @@
+package com.example.dto.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeSweepDTO {
+    private String metric; // "longest", "frequency" hoặc "hit-rate"
+    private String fromDate; // Ngày đầu của đoạn đã quét (dd-MM-yyyy, null nếu không có ngày nào)
+    private String toDate; // Ngày cuối của đoạn đã quét
+    private Integer days; // Số ngày đã quét
+    private Integer intervalsPerColumn; // Số khoảng [start, end] được đánh giá mỗi cột
+    private Long elapsedMs; // Thời gian quét
+    private List<ColumnSweepDTO> columns;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColumnSweepDTO {
+        private String columnName; // Tên cột: "Đầu ĐB", "ĐB", "Đầu G1", "G1"
+        private String param; // Tiền tố tham số của /api/analysis: "dauDB", "db", "dauG1", "g1"
+        private List<IntervalScoreDTO> top; // Tốt nhất trước
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IntervalScoreDTO {
+        private Integer start; // Dùng làm <param>Start
+        private Integer end; // Dùng làm <param>End
+        private Integer hits; // Số ngày trúng khoảng
+        private Double hitRate; // hits / số ngày (%)
+        private Integer longestStreak; // Chuỗi trúng liên tiếp dài nhất
+        private Integer streakCount; // Số chuỗi trong [minStreak, maxStreak]
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.dto.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReparseResultDTO {
+    private String fromDate; // dd-MM-yyyy, null nếu kho trống
+    private String toDate;
+    private int archivedDays; // Số ngày có trang trong kho
+    private int replacedDays; // Số ngày được ghi lại
+    private int failedDays; // Bóc tách lỗi (dữ liệu cũ của các ngày này được giữ nguyên)
+    private List<String> errors; // Tối đa 20 lỗi đầu tiên
+    private long parseMillis; // Thời gian đọc + bóc tách (song song)
+    private long writeMillis; // Thời gian ghi database
+}
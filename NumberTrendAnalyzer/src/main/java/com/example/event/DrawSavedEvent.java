@@ -0,0 +1,15 @@
+package com.example.event;
+
+import com.example.domain.LotteryDailyResult;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện phát ra sau khi một ngày quay thưởng đã được lưu vào database
+ * (các chỉ mục/bộ nhớ đệm in-memory lắng nghe sự kiện này để cập nhật)
+ */
+@Getter
+@AllArgsConstructor
+public class DrawSavedEvent {
+    private final LotteryDailyResult result;
+}
@@ -0,0 +1,18 @@
+package com.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Sự kiện phát ra sau khi dữ liệu của các ngày trong [fromDate, toDate] bị ghi đè
+ * (VD: bóc tách lại từ kho trang đã lưu). Khác DrawSavedEvent, các ngày này có thể nằm giữa lịch sử
+ * nên các chỉ mục/bộ nhớ đệm in-memory phải nạp lại thay vì cập nhật từng ngày.
+ */
+@Getter
+@AllArgsConstructor
+public class DrawsReplacedEvent {
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+}
@@ -0,0 +1,259 @@
+package com.example.index;
+
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.AnalysisDigitsRow;
+import com.example.repository.LotteryDailyResultRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kho dữ liệu dạng cột cho trang phân tích: mỗi ngày chỉ cần 4 số nhỏ
+ * (đầu ĐB, ĐB, đầu G1, G1), lưu trong các mảng byte song song với mảng epochDays.
+ * Ô không có dữ liệu mang giá trị NONE (-1). Nạp một lần khi khởi động, nối thêm mỗi khi cào xong một ngày.
+ */
+@Slf4j
+@Component
+public class AnalysisDrawStore {
+
+    public static final int DAU_DB = 0;
+    public static final int DB = 1;
+    public static final int DAU_G1 = 2;
+    public static final int G1 = 3;
+    public static final int COLUMN_COUNT = 4;
+
+    public static final byte NONE = -1;
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepository;
+
+    private int[] epochDays = new int[0];
+    private byte[][] columns = newColumns(0);
+    private int length = 0;
+    private long generation = 0;
+    private volatile boolean loaded = false;
+
+    /**
+     * Ảnh chụp bất biến của kho: chỉ đọc các phần tử [0, length) của mỗi cột
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final int[] epochDays;
+        private final byte[][] columns;
+        private final int length;
+        private final long generation;
+
+        public LocalDate dateAt(int index) {
+            return LocalDate.ofEpochDay(epochDays[index]);
+        }
+
+        public byte[] column(int column) {
+            return columns[column];
+        }
+
+        /**
+         * Vị trí của ngày đầu tiên >= date
+         */
+        public int lowerBound(LocalDate date) {
+            long epochDay = date.toEpochDay();
+            if (epochDay <= Integer.MIN_VALUE) return 0;
+            if (epochDay > Integer.MAX_VALUE) return length;
+            int pos = Arrays.binarySearch(epochDays, 0, length, (int) epochDay);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            log.warn("Không nạp được kho dữ liệu phân tích khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    @Order(1)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        ensureLoaded();
+        LotteryDailyResult result = event.getResult();
+        DayCells day = new DayCells(result.getDrawDate(), result.getSpecialPrizeRaw());
+        List<LotoDigit> digits = result.getLotoDigits();
+        if (digits != null) {
+            for (LotoDigit digit : digits) {
+                day.addDigit(digit.getPrizeName(), digit.getFullNumber(), digit.getValue());
+            }
+        }
+        insert(day);
+    }
+
+    /**
+     * Dữ liệu giữa lịch sử bị ghi đè: nạp lại toàn bộ ở lần đọc sau (generation tăng khi nạp lại)
+     */
+    @Order(1)
+    @EventListener
+    public synchronized void onDrawsReplaced(DrawsReplacedEvent event) {
+        loaded = false;
+    }
+
+    public synchronized Snapshot snapshot() {
+        ensureLoaded();
+        return new Snapshot(epochDays, columns, length, generation);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            List<AnalysisDigitsRow> rows = resultRepository.findAllAnalysisDigits();
+            int[] days = new int[rows.size()];
+            byte[][] cols = newColumns(rows.size());
+            int n = 0;
+            LocalDate previous = null;
+            for (AnalysisDigitsRow row : rows) {
+                if (row.getDrawDate().equals(previous)) continue; // Giải bị trùng: giữ dòng đầu tiên
+                previous = row.getDrawDate();
+                DayCells day = new DayCells(row.getDrawDate(), row.getSpecialPrizeRaw());
+                if (row.getDbValue() != null) {
+                    day.addDigit("Giai_DB", row.getDbFull(), row.getDbValue());
+                }
+                if (row.getG1Value() != null) {
+                    day.addDigit("Giai_1", row.getG1Full(), row.getG1Value());
+                }
+                day.writeTo(days, cols, n++);
+            }
+            epochDays = days;
+            columns = cols;
+            length = n;
+            generation++;
+            loaded = true;
+            log.info("Đã nạp kho dữ liệu phân tích: {} ngày", n);
+        }
+    }
+
+    private synchronized void insert(DayCells day) {
+        int epochDay = (int) day.drawDate.toEpochDay();
+        int pos = Arrays.binarySearch(epochDays, 0, length, epochDay);
+        if (pos >= 0) return; // Đã có ngày này
+
+        int insertAt = -pos - 1;
+        if (insertAt == length && length < epochDays.length) {
+            // Nối vào cuối, còn chỗ trống: ảnh chụp cũ vẫn hợp lệ vì chỉ đọc tới length cũ
+            day.writeTo(epochDays, columns, length);
+            length++;
+            return;
+        }
+
+        // Hết chỗ hoặc chèn giữa: cấp phát mảng mới để không làm hỏng ảnh chụp đang dùng
+        // (chỉ tăng dung lượng khi đã đầy, nếu không chèn giữa nhiều lần sẽ làm mảng phình theo cấp số nhân)
+        int capacity = length < epochDays.length
+                ? epochDays.length
+                : Math.max(16, epochDays.length + (epochDays.length >> 1));
+        int[] newDays = new int[capacity];
+        byte[][] newColumns = newColumns(capacity);
+        System.arraycopy(epochDays, 0, newDays, 0, insertAt);
+        System.arraycopy(epochDays, insertAt, newDays, insertAt + 1, length - insertAt);
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            System.arraycopy(columns[c], 0, newColumns[c], 0, insertAt);
+            System.arraycopy(columns[c], insertAt, newColumns[c], insertAt + 1, length - insertAt);
+        }
+        day.writeTo(newDays, newColumns, insertAt);
+        epochDays = newDays;
+        columns = newColumns;
+        length++;
+        if (insertAt < length - 1) {
+            generation++;
+        }
+    }
+
+    private static byte[][] newColumns(int capacity) {
+        byte[][] cols = new byte[COLUMN_COUNT][];
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            cols[c] = new byte[capacity];
+        }
+        return cols;
+    }
+
+    /**
+     * Lấy 2 chữ số đầu của một số đầy đủ (NONE nếu không đọc được)
+     */
+    static byte parseHead(String fullNumber) {
+        if (fullNumber == null || fullNumber.length() < 2) return NONE;
+        try {
+            int head = Integer.parseInt(fullNumber.substring(0, 2));
+            return head >= 0 && head <= 99 ? (byte) head : NONE;
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Giải ĐB và giải 1 của một ngày trước khi được ghi vào các cột
+     */
+    private static class DayCells {
+        private final LocalDate drawDate;
+        private final String specialPrizeRaw;
+        private boolean hasDb;
+        private String dbFull;
+        private Integer dbValue;
+        private boolean hasG1;
+        private String g1Full;
+        private Integer g1Value;
+
+        DayCells(LocalDate drawDate, String specialPrizeRaw) {
+            this.drawDate = drawDate;
+            this.specialPrizeRaw = specialPrizeRaw;
+        }
+
+        // Giữ giải đầu tiên nếu trùng tên giải
+        void addDigit(String prizeName, String fullNumber, Integer value) {
+            if ("Giai_DB".equals(prizeName) && !hasDb) {
+                hasDb = true;
+                dbFull = fullNumber;
+                dbValue = value;
+            } else if ("Giai_1".equals(prizeName) && !hasG1) {
+                hasG1 = true;
+                g1Full = fullNumber;
+                g1Value = value;
+            }
+        }
+
+        void writeTo(int[] days, byte[][] cols, int index) {
+            days[index] = (int) drawDate.toEpochDay();
+            byte dauDb = NONE;
+            byte db = NONE;
+            if (hasDb) {
+                // Đầu ĐB: 2 số đầu từ fullNumber, nếu trống thì từ specialPrizeRaw
+                dauDb = parseHead(dbFull == null || dbFull.isEmpty() ? specialPrizeRaw : dbFull);
+                db = toCell(dbValue);
+            }
+            byte dauG1 = NONE;
+            byte g1 = NONE;
+            if (hasG1) {
+                dauG1 = parseHead(g1Full);
+                g1 = toCell(g1Value);
+            }
+            cols[DAU_DB][index] = dauDb;
+            cols[DB][index] = db;
+            cols[DAU_G1][index] = dauG1;
+            cols[G1][index] = g1;
+        }
+
+        private static byte toCell(Integer value) {
+            return value != null && value >= 0 && value <= 99 ? (byte) (int) value : NONE;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.index;
+
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Tổng tiền tố (prefix sum) tần suất giải ĐB theo ngày và theo giá trị:
+ * prefix[t][v] = số ngày trong t ngày đầu tiên có giá trị < v.
+ * Nhờ đó "khoảng [a, a + size) về bao nhiêu lần từ ngày X đến ngày Y" chỉ là 4 phép tra mảng (O(1)),
+ * và khoảng tốt nhất cho một rangeSize bất kỳ là một lượt quét O(100).
+ * Được dựng từ SpecialPrizeSeries và nối thêm một hàng mỗi khi có ngày mới;
+ * khi lịch sử bị chèn giữa hoặc ghi đè thì dựng lại theo generation mới của chuỗi.
+ */
+@Component
+public class FrequencyIndex {
+
+    private static final int N = 100;
+    private static final int ROW = N + 1;
+
+    @Autowired
+    private SpecialPrizeSeries specialPrizeSeries;
+
+    // Mảng phẳng (days + 1) × 101, hàng 0 toàn số 0
+    private int[] prefix = new int[ROW];
+    private int[] epochDays = new int[0];
+    private int days = 0;
+    private long generation = -1;
+
+    // Chạy sau SpecialPrizeSeries (Order 1) và trước việc lưu dự đoán cho ngày kế tiếp (Order 3)
+    @Order(2)
+    @EventListener
+    public synchronized void onDrawSaved(DrawSavedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Dữ liệu cũ bị ghi đè: bỏ bảng hiện tại, lần đọc sau dựng lại từ chuỗi đã nạp lại
+     */
+    @Order(2)
+    @EventListener
+    public synchronized void onDrawsReplaced(DrawsReplacedEvent event) {
+        days = 0;
+        generation = -1;
+    }
+
+    /**
+     * Số lần giá trị rơi vào [start, start + size) trong các ngày từ fromDate đến toDate (bao gồm hai đầu)
+     */
+    public synchronized int countInRange(int start, int size, LocalDate fromDate, LocalDate toDate) {
+        refresh();
+        int from = lowerBound((int) fromDate.toEpochDay());
+        int to = lowerBound((int) toDate.toEpochDay() + 1);
+        return from < to ? windowCount(from, to, start, start + size) : 0;
+    }
+
+    /**
+     * Khoảng size số về nhiều nhất trong các ngày từ fromDate đến toDate
+     */
+    public synchronized int bestWindowStart(int size, LocalDate fromDate, LocalDate toDate) {
+        refresh();
+        return bestWindowStart(size, lowerBound((int) fromDate.toEpochDay()), lowerBound((int) toDate.toEpochDay() + 1));
+    }
+
+    /**
+     * Khoảng size số về nhiều nhất trong lastDays ngày có dữ liệu gần nhất
+     */
+    public synchronized int bestWindowStartInLastDays(int size, int lastDays) {
+        refresh();
+        return bestWindowStart(size, Math.max(0, days - lastDays), days);
+    }
+
+    private int bestWindowStart(int size, int from, int to) {
+        int best = -1;
+        int bestStart = 0;
+        for (int start = 0; start + size <= N; start++) {
+            int count = from < to ? windowCount(from, to, start, start + size) : 0;
+            if (count > best) {
+                best = count;
+                bestStart = start;
+            }
+        }
+        return bestStart;
+    }
+
+    // Số ngày trong [from, to) có giá trị thuộc [lo, hi)
+    private int windowCount(int from, int to, int lo, int hi) {
+        return prefix[to * ROW + hi] - prefix[to * ROW + lo] - prefix[from * ROW + hi] + prefix[from * ROW + lo];
+    }
+
+    // Vị trí đầu tiên có epochDay >= target
+    private int lowerBound(int target) {
+        int lo = 0;
+        int hi = days;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void refresh() {
+        SpecialPrizeSeries.Snapshot snapshot = specialPrizeSeries.snapshot();
+        if (snapshot.getGeneration() != generation || snapshot.getLength() < days) {
+            days = 0;
+            generation = snapshot.getGeneration();
+        }
+        epochDays = snapshot.getEpochDays();
+        int length = snapshot.getLength();
+        if (days == length) return;
+
+        if (prefix.length < (length + 1) * ROW) {
+            int[] grown = new int[Math.max((length + 1) * ROW, prefix.length * 3 / 2)];
+            System.arraycopy(prefix, 0, grown, 0, (days + 1) * ROW);
+            prefix = grown;
+        }
+        byte[] values = snapshot.getValues();
+        for (int t = days; t < length; t++) {
+            int base = t * ROW;
+            int next = base + ROW;
+            int value = values[t];
+            for (int v = 0; v <= value; v++) {
+                prefix[next + v] = prefix[base + v];
+            }
+            for (int v = value + 1; v < ROW; v++) {
+                prefix[next + v] = prefix[base + v] + 1;
+            }
+        }
+        days = length;
+    }
+}
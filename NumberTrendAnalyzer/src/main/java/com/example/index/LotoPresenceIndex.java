@@ -0,0 +1,146 @@
+package com.example.index;
+
+import com.example.domain.LotoDigit;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.LotoDigitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục có mặt của các số lô (00-99) theo ngày quay thưởng.
+ * Mỗi số có một BitSet, bit thứ i = 1 nếu số đó về trong ngày (origin + i).
+ * Dựng một lần từ bảng loto_digits khi khởi động, sau đó được nối thêm mỗi khi cào xong một ngày.
+ */
+@Slf4j
+@Component
+public class LotoPresenceIndex {
+
+    public static final int NUMBER_COUNT = 100;
+
+    @Autowired
+    private LotoDigitRepository lotoDigitRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet[] presence = new BitSet[NUMBER_COUNT];
+
+    // Epoch day tương ứng với bit 0 (Long.MIN_VALUE = chưa có dữ liệu)
+    private long originEpochDay = Long.MIN_VALUE;
+    private volatile boolean loaded = false;
+
+    public LotoPresenceIndex() {
+        for (int i = 0; i < NUMBER_COUNT; i++) {
+            presence[i] = new BitSet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            log.warn("Không dựng được chỉ mục lô khi khởi động, sẽ thử lại ở lần truy vấn đầu: {}", e.getMessage());
+        }
+    }
+
+    @Order(1)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        ensureLoaded();
+        List<LotoDigit> digits = event.getResult().getLotoDigits();
+        if (digits == null) return;
+
+        lock.writeLock().lock();
+        try {
+            long epochDay = event.getResult().getDrawDate().toEpochDay();
+            for (LotoDigit digit : digits) {
+                mark(digit.getValue(), epochDay);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dữ liệu giữa lịch sử bị ghi đè: xóa chỉ mục, dựng lại ở lần truy vấn sau
+     */
+    @Order(1)
+    @EventListener
+    public void onDrawsReplaced(DrawsReplacedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < NUMBER_COUNT; i++) {
+                presence[i] = new BitSet();
+            }
+            originEpochDay = Long.MIN_VALUE;
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ngày về gần nhất của một số, null nếu chưa từng về
+     */
+    public LocalDate findLastAppearanceDate(int number) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int last = presence[number].length() - 1;
+            return last < 0 ? null : LocalDate.ofEpochDay(originEpochDay + last);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            long start = System.nanoTime();
+            List<Object[]> pairs = lotoDigitRepository.findAllDrawDateValuePairs();
+            for (Object[] pair : pairs) {
+                mark((Integer) pair[1], ((LocalDate) pair[0]).toEpochDay());
+            }
+            loaded = true;
+            log.info("Đã dựng chỉ mục lô: {} cặp (ngày, số) trong {} ms",
+                    pairs.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private void mark(Integer number, long epochDay) {
+        if (number == null || number < 0 || number >= NUMBER_COUNT) return;
+        if (originEpochDay == Long.MIN_VALUE) {
+            originEpochDay = epochDay;
+        } else if (epochDay < originEpochDay) {
+            // Ngày cũ hơn mốc hiện tại (cào bù quá khứ): dời toàn bộ bit sang phải
+            shift((int) (originEpochDay - epochDay));
+            originEpochDay = epochDay;
+        }
+        presence[number].set((int) (epochDay - originEpochDay));
+    }
+
+    private void shift(int offset) {
+        for (int i = 0; i < NUMBER_COUNT; i++) {
+            BitSet shifted = new BitSet(presence[i].length() + offset);
+            for (int bit = presence[i].nextSetBit(0); bit >= 0; bit = presence[i].nextSetBit(bit + 1)) {
+                shifted.set(bit + offset);
+            }
+            presence[i] = shifted;
+        }
+    }
+}
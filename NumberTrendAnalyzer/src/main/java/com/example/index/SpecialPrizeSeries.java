@@ -0,0 +1,157 @@
+package com.example.index;
+
+import com.example.domain.LotteryDailyResult;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.LotteryDailyResultRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chuỗi 2 số cuối giải ĐB theo thứ tự ngày, lưu dưới dạng mảng nguyên thủy
+ * (epochDays[i] là ngày, values[i] là giá trị 00-99 của ngày thứ i).
+ * Ngày mới hơn được nối vào cuối; ngày chèn vào giữa (cào bù quá khứ) làm tăng generation
+ * để các thành phần tính tăng dần (backtest, Markov...) biết phải tính lại từ đầu.
+ */
+@Slf4j
+@Component
+public class SpecialPrizeSeries {
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepository;
+
+    private int[] epochDays = new int[0];
+    private byte[] values = new byte[0];
+    private int length = 0;
+    private long generation = 0;
+    private volatile boolean loaded = false;
+
+    /**
+     * Ảnh chụp bất biến của chuỗi: chỉ đọc các phần tử [0, length)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final int[] epochDays;
+        private final byte[] values;
+        private final int length;
+        private final long generation;
+
+        public LocalDate dateAt(int index) {
+            return LocalDate.ofEpochDay(epochDays[index]);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            log.warn("Không nạp được chuỗi giải ĐB khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    // Chạy ngay sau khi phiên bản dữ liệu được cập nhật, trước các listener dùng chuỗi này
+    @Order(1)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        ensureLoaded();
+        LotteryDailyResult result = event.getResult();
+        int value = parseSpecialValue(result.getSpecialPrizeRaw());
+        if (value >= 0) {
+            insert((int) result.getDrawDate().toEpochDay(), value);
+        }
+    }
+
+    /**
+     * Dữ liệu giữa lịch sử bị ghi đè: nạp lại toàn bộ ở lần đọc sau (generation tăng khi nạp lại)
+     */
+    @Order(1)
+    @EventListener
+    public synchronized void onDrawsReplaced(DrawsReplacedEvent event) {
+        loaded = false;
+    }
+
+    public synchronized Snapshot snapshot() {
+        ensureLoaded();
+        return new Snapshot(epochDays, values, length, generation);
+    }
+
+    /**
+     * Lấy 2 số cuối của giải ĐB (-1 nếu không đọc được)
+     */
+    public static int parseSpecialValue(String specialPrizeRaw) {
+        if (specialPrizeRaw == null) return -1;
+        String digits = specialPrizeRaw.replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) return -1;
+        return Integer.parseInt(digits.substring(Math.max(0, digits.length() - 2)));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            List<Object[]> rows = resultRepository.findAllSpecialPrizes();
+            int[] days = new int[rows.size()];
+            byte[] vals = new byte[rows.size()];
+            int n = 0;
+            for (Object[] row : rows) {
+                int value = parseSpecialValue((String) row[1]);
+                if (value < 0) continue;
+                days[n] = (int) ((LocalDate) row[0]).toEpochDay();
+                vals[n] = (byte) value;
+                n++;
+            }
+            epochDays = days;
+            values = vals;
+            length = n;
+            generation++;
+            loaded = true;
+            log.info("Đã nạp chuỗi giải ĐB: {} ngày", n);
+        }
+    }
+
+    private synchronized void insert(int epochDay, int value) {
+        int pos = Arrays.binarySearch(epochDays, 0, length, epochDay);
+        if (pos >= 0) return; // Đã có ngày này
+
+        int insertAt = -pos - 1;
+        if (insertAt == length && length < epochDays.length) {
+            // Nối vào cuối, còn chỗ trống: ảnh chụp cũ vẫn hợp lệ vì chỉ đọc tới length cũ
+            epochDays[length] = epochDay;
+            values[length] = (byte) value;
+            length++;
+            return;
+        }
+
+        // Hết chỗ hoặc chèn giữa: cấp phát mảng mới để không làm hỏng ảnh chụp đang dùng
+        // (chỉ tăng dung lượng khi đã đầy, nếu không chèn giữa nhiều lần sẽ làm mảng phình theo cấp số nhân)
+        int capacity = length < epochDays.length
+                ? epochDays.length
+                : Math.max(16, epochDays.length + (epochDays.length >> 1));
+        int[] newDays = new int[capacity];
+        byte[] newValues = new byte[capacity];
+        System.arraycopy(epochDays, 0, newDays, 0, insertAt);
+        System.arraycopy(values, 0, newValues, 0, insertAt);
+        newDays[insertAt] = epochDay;
+        newValues[insertAt] = (byte) value;
+        System.arraycopy(epochDays, insertAt, newDays, insertAt + 1, length - insertAt);
+        System.arraycopy(values, insertAt, newValues, insertAt + 1, length - insertAt);
+        epochDays = newDays;
+        values = newValues;
+        length++;
+        if (insertAt < length - 1) {
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.index;
+
+import com.example.cache.LruResponseCache;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Chỉ mục run-length cho thống kê chuỗi rỗng: với mỗi (cột, bảng phân loại, loại cần đếm),
+ * lưu vị trí bắt đầu và độ dài của mọi chuỗi ngày liên tiếp thuộc loại đó.
+ * Dựng một lần trong một lượt duyệt cho cả nhóm track của một request, sau đó truy vấn với fromDate bất kỳ
+ * chỉ cần tìm nhị phân chuỗi đầu tiên (cắt phần trước fromDate) rồi đọc các chuỗi phía sau.
+ */
+@Component
+public class StreakRunIndex {
+
+    @Value("${analysis.streak-index.max-entries:256}")
+    private int maxEntries;
+
+    private LruResponseCache<RunSetKey, Runs[]> cache;
+
+    @PostConstruct
+    public void initCache() {
+        cache = new LruResponseCache<>(maxEntries);
+    }
+
+    /**
+     * Có ngày mới: các key cũ (gắn với độ dài kho cũ) không còn được dùng nữa
+     */
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        cache.clear();
+    }
+
+    @EventListener
+    public void onDrawsReplaced(DrawsReplacedEvent event) {
+        cache.clear();
+    }
+
+    /**
+     * Lấy (hoặc dựng) các chuỗi cho từng track: track t là các ngày có classTables[columns[t]][ô] == targets[t]
+     * (ô không có dữ liệu được coi là loại 0)
+     */
+    public Runs[] getRuns(AnalysisDrawStore.Snapshot snapshot, byte[][] classTables, int[] columns, int[] targets) {
+        RunSetKey key = new RunSetKey(snapshot.getGeneration(), snapshot.getLength(),
+                signature(classTables, columns, targets));
+        return cache.get(key, () -> build(snapshot, classTables, columns, targets));
+    }
+
+    /**
+     * Một lượt duyệt toàn bộ kho, ghi lại ranh giới chuỗi của mọi track cùng lúc
+     */
+    private static Runs[] build(AnalysisDrawStore.Snapshot snapshot, byte[][] classTables, int[] columns, int[] targets) {
+        int length = snapshot.getLength();
+        int trackCount = columns.length;
+        byte[][] cells = snapshot.getColumns();
+        RunsBuilder[] builders = new RunsBuilder[trackCount];
+        for (int t = 0; t < trackCount; t++) {
+            builders[t] = new RunsBuilder();
+        }
+
+        int[] matches = new int[AnalysisDrawStore.COLUMN_COUNT];
+        for (int i = 0; i < length; i++) {
+            for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+                if (classTables[column] != null) {
+                    int value = cells[column][i];
+                    matches[column] = value == AnalysisDrawStore.NONE ? 0 : classTables[column][value];
+                }
+            }
+            for (int t = 0; t < trackCount; t++) {
+                builders[t].accept(i, matches[columns[t]] == targets[t]);
+            }
+        }
+
+        Runs[] runs = new Runs[trackCount];
+        for (int t = 0; t < trackCount; t++) {
+            runs[t] = builders[t].finish();
+        }
+        return runs;
+    }
+
+    private static String signature(byte[][] classTables, int[] columns, int[] targets) {
+        StringBuilder signature = new StringBuilder();
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (int column = 0; column < classTables.length; column++) {
+            if (classTables[column] != null) {
+                signature.append(column).append('=').append(encoder.encodeToString(classTables[column])).append(';');
+            }
+        }
+        for (int t = 0; t < columns.length; t++) {
+            signature.append(columns[t]).append(':').append(targets[t]).append(',');
+        }
+        return signature.toString();
+    }
+
+    @lombok.Value
+    private static class RunSetKey {
+        long generation;
+        int length;
+        String signature;
+    }
+
+    /**
+     * Một chuỗi (vị trí trong kho + độ dài), đã cắt theo fromDate nếu cần
+     */
+    @lombok.Value
+    public static class Run {
+        int start;
+        int length;
+    }
+
+    /**
+     * Các chuỗi của một track theo thứ tự vị trí: chuỗi k gồm các ngày [starts[k], starts[k] + lengths[k])
+     */
+    public static class Runs {
+        private final int[] starts;
+        private final int[] lengths;
+        private final int count;
+
+        Runs(int[] starts, int[] lengths, int count) {
+            this.starts = starts;
+            this.lengths = lengths;
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Chỉ số chuỗi đầu tiên còn ngày nào >= from (tìm nhị phân theo điểm kết thúc)
+         */
+        private int firstRunEndingAfter(int from) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] + lengths[mid] <= from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int clippedLength(int k, int from) {
+            return starts[k] >= from ? lengths[k] : starts[k] + lengths[k] - from;
+        }
+
+        /**
+         * histogram[độ dài] = số chuỗi có độ dài trong [minLength, maxLength] tính từ vị trí from
+         */
+        public int[] histogram(int from, int minLength, int maxLength) {
+            int first = firstRunEndingAfter(from);
+            int longest = 0;
+            for (int k = first; k < count; k++) {
+                longest = Math.max(longest, clippedLength(k, from));
+            }
+            int[] histogram = new int[Math.min(longest, maxLength) + 1];
+            for (int k = first; k < count; k++) {
+                int length = clippedLength(k, from);
+                if (length >= minLength && length <= maxLength) {
+                    histogram[length]++;
+                }
+            }
+            return histogram;
+        }
+
+        /**
+         * limit chuỗi dài nhất tính từ vị trí from (dài hơn trước, cùng độ dài thì gần đây hơn trước)
+         */
+        public List<Run> longest(int from, int limit) {
+            if (limit <= 0) return new ArrayList<>();
+            Runs runs = this;
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> {
+                int byLength = Integer.compare(runs.clippedLength(a, from), runs.clippedLength(b, from));
+                return byLength != 0 ? byLength : Integer.compare(a, b);
+            });
+            for (int k = firstRunEndingAfter(from); k < count; k++) {
+                heap.add(k);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+            List<Run> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int k = heap.poll();
+                result.add(new Run(Math.max(starts[k], from), clippedLength(k, from)));
+            }
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    private static class RunsBuilder {
+        private int[] starts = new int[16];
+        private int[] lengths = new int[16];
+        private int count = 0;
+        private int currentStart = -1;
+        private int currentLength = 0;
+
+        void accept(int index, boolean inRun) {
+            if (inRun) {
+                if (currentLength == 0) {
+                    currentStart = index;
+                }
+                currentLength++;
+            } else if (currentLength > 0) {
+                close();
+            }
+        }
+
+        Runs finish() {
+            if (currentLength > 0) {
+                close();
+            }
+            return new Runs(Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count), count);
+        }
+
+        private void close() {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            starts[count] = currentStart;
+            lengths[count] = currentLength;
+            count++;
+            currentLength = 0;
+        }
+    }
+}
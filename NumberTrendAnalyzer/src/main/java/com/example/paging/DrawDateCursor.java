@@ -0,0 +1,59 @@
+package com.example.paging;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Con trỏ phân trang theo khóa drawDate (keyset): "lấy các ngày sau / trước ngày này".
+ * Client chỉ nhận chuỗi mã hóa (opaque) và gửi lại nguyên vẹn, nên trang không bị lệch khi có ngày mới được chèn.
+ */
+@Value
+public class DrawDateCursor {
+
+    public enum Direction { AFTER, BEFORE }
+
+    LocalDate drawDate;
+    Direction direction;
+
+    public static DrawDateCursor after(LocalDate drawDate) {
+        return new DrawDateCursor(drawDate, Direction.AFTER);
+    }
+
+    public static DrawDateCursor before(LocalDate drawDate) {
+        return new DrawDateCursor(drawDate, Direction.BEFORE);
+    }
+
+    public boolean isAfter() {
+        return direction == Direction.AFTER;
+    }
+
+    /**
+     * Mã hóa thành chuỗi base64url, VD: "a:2025-01-25" -> "YToyMDI1LTAxLTI1"
+     */
+    public String encode() {
+        String raw = (isAfter() ? "a:" : "b:") + drawDate;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ do encode() tạo ra
+     * @throws IllegalArgumentException nếu chuỗi không phải con trỏ hợp lệ
+     */
+    public static DrawDateCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (raw.length() > 2 && raw.charAt(1) == ':') {
+                LocalDate drawDate = LocalDate.parse(raw.substring(2));
+                if (raw.charAt(0) == 'a') return after(drawDate);
+                if (raw.charAt(0) == 'b') return before(drawDate);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Rơi xuống lỗi chung bên dưới
+        }
+        throw new IllegalArgumentException("Con trỏ phân trang không hợp lệ: " + cursor);
+    }
+}
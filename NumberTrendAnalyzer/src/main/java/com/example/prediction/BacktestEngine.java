@@ -0,0 +1,158 @@
+package com.example.prediction;
+
+import com.example.index.SpecialPrizeSeries;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Chạy lại lịch sử giải ĐB từng ngày (walk-forward) cho mọi tổ hợp thuật toán × khoảng số:
+ * mỗi ngày dự đoán bằng dữ liệu các ngày trước đó rồi chấm điểm với kết quả thật.
+ * Các tổ hợp độc lập nên chạy song song trên backtestPool. Trạng thái được giữ lại,
+ * khi có ngày mới chỉ cần chạy tiếp phần còn thiếu thay vì chạy lại từ đầu.
+ */
+@Slf4j
+@Component
+public class BacktestEngine {
+
+    public static final int[] RANGE_SIZES = {10, 15, 20, 25, 30, 35, 40, 45, 50, 55, 60};
+    public static final int MIN_RANGE_SIZE = 10;
+    public static final int MAX_RANGE_SIZE = 60;
+
+    // Số ngày đầu chỉ dùng để "làm nóng" thuật toán, không chấm điểm
+    public static final int WARMUP_DAYS = 30;
+
+    @Autowired
+    private SpecialPrizeSeries specialPrizeSeries;
+
+    @Autowired
+    @Qualifier("backtestPool")
+    private ForkJoinPool backtestPool;
+
+    // Cùng cấu hình với MarkovModel để tỷ lệ trúng của Markov ứng với mô hình đang phục vụ
+    @Value("${prediction.markov.second-order:false}")
+    private boolean markovSecondOrder;
+
+    // Key: thuật toán × khoảng số (lưới cố định + các khoảng người dùng chọn thêm)
+    private final Map<String, Cell> cells = new LinkedHashMap<>();
+    private int processed = 0;
+    private long generation = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            for (PredictionAlgorithm algorithm : PredictionAlgorithm.values()) {
+                for (int rangeSize : RANGE_SIZES) {
+                    getResult(algorithm, rangeSize);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Không chạy được backtest khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Kết quả backtest của một tổ hợp, đã cập nhật đến ngày mới nhất
+     * @param rangeSize Kích thước khoảng (10-60)
+     */
+    public synchronized BacktestResult getResult(PredictionAlgorithm algorithm, int rangeSize) {
+        if (rangeSize < MIN_RANGE_SIZE || rangeSize > MAX_RANGE_SIZE) {
+            throw new IllegalArgumentException("rangeSize phải trong khoảng 10-60: " + rangeSize);
+        }
+        SpecialPrizeSeries.Snapshot snapshot = specialPrizeSeries.snapshot();
+        if (snapshot.getGeneration() != generation || snapshot.getLength() < processed) {
+            // Lịch sử bị chèn ngày ở giữa: phải chạy lại từ đầu
+            cells.replaceAll((key, cell) -> newCell(cell.algorithm, cell.rangeSize));
+            processed = 0;
+            generation = snapshot.getGeneration();
+        }
+        if (cells.isEmpty()) {
+            for (PredictionAlgorithm algo : PredictionAlgorithm.values()) {
+                for (int size : RANGE_SIZES) {
+                    cells.put(key(algo, size), newCell(algo, size));
+                }
+            }
+        }
+
+        Cell cell = cells.get(key(algorithm, rangeSize));
+        if (cell == null) {
+            // Khoảng ngoài lưới: thêm vào và chạy bù tới cùng mốc với các ô khác
+            cell = newCell(algorithm, rangeSize);
+            cell.advance(snapshot.getValues(), 0, processed);
+            cells.put(key(algorithm, rangeSize), cell);
+        }
+
+        if (processed < snapshot.getLength()) {
+            advanceAll(snapshot.getValues(), processed, snapshot.getLength());
+            processed = snapshot.getLength();
+        }
+        return cell.toResult();
+    }
+
+    private void advanceAll(byte[] values, int from, int to) {
+        long start = System.nanoTime();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(cells.size());
+        for (Cell cell : cells.values()) {
+            tasks.add(ForkJoinTask.adapt(() -> cell.advance(values, from, to)));
+        }
+        backtestPool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        log.info("Backtest {} tổ hợp từ ngày thứ {} đến {} trong {} ms",
+                tasks.size(), from, to, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Cell newCell(PredictionAlgorithm algorithm, int rangeSize) {
+        return new Cell(algorithm, rangeSize, algorithm.newPredictor(markovSecondOrder));
+    }
+
+    private static String key(PredictionAlgorithm algorithm, int rangeSize) {
+        return algorithm.name() + ":" + rangeSize;
+    }
+
+    /**
+     * Một ô của lưới: bộ dự đoán riêng + bộ đếm trúng
+     */
+    private static class Cell {
+        private final PredictionAlgorithm algorithm;
+        private final int rangeSize;
+        private final RangePredictor predictor;
+        private int trials = 0;
+        private int hits = 0;
+        private int nextRangeStart = 0;
+
+        Cell(PredictionAlgorithm algorithm, int rangeSize, RangePredictor predictor) {
+            this.algorithm = algorithm;
+            this.rangeSize = rangeSize;
+            this.predictor = predictor;
+        }
+
+        void advance(byte[] values, int from, int to) {
+            for (int day = from; day < to; day++) {
+                int actual = values[day];
+                if (day >= WARMUP_DAYS) {
+                    int predictedStart = predictor.predictStart(rangeSize);
+                    if (RangeWindows.contains(predictedStart, rangeSize, actual)) {
+                        hits++;
+                    }
+                    trials++;
+                }
+                predictor.observe(actual);
+            }
+            nextRangeStart = predictor.predictStart(rangeSize);
+        }
+
+        BacktestResult toResult() {
+            return new BacktestResult(algorithm, rangeSize, trials, hits, nextRangeStart);
+        }
+    }
+}
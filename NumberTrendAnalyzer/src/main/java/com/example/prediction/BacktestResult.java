@@ -0,0 +1,29 @@
+package com.example.prediction;
+
+import lombok.Value;
+
+/**
+ * Kết quả chạy lại lịch sử (walk-forward) của một tổ hợp (thuật toán, khoảng số)
+ */
+@Value
+public class BacktestResult {
+    PredictionAlgorithm algorithm;
+    int rangeSize;
+    int trials;          // Số ngày đã được chấm điểm
+    int hits;            // Số ngày kết quả rơi vào khoảng dự đoán
+    int nextRangeStart;  // Khoảng dự đoán cho ngày tiếp theo
+
+    /**
+     * Tỷ lệ trúng thực tế; chưa có ngày nào được chấm thì dùng xác suất ngẫu nhiên rangeSize/100
+     */
+    public double getHitRate() {
+        return trials == 0 ? rangeSize / 100.0 : (double) hits / trials;
+    }
+
+    /**
+     * Mức vượt so với chọn ngẫu nhiên một khoảng cùng kích thước
+     */
+    public double getLift() {
+        return getHitRate() - rangeSize / 100.0;
+    }
+}
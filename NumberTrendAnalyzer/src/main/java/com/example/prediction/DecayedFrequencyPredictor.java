@@ -0,0 +1,41 @@
+package com.example.prediction;
+
+/**
+ * Dùng cho lựa chọn "Long Short-Term Memory": kết hợp trí nhớ ngắn hạn và dài hạn
+ * bằng hai tần suất suy giảm theo cấp số nhân (chu kỳ bán rã 7 ngày và 90 ngày).
+ * Không phải mạng nơ-ron LSTM, nhưng giữ đúng ý tưởng cân bằng xu hướng gần và xa.
+ */
+public class DecayedFrequencyPredictor implements RangePredictor {
+
+    private static final int N = RangeWindows.VALUE_COUNT;
+    private static final double SHORT_DECAY = Math.pow(0.5, 1.0 / 7);
+    private static final double LONG_DECAY = Math.pow(0.5, 1.0 / 90);
+
+    private final double[] shortTerm = new double[N];
+    private final double[] longTerm = new double[N];
+    private double shortTotal = 0;
+    private double longTotal = 0;
+
+    @Override
+    public void observe(int value) {
+        for (int v = 0; v < N; v++) {
+            shortTerm[v] *= SHORT_DECAY;
+            longTerm[v] *= LONG_DECAY;
+        }
+        shortTerm[value] += 1;
+        longTerm[value] += 1;
+        shortTotal = shortTotal * SHORT_DECAY + 1;
+        longTotal = longTotal * LONG_DECAY + 1;
+    }
+
+    @Override
+    public int predictStart(int rangeSize) {
+        double[] mass = new double[N];
+        for (int v = 0; v < N; v++) {
+            double s = shortTotal > 0 ? shortTerm[v] / shortTotal : 0;
+            double l = longTotal > 0 ? longTerm[v] / longTotal : 0;
+            mass[v] = 0.5 * s + 0.5 * l;
+        }
+        return RangeWindows.bestStart(mass, rangeSize);
+    }
+}
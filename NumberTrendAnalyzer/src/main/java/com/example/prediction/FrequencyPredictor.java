@@ -0,0 +1,29 @@
+package com.example.prediction;
+
+/**
+ * Frequency Analysis: chọn khoảng có nhiều lần về nhất trong LOOKBACK ngày gần nhất
+ */
+public class FrequencyPredictor implements RangePredictor {
+
+    public static final int LOOKBACK = 90;
+
+    private final int[] counts = new int[RangeWindows.VALUE_COUNT];
+    private final int[] window = new int[LOOKBACK]; // Vòng tròn các giá trị gần nhất
+    private int observed = 0;
+
+    @Override
+    public void observe(int value) {
+        int slot = observed % LOOKBACK;
+        if (observed >= LOOKBACK) {
+            counts[window[slot]]--;
+        }
+        window[slot] = value;
+        counts[value]++;
+        observed++;
+    }
+
+    @Override
+    public int predictStart(int rangeSize) {
+        return RangeWindows.bestStart(counts, rangeSize);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.prediction;
+
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.index.SpecialPrizeSeries;
+import com.example.repository.LotteryDailyResultRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mô hình Markov đang phục vụ dự đoán giải ĐB ngày tiếp theo.
+ * Giữ trong bộ nhớ, cập nhật O(1) mỗi khi lưu thêm một ngày mới và được ghi ra đĩa (snapshot) tối đa
+ * một lần mỗi snapshot-interval-ms và khi tắt ứng dụng; khi khởi động lại chỉ cần đọc snapshot
+ * rồi bổ sung các ngày sau ngày cuối trong snapshot (snapshot cũ hơn database vẫn dùng được).
+ */
+@Slf4j
+@Component
+public class MarkovModel {
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepository;
+
+    @Value("${prediction.markov.second-order:false}")
+    private boolean secondOrder;
+
+    @Value("${prediction.markov.snapshot-path:data/markov-model.bin.gz}")
+    private String snapshotPath;
+
+    @Value("${prediction.markov.snapshot-interval-ms:60000}")
+    private long snapshotIntervalMs;
+
+    private MarkovPredictor predictor;
+    private LocalDate lastDrawDate;
+
+    // true khi có ngày được chèn vào trước ngày cuối cùng: phải dựng lại từ đầu
+    private boolean stale = false;
+
+    // true khi mô hình trong bộ nhớ mới hơn snapshot trên đĩa
+    private boolean dirty = false;
+    private long lastSnapshotNanos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            predictStart(20);
+        } catch (Exception e) {
+            log.warn("Không dựng được mô hình Markov khi khởi động: {}", e.getMessage());
+        }
+    }
+
+    @Order(2)
+    @EventListener
+    public synchronized void onDrawSaved(DrawSavedEvent event) {
+        ensureReady();
+        LocalDate date = event.getResult().getDrawDate();
+        int value = SpecialPrizeSeries.parseSpecialValue(event.getResult().getSpecialPrizeRaw());
+        if (value < 0) return;
+
+        if (lastDrawDate == null || date.isAfter(lastDrawDate)) {
+            predictor.observe(value);
+            lastDrawDate = date;
+            dirty = true;
+            // Cào bù nhiều ngày liên tiếp không ghi lại snapshot cho từng ngày
+            if (System.nanoTime() - lastSnapshotNanos >= TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMs)) {
+                saveSnapshot();
+            }
+        } else if (date.isBefore(lastDrawDate)) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Chuỗi giải ĐB có thể đã đổi ở giữa: dựng lại mô hình ở lần dự đoán sau
+     */
+    @Order(2)
+    @EventListener
+    public synchronized void onDrawsReplaced(DrawsReplacedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Điểm bắt đầu của khoảng rangeSize số có tổng xác suất lớn nhất cho ngày tiếp theo
+     */
+    public synchronized int predictStart(int rangeSize) {
+        ensureReady();
+        return predictor.predictStart(rangeSize);
+    }
+
+    /**
+     * Tổng xác suất của khoảng [start, start + rangeSize) cho ngày tiếp theo
+     */
+    public synchronized double windowProbability(int start, int rangeSize) {
+        ensureReady();
+        return predictor.windowProbability(start, rangeSize);
+    }
+
+    /**
+     * Ghi snapshot nếu mô hình đã thay đổi (gọi cả khi tắt ứng dụng để không mất các ngày chưa ghi)
+     */
+    @PreDestroy
+    public synchronized void flushSnapshot() {
+        if (dirty) {
+            saveSnapshot();
+        }
+    }
+
+    private void saveSnapshot() {
+        if (predictor == null || lastDrawDate == null) return;
+        lastSnapshotNanos = System.nanoTime();
+        Path path = Paths.get(snapshotPath);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeLong(lastDrawDate.toEpochDay());
+                predictor.writeTo(out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Không ghi được snapshot Markov {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void ensureReady() {
+        if (predictor != null && !stale) return;
+        if (predictor == null && !stale && restoreSnapshot()) return;
+        rebuild();
+    }
+
+    /**
+     * Đọc snapshot và kiểm tra còn khớp với database (số ngày tới ngày cuối trong snapshot),
+     * sau đó chỉ bổ sung các ngày mới hơn
+     */
+    private boolean restoreSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            LocalDate snapshotDate = LocalDate.ofEpochDay(in.readLong());
+            MarkovPredictor restored = MarkovPredictor.readFrom(in);
+            if (restored.isSecondOrder() != secondOrder
+                    || resultRepository.countSpecialPrizesUpTo(snapshotDate) != restored.getObserved()) {
+                log.info("Snapshot Markov không còn khớp với dữ liệu, dựng lại từ đầu");
+                return false;
+            }
+
+            List<Object[]> newer = resultRepository.findSpecialPrizesAfter(snapshotDate);
+            predictor = restored;
+            lastDrawDate = snapshotDate;
+            observeAll(newer);
+            log.info("Đã nạp snapshot Markov ({} ngày) và bổ sung {} ngày mới", restored.getObserved() - newer.size(), newer.size());
+            if (!newer.isEmpty()) {
+                saveSnapshot();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Không đọc được snapshot Markov {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private void rebuild() {
+        predictor = new MarkovPredictor(secondOrder);
+        lastDrawDate = null;
+        stale = false;
+        observeAll(resultRepository.findAllSpecialPrizes());
+        log.info("Đã dựng mô hình Markov{} từ {} ngày", secondOrder ? " bậc 2" : "", predictor.getObserved());
+        saveSnapshot();
+    }
+
+    private void observeAll(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            int value = SpecialPrizeSeries.parseSpecialValue((String) row[1]);
+            if (value < 0) continue;
+            predictor.observe(value);
+            lastDrawDate = (LocalDate) row[0];
+        }
+    }
+}
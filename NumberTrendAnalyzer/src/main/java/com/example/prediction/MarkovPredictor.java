@@ -0,0 +1,151 @@
+package com.example.prediction;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Markov Chains trên 2 số cuối giải ĐB: ma trận đếm số lần chuyển 100×100 (bậc 1),
+ * tùy chọn thêm bảng 100×100×100 (bậc 2, theo cặp 2 ngày gần nhất).
+ * Phân phối ngày tiếp theo được làm mượt theo kiểu lùi bậc: bậc 2 → bậc 1 → tần suất chung,
+ * nên khi hàng còn thưa vẫn cho kết quả hợp lý. Mỗi lần observe là O(1).
+ */
+public class MarkovPredictor implements RangePredictor {
+
+    private static final int N = RangeWindows.VALUE_COUNT;
+    private static final int SNAPSHOT_MAGIC = 0x4D4B5631; // "MKV1"
+
+    // Trọng số của bậc thấp hơn khi làm mượt (tương đương số lần quan sát "giả")
+    private static final double BACKOFF = 2.0;
+
+    private final boolean secondOrder;
+    private final int[] totals = new int[N];
+    private final int[] first = new int[N * N];
+    private final int[] firstRowTotals = new int[N];
+    private final int[] second;
+    private final int[] secondRowTotals;
+    private int observed = 0;
+    private int last = -1;
+    private int previous = -1;
+
+    public MarkovPredictor() {
+        this(false);
+    }
+
+    public MarkovPredictor(boolean secondOrder) {
+        this.secondOrder = secondOrder;
+        this.second = secondOrder ? new int[N * N * N] : null;
+        this.secondRowTotals = secondOrder ? new int[N * N] : null;
+    }
+
+    @Override
+    public void observe(int value) {
+        if (last >= 0) {
+            first[last * N + value]++;
+            firstRowTotals[last]++;
+            if (secondOrder && previous >= 0) {
+                int row = previous * N + last;
+                second[row * N + value]++;
+                secondRowTotals[row]++;
+            }
+        }
+        totals[value]++;
+        observed++;
+        previous = last;
+        last = value;
+    }
+
+    @Override
+    public int predictStart(int rangeSize) {
+        return RangeWindows.bestStart(distribution(), rangeSize);
+    }
+
+    /**
+     * Tổng xác suất của khoảng [start, start + rangeSize) cho ngày tiếp theo
+     */
+    public double windowProbability(int start, int rangeSize) {
+        double[] p = distribution();
+        double sum = 0;
+        for (int v = start; v < start + rangeSize && v < N; v++) {
+            sum += p[v];
+        }
+        return sum;
+    }
+
+    /**
+     * Phân phối xác suất của giá trị ngày tiếp theo
+     */
+    public double[] distribution() {
+        double[] p = new double[N];
+        for (int v = 0; v < N; v++) {
+            p[v] = (totals[v] + 1.0) / (observed + N);
+        }
+        if (last < 0) return p;
+
+        int firstTotal = firstRowTotals[last];
+        for (int v = 0; v < N; v++) {
+            p[v] = (first[last * N + v] + BACKOFF * p[v]) / (firstTotal + BACKOFF);
+        }
+        if (!secondOrder || previous < 0) return p;
+
+        int row = previous * N + last;
+        int secondTotal = secondRowTotals[row];
+        for (int v = 0; v < N; v++) {
+            p[v] = (second[row * N + v] + BACKOFF * p[v]) / (secondTotal + BACKOFF);
+        }
+        return p;
+    }
+
+    public boolean isSecondOrder() {
+        return secondOrder;
+    }
+
+    public int getObserved() {
+        return observed;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeBoolean(secondOrder);
+        out.writeInt(observed);
+        out.writeInt(last);
+        out.writeInt(previous);
+        writeInts(out, totals);
+        writeInts(out, first);
+        writeInts(out, firstRowTotals);
+        if (secondOrder) {
+            writeInts(out, second);
+            writeInts(out, secondRowTotals);
+        }
+    }
+
+    public static MarkovPredictor readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Sai định dạng snapshot Markov");
+        }
+        MarkovPredictor predictor = new MarkovPredictor(in.readBoolean());
+        predictor.observed = in.readInt();
+        predictor.last = in.readInt();
+        predictor.previous = in.readInt();
+        readInts(in, predictor.totals);
+        readInts(in, predictor.first);
+        readInts(in, predictor.firstRowTotals);
+        if (predictor.secondOrder) {
+            readInts(in, predictor.second);
+            readInts(in, predictor.secondRowTotals);
+        }
+        return predictor;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+    }
+}
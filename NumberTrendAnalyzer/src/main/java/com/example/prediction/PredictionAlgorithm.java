@@ -0,0 +1,50 @@
+package com.example.prediction;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * Các thuật toán dự đoán hiển thị trên dashboard
+ */
+@Getter
+public enum PredictionAlgorithm {
+    FREQUENCY("Frequency Analysis", markovSecondOrder -> new FrequencyPredictor()),
+    LSTM("Long Short-Term Memory", markovSecondOrder -> new DecayedFrequencyPredictor()),
+    MARKOV("Markov Chains", MarkovPredictor::new);
+
+    private final String displayName;
+    private final Function<Boolean, RangePredictor> factory;
+
+    PredictionAlgorithm(String displayName, Function<Boolean, RangePredictor> factory) {
+        this.displayName = displayName;
+        this.factory = factory;
+    }
+
+    /**
+     * @param markovSecondOrder Cấu hình prediction.markov.second-order (chỉ Markov dùng), để backtest
+     *                          chấm điểm đúng bậc mô hình đang phục vụ
+     */
+    public RangePredictor newPredictor(boolean markovSecondOrder) {
+        return factory.apply(markovSecondOrder);
+    }
+
+    /**
+     * Tìm thuật toán theo tên hiển thị hoặc tên viết tắt ("LSTM", "Markov"); mặc định Frequency Analysis
+     */
+    public static PredictionAlgorithm fromName(String name) {
+        if (name != null) {
+            switch (name.trim()) {
+                case "Long Short-Term Memory":
+                case "LSTM":
+                    return LSTM;
+                case "Markov Chains":
+                case "Markov":
+                    return MARKOV;
+                default:
+                    break;
+            }
+        }
+        return FREQUENCY;
+    }
+}
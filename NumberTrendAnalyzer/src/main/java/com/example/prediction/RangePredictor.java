@@ -0,0 +1,18 @@
+package com.example.prediction;
+
+/**
+ * Bộ dự đoán khoảng số liên tiếp cho 2 số cuối giải ĐB ngày tiếp theo.
+ * Trạng thái được cập nhật tăng dần: mỗi ngày gọi observe một lần theo thứ tự thời gian.
+ */
+public interface RangePredictor {
+
+    /**
+     * Ghi nhận kết quả (00-99) của ngày kế tiếp trong lịch sử
+     */
+    void observe(int value);
+
+    /**
+     * Dự đoán điểm bắt đầu của khoảng [start, start + rangeSize - 1] cho ngày tiếp theo
+     */
+    int predictStart(int rangeSize);
+}
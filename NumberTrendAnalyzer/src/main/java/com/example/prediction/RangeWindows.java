@@ -0,0 +1,51 @@
+package com.example.prediction;
+
+/**
+ * Tìm khoảng liên tiếp [start, start + size) trong 0-99 có tổng "khối lượng" lớn nhất
+ * bằng cửa sổ trượt O(100). Cùng tổng thì lấy khoảng bắt đầu nhỏ nhất.
+ */
+public final class RangeWindows {
+
+    public static final int VALUE_COUNT = 100;
+
+    private RangeWindows() {
+    }
+
+    public static int bestStart(double[] mass, int size) {
+        double sum = 0;
+        for (int v = 0; v < size; v++) {
+            sum += mass[v];
+        }
+        double best = sum;
+        int bestStart = 0;
+        for (int start = 1; start + size <= VALUE_COUNT; start++) {
+            sum += mass[start + size - 1] - mass[start - 1];
+            if (sum > best + 1e-12) {
+                best = sum;
+                bestStart = start;
+            }
+        }
+        return bestStart;
+    }
+
+    public static int bestStart(int[] counts, int size) {
+        long sum = 0;
+        for (int v = 0; v < size; v++) {
+            sum += counts[v];
+        }
+        long best = sum;
+        int bestStart = 0;
+        for (int start = 1; start + size <= VALUE_COUNT; start++) {
+            sum += counts[start + size - 1] - counts[start - 1];
+            if (sum > best) {
+                best = sum;
+                bestStart = start;
+            }
+        }
+        return bestStart;
+    }
+
+    public static boolean contains(int start, int size, int value) {
+        return value >= start && value < start + size;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.repository;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Một dòng phẳng cho mỗi ngày: chỉ giải ĐB và giải 1 (các cột khác của giải null nếu ngày đó thiếu giải)
+ */
+@Value
+public class AnalysisDigitsRow {
+    LocalDate drawDate;
+    String specialPrizeRaw;
+    String dbFull;
+    Integer dbValue;
+    String g1Full;
+    Integer g1Value;
+}
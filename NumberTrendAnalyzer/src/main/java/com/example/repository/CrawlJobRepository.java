@@ -0,0 +1,27 @@
+package com.example.repository;
+
+import com.example.domain.CrawlJob;
+import com.example.domain.CrawlJobStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CrawlJobRepository extends JpaRepository<CrawlJob, String> {
+
+    /**
+     * Các job theo trạng thái, cũ nhất trước (dùng để chạy tiếp khi khởi động)
+     */
+    @Query("SELECT j FROM CrawlJob j WHERE j.status IN :statuses ORDER BY j.createdAt ASC")
+    List<CrawlJob> findByStatuses(Collection<CrawlJobStatus> statuses);
+
+    /**
+     * Các job gần đây nhất, mới nhất trước
+     */
+    @Query("SELECT j FROM CrawlJob j ORDER BY j.createdAt DESC")
+    List<CrawlJob> findRecent(Limit limit);
+}
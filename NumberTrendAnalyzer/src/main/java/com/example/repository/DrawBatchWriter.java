@@ -0,0 +1,125 @@
+package com.example.repository;
+
+import com.example.domain.LotoDailyStat;
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ghi kết quả đã cào bằng JDBC batch thay vì qua Hibernate:
+ * các entity dùng GenerationType.IDENTITY nên Hibernate không gom được INSERT, mỗi ngày tốn ~28 lượt gọi DB.
+ * Ở đây mỗi bảng chỉ cần một lượt executeBatch cho cả nhóm ngày
+ * (MySQL gộp thành INSERT nhiều dòng nhờ rewriteBatchedStatements=true trong URL datasource).
+ */
+@Repository
+public class DrawBatchWriter {
+
+    private static final String INSERT_RESULT =
+            "INSERT INTO lottery_daily_results (draw_date, region, special_prize_raw) VALUES (?, ?, ?)";
+    private static final String SELECT_RESULT_IDS =
+            "SELECT id, draw_date FROM lottery_daily_results WHERE draw_date BETWEEN ? AND ?";
+    private static final String INSERT_DIGIT =
+            "INSERT INTO loto_digits (value, full_number, prize_name, daily_result_id) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_DIGITS =
+            "DELETE FROM loto_digits WHERE daily_result_id IN (SELECT id FROM lottery_daily_results WHERE draw_date = ?)";
+    private static final String DELETE_STATS = "DELETE FROM loto_daily_stats WHERE draw_date = ?";
+    private static final String DELETE_RESULT = "DELETE FROM lottery_daily_results WHERE draw_date = ?";
+    private static final String INSERT_STAT =
+            "INSERT INTO loto_daily_stats (draw_date, loto_number, occurrence_count, prize_mask, special_prize) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${crawler.write.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    /**
+     * Lưu các ngày (kết quả + số lô + bảng tổng hợp theo số) trong một transaction.
+     * Id của LotteryDailyResult được gán lại sau khi ghi; id của LotoDigit thì không (chưa nơi nào cần).
+     * Ngày đã tồn tại làm hỏng cả lô (unique drawDate) - người gọi tự quyết định ghi lại từng ngày.
+     */
+    @Transactional
+    public void write(List<LotteryDailyResult> results) {
+        if (results.isEmpty()) return;
+        List<LotteryDailyResult> days = new ArrayList<>(results);
+        days.sort(Comparator.comparing(LotteryDailyResult::getDrawDate));
+
+        jdbcTemplate.batchUpdate(INSERT_RESULT, days, jdbcBatchSize, (ps, result) -> {
+            ps.setDate(1, Date.valueOf(result.getDrawDate()));
+            ps.setString(2, result.getRegion());
+            ps.setString(3, result.getSpecialPrizeRaw());
+        });
+
+        // Lấy lại id vừa sinh bằng một truy vấn theo khoảng ngày (không phụ thuộc getGeneratedKeys của từng driver)
+        Map<LocalDate, Long> ids = new HashMap<>();
+        jdbcTemplate.query(SELECT_RESULT_IDS, rs -> {
+            ids.put(rs.getDate(2).toLocalDate(), rs.getLong(1));
+        }, Date.valueOf(days.get(0).getDrawDate()), Date.valueOf(days.get(days.size() - 1).getDrawDate()));
+
+        List<LotoDigit> digits = new ArrayList<>();
+        List<LotoDailyStat> stats = new ArrayList<>();
+        for (LotteryDailyResult result : days) {
+            result.setId(ids.get(result.getDrawDate()));
+            if (result.getLotoDigits() != null) {
+                digits.addAll(result.getLotoDigits());
+                stats.addAll(buildDailyStats(result));
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_DIGIT, digits, jdbcBatchSize, (ps, digit) -> {
+            ps.setInt(1, digit.getValue());
+            ps.setString(2, digit.getFullNumber());
+            ps.setString(3, digit.getPrizeName());
+            ps.setLong(4, digit.getDailyResult().getId());
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_STAT, stats, jdbcBatchSize, (ps, stat) -> {
+            ps.setDate(1, Date.valueOf(stat.getDrawDate()));
+            ps.setInt(2, stat.getLotoNumber());
+            ps.setInt(3, stat.getOccurrenceCount());
+            ps.setInt(4, stat.getPrizeMask());
+            ps.setBoolean(5, stat.getSpecialPrize());
+        });
+    }
+
+    /**
+     * Ghi đè các ngày: xóa dữ liệu cũ của đúng các ngày này (nếu có) rồi ghi lại, cùng một transaction
+     */
+    @Transactional
+    public void replace(List<LotteryDailyResult> results) {
+        if (results.isEmpty()) return;
+        List<Date> dates = new ArrayList<>(results.size());
+        for (LotteryDailyResult result : results) {
+            dates.add(Date.valueOf(result.getDrawDate()));
+        }
+        for (String delete : new String[]{DELETE_DIGITS, DELETE_STATS, DELETE_RESULT}) {
+            jdbcTemplate.batchUpdate(delete, dates, jdbcBatchSize, (ps, date) -> ps.setDate(1, date));
+        }
+        write(results);
+    }
+
+    // Gom các số lô trong ngày thành các dòng tổng hợp (mỗi số một dòng)
+    private static List<LotoDailyStat> buildDailyStats(LotteryDailyResult dailyResult) {
+        Map<Integer, LotoDailyStat> stats = new TreeMap<>();
+        for (LotoDigit digit : dailyResult.getLotoDigits()) {
+            if (digit.getValue() == null) continue;
+            stats.computeIfAbsent(digit.getValue(), n -> new LotoDailyStat(dailyResult.getDrawDate(), n))
+                    .addOccurrence(digit.getPrizeName());
+        }
+        return new ArrayList<>(stats.values());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.repository;
+
+import com.example.domain.LotoDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface LotoDailyStatRepository extends JpaRepository<LotoDailyStat, LotoDailyStat.Key> {
+
+    /**
+     * Dựng bảng tổng hợp cho các ngày đã có trong loto_digits nhưng chưa có trong loto_daily_stats
+     * (dùng cho dữ liệu cũ được cào trước khi có bảng tổng hợp)
+     * @return Số dòng được thêm
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO loto_daily_stats (draw_date, loto_number, occurrence_count, prize_mask, special_prize) " +
+            "SELECT r.draw_date, d.value, COUNT(*), " +
+            "BIT_OR(CASE d.prize_name WHEN 'Giai_DB' THEN 1 WHEN 'Giai_1' THEN 2 WHEN 'Giai_2' THEN 4 " +
+            "WHEN 'Giai_3' THEN 8 WHEN 'Giai_4' THEN 16 WHEN 'Giai_5' THEN 32 WHEN 'Giai_6' THEN 64 " +
+            "WHEN 'Giai_7' THEN 128 ELSE 0 END), " +
+            "MAX(CASE WHEN d.prize_name = 'Giai_DB' THEN 1 ELSE 0 END) " +
+            "FROM loto_digits d JOIN lottery_daily_results r ON r.id = d.daily_result_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM loto_daily_stats s WHERE s.draw_date = r.draw_date) " +
+            "GROUP BY r.draw_date, d.value",
+            nativeQuery = true)
+    int backfillFromLotoDigits();
+}
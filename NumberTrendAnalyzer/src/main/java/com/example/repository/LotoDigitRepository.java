@@ -9,49 +9,67 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
 
+/**
+ * Các truy vấn thống kê đọc từ bảng tổng hợp loto_daily_stats (LotoDailyStat)
+ * thay vì JOIN loto_digits với lottery_daily_results
+ */
 @Repository
 public interface LotoDigitRepository extends JpaRepository<LotoDigit, Long> {
     
     /**
      * Tìm ngày xuất hiện gần nhất của một số lô
      */
-    @Query("SELECT MAX(ld.dailyResult.drawDate) FROM LotoDigit ld WHERE ld.value = :number")
+    @Query("SELECT MAX(s.drawDate) FROM LotoDailyStat s WHERE s.lotoNumber = :number")
     LocalDate findLastAppearanceDate(@Param("number") Integer number);
     
     /**
      * Tìm ngày xuất hiện gần nhất của một số lô trước một ngày cụ thể
      */
-    @Query("SELECT MAX(ld.dailyResult.drawDate) FROM LotoDigit ld " +
-           "WHERE ld.value = :number AND ld.dailyResult.drawDate < :beforeDate")
+    @Query("SELECT MAX(s.drawDate) FROM LotoDailyStat s " +
+           "WHERE s.lotoNumber = :number AND s.drawDate < :beforeDate")
     LocalDate findLastAppearanceDateBefore(@Param("number") Integer number, @Param("beforeDate") LocalDate beforeDate);
     
     /**
      * Đếm số lần xuất hiện của một số lô trong khoảng thời gian
      * Đếm tất cả các lần xuất hiện (kể cả nhiều lần trong cùng một ngày)
      */
-    @Query("SELECT COUNT(*) FROM LotoDigit ld " +
-           "WHERE ld.value = :number AND ld.dailyResult.drawDate >= :fromDate AND ld.dailyResult.drawDate <= :toDate")
+    @Query("SELECT COALESCE(SUM(s.occurrenceCount), 0) FROM LotoDailyStat s " +
+           "WHERE s.lotoNumber = :number AND s.drawDate >= :fromDate AND s.drawDate <= :toDate")
     Long countAppearancesInRange(@Param("number") Integer number, @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
     
+    /**
+     * Đếm số lần xuất hiện của tất cả các số lô trong khoảng thời gian (một lần quét, GROUP BY)
+     * Mỗi phần tử: [value (Integer), count (Long)]
+     */
+    @Query("SELECT s.lotoNumber, SUM(s.occurrenceCount) FROM LotoDailyStat s " +
+           "WHERE s.drawDate >= :fromDate AND s.drawDate <= :toDate " +
+           "GROUP BY s.lotoNumber")
+    List<Object[]> countAppearancesGroupedInRange(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    
     /**
      * Đếm số lần xuất hiện của một số lô từ một ngày trở đi (không giới hạn ngày kết thúc)
      */
-    @Query("SELECT COUNT(DISTINCT ld.dailyResult.drawDate) FROM LotoDigit ld " +
-           "WHERE ld.value = :number AND ld.dailyResult.drawDate >= :fromDate")
+    @Query("SELECT COUNT(s) FROM LotoDailyStat s " +
+           "WHERE s.lotoNumber = :number AND s.drawDate >= :fromDate")
     Long countAppearancesFromDate(@Param("number") Integer number, @Param("fromDate") LocalDate fromDate);
     
     /**
      * Lấy danh sách các số lô đã xuất hiện (distinct)
      */
-    @Query("SELECT DISTINCT ld.value FROM LotoDigit ld ORDER BY ld.value")
+    @Query("SELECT DISTINCT s.lotoNumber FROM LotoDailyStat s ORDER BY s.lotoNumber")
     List<Integer> findAllDistinctNumbers();
     
     /**
      * Tìm các số lô và số ngày chưa về (từ ngày hiện tại)
      */
-    @Query("SELECT ld.value, MAX(ld.dailyResult.drawDate) FROM LotoDigit ld " +
-           "GROUP BY ld.value " +
-           "ORDER BY MAX(ld.dailyResult.drawDate) ASC")
+    @Query("SELECT s.lotoNumber, MAX(s.drawDate) FROM LotoDailyStat s " +
+           "GROUP BY s.lotoNumber " +
+           "ORDER BY MAX(s.drawDate) ASC")
     List<Object[]> findNumbersWithLastAppearance();
+    
+    /**
+     * Lấy tất cả các cặp (ngày quay, số lô) - dùng để dựng chỉ mục lô in-memory
+     */
+    @Query("SELECT DISTINCT ld.dailyResult.drawDate, ld.value FROM LotoDigit ld")
+    List<Object[]> findAllDrawDateValuePairs();
 }
-
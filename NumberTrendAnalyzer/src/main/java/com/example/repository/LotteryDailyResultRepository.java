@@ -1,9 +1,12 @@
 package com.example.repository;
 
 import com.example.domain.LotteryDailyResult;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -26,10 +29,79 @@ public interface LotteryDailyResultRepository extends JpaRepository<LotteryDaily
      */
     @Query("SELECT MAX(r.drawDate) FROM LotteryDailyResult r")
     Optional<LocalDate> findLatestDrawDate();
+
+    /**
+     * Lấy ngày sớm nhất có dữ liệu (điểm bắt đầu khi tìm ngày bị thiếu)
+     */
+    @Query("SELECT MIN(r.drawDate) FROM LotteryDailyResult r")
+    Optional<LocalDate> findEarliestDrawDate();
+
+    /**
+     * Id lớn nhất (đổi cả khi dữ liệu cũ bị xóa rồi ghi lại, dùng làm revision của tập dữ liệu)
+     */
+    @Query("SELECT MAX(r.id) FROM LotteryDailyResult r")
+    Optional<Long> findMaxId();
+    
+    /**
+     * Các ngày đã có dữ liệu trong [fromDate, toDate]
+     */
+    @Query("SELECT r.drawDate FROM LotteryDailyResult r WHERE r.drawDate >= :fromDate AND r.drawDate <= :toDate")
+    List<LocalDate> findDrawDatesBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    
+    /**
+     * Phân trang keyset theo drawDate (dùng index của drawDate, không OFFSET):
+     * các ngày mới nhất, các ngày trước / sau một ngày (limit dòng, gần ngày con trỏ nhất trước)
+     */
+    @Query("SELECT r.drawDate FROM LotteryDailyResult r ORDER BY r.drawDate DESC")
+    List<LocalDate> findLatestDrawDates(Limit limit);
+    
+    @Query("SELECT r.drawDate FROM LotteryDailyResult r WHERE r.drawDate < :cursor ORDER BY r.drawDate DESC")
+    List<LocalDate> findDrawDatesBefore(@Param("cursor") LocalDate cursor, Limit limit);
+    
+    @Query("SELECT r.drawDate FROM LotteryDailyResult r WHERE r.drawDate > :cursor ORDER BY r.drawDate")
+    List<LocalDate> findDrawDatesAfter(@Param("cursor") LocalDate cursor, Limit limit);
+    
+    boolean existsByDrawDateLessThan(LocalDate drawDate);
+    
+    boolean existsByDrawDateGreaterThan(LocalDate drawDate);
+    
+    /**
+     * Kết quả kèm danh sách lô của các ngày trong [fromDate, toDate], mới nhất trước (một truy vấn, không N+1)
+     */
+    @Query("SELECT DISTINCT r FROM LotteryDailyResult r LEFT JOIN FETCH r.lotoDigits " +
+           "WHERE r.drawDate >= :fromDate AND r.drawDate <= :toDate ORDER BY r.drawDate DESC")
+    List<LotteryDailyResult> findWithDigitsBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    
+    /**
+     * Giải ĐB và giải 1 của tất cả các ngày (nạp kho dữ liệu phân tích): một dòng phẳng mỗi ngày, không nạp entity
+     * Sắp xếp theo ngày; nếu một ngày lỡ có 2 dòng cùng giải thì dòng đầu tiên của ngày đó mang id nhỏ nhất
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.repository.AnalysisDigitsRow(" +
+           "r.drawDate, r.specialPrizeRaw, db.fullNumber, db.value, g1.fullNumber, g1.value) " +
+           "FROM LotteryDailyResult r " +
+           "LEFT JOIN r.lotoDigits db ON db.prizeName = 'Giai_DB' " +
+           "LEFT JOIN r.lotoDigits g1 ON g1.prizeName = 'Giai_1' " +
+           "ORDER BY r.drawDate, db.id, g1.id")
+    List<AnalysisDigitsRow> findAllAnalysisDigits();
+    
+    /**
+     * Lấy (ngày, giải ĐB) của tất cả các ngày, sắp xếp theo ngày
+     * Mỗi phần tử: [drawDate (LocalDate), specialPrizeRaw (String)]
+     */
+    @Query("SELECT r.drawDate, r.specialPrizeRaw FROM LotteryDailyResult r ORDER BY r.drawDate")
+    List<Object[]> findAllSpecialPrizes();
+    
+    /**
+     * Lấy (ngày, giải ĐB) của các ngày sau một ngày cụ thể, sắp xếp theo ngày
+     */
+    @Query("SELECT r.drawDate, r.specialPrizeRaw FROM LotteryDailyResult r WHERE r.drawDate > :afterDate ORDER BY r.drawDate")
+    List<Object[]> findSpecialPrizesAfter(@Param("afterDate") LocalDate afterDate);
     
     /**
-     * Lấy tất cả kết quả từ ngày cụ thể trở đi, sắp xếp theo ngày
+     * Đếm số ngày có giải ĐB tính đến một ngày cụ thể (bao gồm ngày đó)
      */
-    @Query("SELECT r FROM LotteryDailyResult r LEFT JOIN FETCH r.lotoDigits WHERE r.drawDate >= :fromDate ORDER BY r.drawDate")
-    List<LotteryDailyResult> findAllFromDate(LocalDate fromDate);
+    @Query("SELECT COUNT(r) FROM LotteryDailyResult r WHERE r.drawDate <= :toDate " +
+           "AND r.specialPrizeRaw IS NOT NULL AND r.specialPrizeRaw <> ''")
+    long countSpecialPrizesUpTo(@Param("toDate") LocalDate toDate);
 }
@@ -0,0 +1,9 @@
+package com.example.repository;
+
+import com.example.domain.PredictionAccuracy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PredictionAccuracyRepository extends JpaRepository<PredictionAccuracy, String> {
+}
@@ -2,11 +2,13 @@ package com.example.repository;
 
 import com.example.domain.PredictionLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,7 +17,51 @@ public interface PredictionLogRepository extends JpaRepository<PredictionLog, Lo
     /**
      * Lấy dự đoán mới nhất cho ngày mai
      */
-    @Query("SELECT p FROM PredictionLog p WHERE p.targetDate >= :today ORDER BY p.predictionDate DESC")
-    Optional<PredictionLog> findLatestPrediction(@Param("today") LocalDate today);
+    default Optional<PredictionLog> findLatestPrediction(LocalDate today) {
+        return findFirstByTargetDateGreaterThanEqualOrderByPredictionDateDescIdDesc(today);
+    }
+    
+    /**
+     * Dự đoán mới nhất có targetDate >= today (LIMIT 1)
+     */
+    Optional<PredictionLog> findFirstByTargetDateGreaterThanEqualOrderByPredictionDateDescIdDesc(LocalDate today);
+    
+    /**
+     * Thuật toán này đã có dự đoán cho ngày đích chưa (kiểm tra nhanh, unique constraint mới là chốt chặn)
+     */
+    boolean existsByTargetDateAndAlgorithmUsed(LocalDate targetDate, String algorithmUsed);
+    
+    /**
+     * Id các dự đoán trùng (algorithmUsed, targetDate) với một dự đoán có id nhỏ hơn:
+     * dữ liệu cũ từ trước khi có unique constraint
+     */
+    @Query("SELECT p.id FROM PredictionLog p WHERE EXISTS (SELECT q.id FROM PredictionLog q " +
+           "WHERE q.algorithmUsed = p.algorithmUsed AND q.targetDate = p.targetDate AND q.id < p.id)")
+    List<Long> findDuplicateIds();
+    
+    /**
+     * Đánh dấu đúng (một câu UPDATE cho tất cả) các dự đoán chưa chấm có giải ĐB rơi vào khoảng
+     */
+    @Modifying
+    @Query("UPDATE PredictionLog p SET p.isCorrect = true, p.evaluationBatch = :batch WHERE p.isCorrect IS NULL " +
+           "AND EXISTS (SELECT s.lotoNumber FROM LotoDailyStat s WHERE s.drawDate = p.targetDate " +
+           "AND s.specialPrize = true AND s.lotoNumber BETWEEN p.rangeStart AND p.rangeEnd)")
+    int markCorrectPredictions(@Param("batch") String batch);
+    
+    /**
+     * Đánh dấu sai các dự đoán còn lại chưa chấm mà ngày đích đã có kết quả
+     * (gọi sau markCorrectPredictions)
+     */
+    @Modifying
+    @Query("UPDATE PredictionLog p SET p.isCorrect = false, p.evaluationBatch = :batch WHERE p.isCorrect IS NULL " +
+           "AND EXISTS (SELECT r.id FROM LotteryDailyResult r WHERE r.drawDate = p.targetDate)")
+    int markRemainingIncorrect(@Param("batch") String batch);
+    
+    /**
+     * Đếm theo thuật toán các dự đoán được chấm trong một lượt
+     * Mỗi phần tử: [algorithmUsed (String), evaluated (Long), correct (Long)]
+     */
+    @Query("SELECT p.algorithmUsed, COUNT(p), SUM(CASE WHEN p.isCorrect = true THEN 1 ELSE 0 END) " +
+           "FROM PredictionLog p WHERE p.evaluationBatch = :batch GROUP BY p.algorithmUsed")
+    List<Object[]> countByAlgorithmInBatch(@Param("batch") String batch);
 }
-
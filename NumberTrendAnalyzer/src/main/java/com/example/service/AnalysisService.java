@@ -1,8 +1,12 @@
 package com.example.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 import com.example.dto.response.AnalysisDataDTO;
+import com.example.dto.response.RangeSweepDTO;
 
 public interface AnalysisService {
     /**
@@ -10,7 +14,7 @@ public interface AnalysisService {
      * @param fromDate Ngày bắt đầu
      * @param page Số trang (bắt đầu từ 0)
      * @param size Số phần tử mỗi trang
-     * @param analysisType Loại phân tích: "50-50" hoặc "even-odd"
+     * @param analysisType Loại phân tích (xem getAnalysisTypes), VD: "50-50", "even-odd", "divide-3"
      * @param dauDBStart Số bắt đầu cho Đầu ĐB (chỉ dùng cho 50-50)
      * @param dauDBEnd Số kết thúc cho Đầu ĐB (chỉ dùng cho 50-50)
      * @param dbStart Số bắt đầu cho ĐB (chỉ dùng cho 50-50)
@@ -19,7 +23,11 @@ public interface AnalysisService {
      * @param dauG1End Số kết thúc cho Đầu G1 (chỉ dùng cho 50-50)
      * @param g1Start Số bắt đầu cho G1 (chỉ dùng cho 50-50)
      * @param g1End Số kết thúc cho G1 (chỉ dùng cho 50-50)
+     * @param minStreak Độ dài chuỗi rỗng tối thiểu được thống kê (null = 3)
+     * @param maxStreak Độ dài chuỗi rỗng tối đa được thống kê (null = không giới hạn)
+     * @param cursor Con trỏ nextCursor/prevCursor của lần gọi trước (null = phân trang theo page)
      * @return DTO chứa dữ liệu phân tích
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
      */
     AnalysisDataDTO getAnalysisData(
             LocalDate fromDate,
@@ -29,7 +37,66 @@ public interface AnalysisService {
             Integer dauDBStart, Integer dauDBEnd,
             Integer dbStart, Integer dbEnd,
             Integer dauG1Start, Integer dauG1End,
-            Integer g1Start, Integer g1End
+            Integer g1Start, Integer g1End,
+            Integer minStreak, Integer maxStreak,
+            String cursor
     );
+    
+    /**
+     * Thống kê chuỗi rỗng từ ngày bắt đầu, kèm vị trí các chuỗi dài nhất
+     * (các tham số giống getAnalysisData)
+     * @param longestLimit Số chuỗi dài nhất trả về cho mỗi dòng thống kê
+     */
+    List<AnalysisDataDTO.EmptyStatsDTO> getStreakStats(
+            LocalDate fromDate,
+            String analysisType,
+            Integer dauDBStart, Integer dauDBEnd,
+            Integer dbStart, Integer dbEnd,
+            Integer dauG1Start, Integer dauG1End,
+            Integer g1Start, Integer g1End,
+            Integer minStreak, Integer maxStreak,
+            int longestLimit
+    );
+    
+    /**
+     * Quét mọi khoảng [start, end] của chế độ 50-50 cho cả 4 cột trên đoạn ngày [fromDate, toDate]
+     * và trả về topN khoảng tốt nhất của mỗi cột
+     * @param metric "longest" (chuỗi dài nhất), "frequency" (số chuỗi) hoặc "hit-rate" (tỉ lệ trúng)
+     * @param minStreak Độ dài chuỗi tối thiểu được đếm cho "frequency" (null = 3)
+     * @param maxStreak Độ dài chuỗi tối đa được đếm cho "frequency" (null = không giới hạn)
+     * @param minWidth Độ rộng khoảng tối thiểu (null = 1)
+     * @param maxWidth Độ rộng khoảng tối đa (null = 100, cả lưới)
+     */
+    RangeSweepDTO sweepRanges(
+            LocalDate fromDate,
+            LocalDate toDate,
+            String metric,
+            int topN,
+            Integer minStreak, Integer maxStreak,
+            Integer minWidth, Integer maxWidth
+    );
+    
+    /**
+     * Ghi lần lượt các dòng phân tích trong [fromDate, toDate] ra out (CSV có dòng tiêu đề, hoặc NDJSON mỗi dòng một object),
+     * không dựng danh sách DTO nên bộ nhớ dùng không phụ thuộc độ dài khoảng ngày
+     * @param format "csv" hoặc "ndjson"
+     * @param toDate Ngày kết thúc (null = tới ngày mới nhất)
+     * @return Số dòng đã ghi
+     */
+    long exportAnalysisRows(
+            LocalDate fromDate,
+            LocalDate toDate,
+            String analysisType,
+            Integer dauDBStart, Integer dauDBEnd,
+            Integer dbStart, Integer dbEnd,
+            Integer dauG1Start, Integer dauG1End,
+            Integer g1Start, Integer g1End,
+            String format,
+            OutputStream out
+    ) throws IOException;
+    
+    /**
+     * Tên các loại phân tích đang được hỗ trợ
+     */
+    List<String> getAnalysisTypes();
 }
-
@@ -0,0 +1,59 @@
+package com.example.service;
+
+import com.example.dto.response.CrawlJobDTO;
+import com.example.dto.response.GapReportDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface CrawlJobService {
+    /**
+     * Tạo job cào [fromDate, toDate] và đưa vào hàng đợi
+     * @return Trạng thái ban đầu của job (QUEUED)
+     * @throws IllegalArgumentException nếu fromDate sau toDate
+     * @throws com.example.crawler.CrawlJobConflictException nếu đã có job chưa xong với khoảng ngày giao nhau
+     */
+    CrawlJobDTO submit(LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Tiến độ của một job (đang chạy hoặc đã xong)
+     */
+    Optional<CrawlJobDTO> getJob(String id);
+
+    /**
+     * Các job gần đây, mới nhất trước
+     */
+    List<CrawlJobDTO> getRecentJobs(int limit);
+
+    /**
+     * Hủy job: job đang chờ bị hủy ngay, job đang chạy dừng tải và lưu nốt các trang đã tải
+     * @return Trạng thái của job sau khi yêu cầu hủy, empty nếu không có job này
+     */
+    Optional<CrawlJobDTO> cancel(String id);
+
+    /**
+     * Báo cáo các ngày còn thiếu trong [fromDate, toDate]
+     * @param fromDate Ngày bắt đầu (null = ngày sớm nhất trong database)
+     * @param toDate Ngày kết thúc (null = hôm nay)
+     * @param limit Số đoạn thiếu tối đa trả về
+     */
+    GapReportDTO getGapReport(LocalDate fromDate, LocalDate toDate, int limit);
+
+    /**
+     * Tạo một job lấp các ngày còn thiếu trong [fromDate, toDate] (job chỉ tải các ngày thiếu)
+     * @param fromDate Ngày bắt đầu (null = ngày sớm nhất trong database)
+     * @param toDate Ngày kết thúc (null = hôm nay)
+     * @return Trạng thái ban đầu của job, empty nếu không thiếu ngày nào
+     * @throws com.example.crawler.CrawlJobConflictException nếu đã có job chưa xong giao với đoạn cần lấp
+     */
+    Optional<CrawlJobDTO> fillGaps(LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Cập nhật dữ liệu đến hôm nay bằng một job: lấp mọi ngày còn thiếu trên toàn bộ lịch sử
+     * (cả các lỗ ở giữa, không chỉ sau ngày cuối cùng), chờ job xong tối đa waitMillis
+     * (quá thời gian thì job vẫn chạy tiếp ở nền)
+     * @return Thông báo kết quả cập nhật, hoặc cách theo dõi job nếu chưa xong
+     */
+    String autoUpdateFromLastDate(long waitMillis);
+}
@@ -1,6 +1,10 @@
 package com.example.service;
 
+import com.example.crawler.CrawlProgress;
+import com.example.domain.LotteryDailyResult;
 import com.example.dto.LotteryDataDTO;
+import com.example.dto.response.LotteryHistoryDTO;
+import com.example.dto.response.ReparseResultDTO;
 
 import java.time.LocalDate;
 
@@ -13,11 +17,13 @@ public interface CrawlerService {
     String crawlAndSaveData(LocalDate date);
 
     /**
-     * Cào dữ liệu xổ số cho một khoảng thời gian
+     * Cào dữ liệu xổ số cho một khoảng thời gian (chỉ tải các ngày còn thiếu theo GapPlanner), chạy trên thread hiện tại.
+     * Khi thread bị ngắt thì dừng tải, lưu nốt các trang đã tải rồi trả về (cờ interrupt được giữ nguyên).
      * @param fromDate Ngày bắt đầu
      * @param toDate Ngày kết thúc
+     * @param progress Nhận tiến độ từng ngày
      */
-    void crawlRange(LocalDate fromDate, LocalDate toDate);
+    void crawlRange(LocalDate fromDate, LocalDate toDate, CrawlProgress progress);
 
     /**
      * Lấy dữ liệu xổ số từ database theo ngày
@@ -27,8 +33,25 @@ public interface CrawlerService {
     LotteryDataDTO getLotteryDataByDate(LocalDate date);
     
     /**
-     * Tự động cập nhật dữ liệu từ ngày cuối cùng trong database đến hôm nay
-     * @return Thông báo kết quả cập nhật
+     * Lịch sử kết quả xổ số, mới nhất trước, phân trang theo con trỏ drawDate
+     * @param cursor nextCursor/prevCursor của lần gọi trước (null = trang mới nhất)
+     * @param size Số ngày mỗi trang
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
      */
-    String autoUpdateFromLastDate();
+    LotteryHistoryDTO getLotteryHistory(String cursor, int size);
+    
+    /**
+     * Chuyển một kết quả đã có trong bộ nhớ (VD: vừa được lưu) sang DTO mà không truy vấn lại
+     * @param result Kết quả xổ số kèm danh sách lô
+     */
+    LotteryDataDTO toLotteryData(LotteryDailyResult result);
+
+    /**
+     * Dựng lại kết quả các ngày trong [fromDate, toDate] từ kho trang đã tải (không truy cập mạng):
+     * bóc tách song song trên reparseExecutor rồi ghi đè dữ liệu cũ theo lô
+     * (lô nào đã commit thì các chỉ mục in-memory được nạp lại, kể cả khi một lô sau bị lỗi)
+     * @param fromDate Ngày bắt đầu (null = ngày đầu tiên trong kho)
+     * @param toDate Ngày kết thúc (null = ngày cuối cùng trong kho)
+     */
+    ReparseResultDTO reparseFromArchive(LocalDate fromDate, LocalDate toDate);
 }
@@ -1,5 +1,6 @@
 package com.example.service;
 
+import com.example.dto.response.CacheStatsDTO;
 import com.example.dto.response.DashboardStatsDTO;
 
 import java.time.YearMonth;
@@ -31,5 +32,9 @@ public interface DashboardService {
      * @param rangeSize Kích thước khoảng dự đoán (10-60, null = mặc định 20)
      */
     DashboardStatsDTO getDashboardStats(YearMonth loGanMonth, YearMonth loHotMonth, String algorithm, Integer rangeSize);
+    
+    /**
+     * Lấy số liệu hit/miss/eviction của cache thống kê dashboard
+     */
+    CacheStatsDTO getCacheStats();
 }
-
@@ -0,0 +1,16 @@
+package com.example.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface DashboardStreamService {
+    /**
+     * Đăng ký nhận cập nhật dashboard qua Server-Sent Events
+     * (nhận ngay bản cập nhật gần nhất nếu có)
+     */
+    SseEmitter subscribe();
+    
+    /**
+     * Số client đang đăng ký
+     */
+    int getSubscriberCount();
+}
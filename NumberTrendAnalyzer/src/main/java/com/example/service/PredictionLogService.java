@@ -0,0 +1,29 @@
+package com.example.service;
+
+import com.example.dto.response.PredictionAccuracyDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PredictionLogService {
+    /**
+     * Lưu một dự đoán (bỏ qua nếu thuật toán này đã có dự đoán cho cùng ngày đích, kể cả khi hai luồng lưu cùng lúc)
+     * @param algorithm Tên thuật toán
+     * @param rangeStart Khoảng dự đoán bắt đầu
+     * @param rangeEnd Khoảng dự đoán kết thúc
+     * @param confidenceScore Độ tin cậy (0-1)
+     * @param targetDate Ngày được dự đoán
+     */
+    void recordPrediction(String algorithm, int rangeStart, int rangeEnd, double confidenceScore, LocalDate targetDate);
+
+    /**
+     * Chấm điểm tất cả các dự đoán chưa chấm mà ngày đích đã có kết quả
+     * @return Số dự đoán vừa được chấm
+     */
+    int evaluatePendingPredictions();
+
+    /**
+     * Độ chính xác theo từng thuật toán
+     */
+    List<PredictionAccuracyDTO> getAccuracySummary();
+}
@@ -1,29 +1,67 @@
 package com.example.service.impl;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.example.domain.LotoDigit;
-import com.example.domain.LotteryDailyResult;
+import com.example.analysis.AnalysisType;
+import com.example.analysis.AnalysisTypeRegistry;
+import com.example.analysis.RangeSweepEngine;
+import com.example.analysis.StreakClass;
+import com.example.analysis.SweepMetric;
 import com.example.dto.response.AnalysisDataDTO;
-import com.example.repository.LotteryDailyResultRepository;
+import com.example.dto.response.RangeSweepDTO;
+import com.example.index.AnalysisDrawStore;
+import com.example.index.StreakRunIndex;
+import com.example.paging.DrawDateCursor;
 import com.example.service.AnalysisService;
 
+/**
+ * Phân tích chạy hoàn toàn trên kho dữ liệu dạng cột (AnalysisDrawStore):
+ * chỉ tạo DTO cho các dòng của trang hiện tại (vị trí trang tìm nhị phân theo drawDate khi dùng con trỏ), thống kê chuỗi đọc từ chỉ mục run-length (StreakRunIndex).
+ * Loại phân tích (tham số analysisType) chọn bảng phân loại 00-99 trong AnalysisTypeRegistry.
+ */
 @Service
 public class AnalysisServiceImpl implements AnalysisService {
     
     @Autowired
-    private LotteryDailyResultRepository resultRepository;
+    private AnalysisDrawStore drawStore;
+    
+    @Autowired
+    private AnalysisTypeRegistry analysisTypeRegistry;
+    
+    @Autowired
+    private StreakRunIndex streakRunIndex;
+    
+    @Autowired
+    private RangeSweepEngine rangeSweepEngine;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
     
+    // Tên các cột theo thứ tự AnalysisDrawStore.DAU_DB, DB, DAU_G1, G1
+    private static final String[] COLUMN_NAMES = {"Đầu ĐB", "ĐB", "Đầu G1", "G1"};
+    
+    // Tiền tố tham số khoảng lọc của từng cột (dauDBStart/dauDBEnd, ...)
+    private static final String[] COLUMN_PARAMS = {"dauDB", "db", "dauG1", "g1"};
+    
+    // Tên cột khi xuất file, trùng tên field của AnalysisRowDTO
+    private static final String[] EXPORT_FIELDS = {
+            "date", "dauDB", "db", "dauG1", "g1", "dauDBMatch", "dbMatch", "dauG1Match", "g1Match"
+    };
+    
+    // Mặc định chỉ đếm các chuỗi rỗng từ độ dài này trở lên
+    private static final int MIN_EMPTY_LENGTH = 3;
+    
     @Override
     public AnalysisDataDTO getAnalysisData(
             LocalDate fromDate,
@@ -33,29 +71,48 @@ public class AnalysisServiceImpl implements AnalysisService {
             Integer dauDBStart, Integer dauDBEnd,
             Integer dbStart, Integer dbEnd,
             Integer dauG1Start, Integer dauG1End,
-            Integer g1Start, Integer g1End
+            Integer g1Start, Integer g1End,
+            Integer minStreak, Integer maxStreak,
+            String cursor
     ) {
-        // Lấy tất cả kết quả từ fromDate trở đi, sắp xếp theo ngày
-        List<LotteryDailyResult> allResults = resultRepository.findAllFromDate(fromDate);
+        AnalysisDrawStore.Snapshot snapshot = drawStore.snapshot();
         
-        // Tính toán phân trang
-        long totalElements = allResults.size();
-        int totalPages = (int) Math.ceil((double) totalElements / size);
-        int startIndex = page * size;
-        int endIndex = Math.min(startIndex + size, allResults.size());
+        // Bảng phân loại 00-99 của từng cột theo loại phân tích (và khoảng lọc của cột nếu có)
+        AnalysisType type = analysisTypeRegistry.get(analysisType);
+        Integer[] rangeStarts = {dauDBStart, dbStart, dauG1Start, g1Start};
+        Integer[] rangeEnds = {dauDBEnd, dbEnd, dauG1End, g1End};
+        byte[][] classTables = classTables(type, rangeStarts, rangeEnds);
         
-        // Lấy dữ liệu cho trang hiện tại
-        List<LotteryDailyResult> results = new ArrayList<>();
-        if (startIndex < allResults.size()) {
-            results = allResults.subList(startIndex, endIndex);
+        // Các ngày từ fromDate trở đi là đoạn [from, length) của kho
+        int from = snapshot.lowerBound(fromDate);
+        int end = snapshot.getLength();
+        
+        // Vị trí trang: theo con trỏ drawDate nếu có, ngược lại theo số trang
+        long totalElements = end - from;
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        int startIndex;
+        int endIndex;
+        if (cursor != null) {
+            DrawDateCursor position = DrawDateCursor.decode(cursor);
+            if (position.isAfter()) {
+                // Các ngày > drawDate của con trỏ
+                startIndex = Math.max(from, snapshot.lowerBound(position.getDrawDate().plusDays(1)));
+                endIndex = Math.min(end, startIndex + size);
+            } else {
+                // size ngày ngay trước drawDate của con trỏ
+                endIndex = Math.max(from, Math.min(end, snapshot.lowerBound(position.getDrawDate())));
+                startIndex = Math.max(from, endIndex - size);
+            }
+            page = (startIndex - from) / size;
+        } else {
+            startIndex = (int) Math.min(from + (long) page * size, end);
+            endIndex = Math.min(startIndex + size, end);
         }
         
+        // Chỉ tạo DTO cho các dòng của trang hiện tại
         List<AnalysisDataDTO.AnalysisRowDTO> rows = new ArrayList<>();
-        
-        for (LotteryDailyResult result : results) {
-            AnalysisDataDTO.AnalysisRowDTO row = createAnalysisRow(result, analysisType, dauDBStart, dauDBEnd, 
-                    dbStart, dbEnd, dauG1Start, dauG1End, g1Start, g1End);
-            rows.add(row);
+        for (int i = startIndex; i < endIndex; i++) {
+            rows.add(createAnalysisRow(snapshot, i, classTables));
         }
         
         AnalysisDataDTO dto = new AnalysisDataDTO();
@@ -63,386 +120,296 @@ public class AnalysisServiceImpl implements AnalysisService {
         dto.setTotalPages(totalPages);
         dto.setCurrentPage(page);
         dto.setTotalElements(totalElements);
-        
-        // Tính toán thống kê rỗng (dùng toàn bộ dữ liệu, không chỉ trang hiện tại)
-        List<AnalysisDataDTO.AnalysisRowDTO> allRows = new ArrayList<>();
-        for (LotteryDailyResult result : allResults) {
-            AnalysisDataDTO.AnalysisRowDTO row = createAnalysisRow(result, analysisType, dauDBStart, dauDBEnd, 
-                    dbStart, dbEnd, dauG1Start, dauG1End, g1Start, g1End);
-            allRows.add(row);
+        if (endIndex > startIndex && endIndex < end) {
+            dto.setNextCursor(DrawDateCursor.after(snapshot.dateAt(endIndex - 1)).encode());
+        }
+        if (endIndex > startIndex && startIndex > from) {
+            dto.setPrevCursor(DrawDateCursor.before(snapshot.dateAt(startIndex)).encode());
         }
         
-        List<AnalysisDataDTO.EmptyStatsDTO> emptyStats = calculateEmptyStats(
-                allRows, analysisType, dauDBStart, dauDBEnd, dbStart, dbEnd, dauG1Start, dauG1End, g1Start, g1End
-        );
-        dto.setEmptyStats(emptyStats);
+        // Tính toán thống kê rỗng (dùng toàn bộ dữ liệu, không chỉ trang hiện tại)
+        dto.setEmptyStats(calculateEmptyStats(snapshot, from, type, rangeStarts, rangeEnds, classTables,
+                minStreak, maxStreak, 0));
         
         return dto;
     }
     
-    /**
-     * Tính toán thống kê rỗng (chuỗi match liên tiếp)
-     */
-    private List<AnalysisDataDTO.EmptyStatsDTO> calculateEmptyStats(
-            List<AnalysisDataDTO.AnalysisRowDTO> rows,
+    @Override
+    public List<AnalysisDataDTO.EmptyStatsDTO> getStreakStats(
+            LocalDate fromDate,
             String analysisType,
             Integer dauDBStart, Integer dauDBEnd,
             Integer dbStart, Integer dbEnd,
             Integer dauG1Start, Integer dauG1End,
-            Integer g1Start, Integer g1End
+            Integer g1Start, Integer g1End,
+            Integer minStreak, Integer maxStreak,
+            int longestLimit
+    ) {
+        AnalysisDrawStore.Snapshot snapshot = drawStore.snapshot();
+        AnalysisType type = analysisTypeRegistry.get(analysisType);
+        Integer[] rangeStarts = {dauDBStart, dbStart, dauG1Start, g1Start};
+        Integer[] rangeEnds = {dauDBEnd, dbEnd, dauG1End, g1End};
+        return calculateEmptyStats(snapshot, snapshot.lowerBound(fromDate), type, rangeStarts, rangeEnds,
+                classTables(type, rangeStarts, rangeEnds), minStreak, maxStreak, longestLimit);
+    }
+    
+    @Override
+    public RangeSweepDTO sweepRanges(
+            LocalDate fromDate,
+            LocalDate toDate,
+            String metric,
+            int topN,
+            Integer minStreak, Integer maxStreak,
+            Integer minWidth, Integer maxWidth
     ) {
-        List<AnalysisDataDTO.EmptyStatsDTO> statsList = new ArrayList<>();
-        boolean isEvenOdd = "even-odd".equals(analysisType);
-        boolean isPrime = "prime".equals(analysisType);
-        boolean isDivide3 = "divide-3".equals(analysisType);
+        long startTime = System.nanoTime();
+        AnalysisDrawStore.Snapshot snapshot = drawStore.snapshot();
+        SweepMetric sweepMetric = SweepMetric.fromName(metric);
+        int from = snapshot.lowerBound(fromDate);
+        int end = toDate == null ? snapshot.getLength() : Math.max(from, snapshot.lowerBound(toDate.plusDays(1)));
+        int minLength = minStreak != null ? Math.max(1, minStreak) : MIN_EMPTY_LENGTH;
+        int maxLength = maxStreak != null ? maxStreak : Integer.MAX_VALUE;
+        int lowWidth = minWidth != null ? Math.max(1, Math.min(AnalysisType.VALUE_COUNT, minWidth)) : 1;
+        // Mặc định quét đủ lưới (5050 khoảng mỗi cột), người gọi thu hẹp bằng minWidth/maxWidth
+        int highWidth = maxWidth != null
+                ? Math.max(lowWidth, Math.min(AnalysisType.VALUE_COUNT, maxWidth))
+                : AnalysisType.VALUE_COUNT;
         
-        if (isEvenOdd) {
-            // Với even-odd, tính toán cho tất cả các cột
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                    row -> row.getDauDBMatch(), null, null, "Chẵn/Lẻ"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                    row -> row.getDbMatch(), null, null, "Chẵn/Lẻ"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                    row -> row.getDauG1Match(), null, null, "Chẵn/Lẻ"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                    row -> row.getG1Match(), null, null, "Chẵn/Lẻ"));
-        } else if (isPrime) {
-            // Với prime, tính toán cho tất cả các cột
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                    row -> row.getDauDBMatch(), null, null, "Số nguyên tố"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                    row -> row.getDbMatch(), null, null, "Số nguyên tố"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                    row -> row.getDauG1Match(), null, null, "Số nguyên tố"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                    row -> row.getG1Match(), null, null, "Số nguyên tố"));
-        } else if (isDivide3) {
-            // Với divide-3, tính toán riêng cho từng loại dư (dư 0, dư 1, dư 2)
-            // Đầu ĐB
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                    row -> row.getDauDBMatch() == 0 ? 1 : 0, null, null, "Dư 0"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                    row -> row.getDauDBMatch() == 1 ? 1 : 0, null, null, "Dư 1"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                    row -> row.getDauDBMatch() == 2 ? 1 : 0, null, null, "Dư 2"));
-            // ĐB
-            statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                    row -> row.getDbMatch() == 0 ? 1 : 0, null, null, "Dư 0"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                    row -> row.getDbMatch() == 1 ? 1 : 0, null, null, "Dư 1"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                    row -> row.getDbMatch() == 2 ? 1 : 0, null, null, "Dư 2"));
-            // Đầu G1
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                    row -> row.getDauG1Match() == 0 ? 1 : 0, null, null, "Dư 0"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                    row -> row.getDauG1Match() == 1 ? 1 : 0, null, null, "Dư 1"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                    row -> row.getDauG1Match() == 2 ? 1 : 0, null, null, "Dư 2"));
-            // G1
-            statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                    row -> row.getG1Match() == 0 ? 1 : 0, null, null, "Dư 0"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                    row -> row.getG1Match() == 1 ? 1 : 0, null, null, "Dư 1"));
-            statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                    row -> row.getG1Match() == 2 ? 1 : 0, null, null, "Dư 2"));
-        } else {
-            // Với 50-50, chỉ tính toán nếu có filter
-            if (dauDBStart != null && dauDBEnd != null) {
-                statsList.add(calculateEmptyStatsForColumn(rows, "Đầu ĐB", 
-                        row -> row.getDauDBMatch(), dauDBStart, dauDBEnd, null));
-            }
-            
-            if (dbStart != null && dbEnd != null) {
-                statsList.add(calculateEmptyStatsForColumn(rows, "ĐB", 
-                        row -> row.getDbMatch(), dbStart, dbEnd, null));
-            }
-            
-            if (dauG1Start != null && dauG1End != null) {
-                statsList.add(calculateEmptyStatsForColumn(rows, "Đầu G1", 
-                        row -> row.getDauG1Match(), dauG1Start, dauG1End, null));
-            }
-            
-            if (g1Start != null && g1End != null) {
-                statsList.add(calculateEmptyStatsForColumn(rows, "G1", 
-                        row -> row.getG1Match(), g1Start, g1End, null));
+        List<RangeSweepEngine.IntervalScore>[] best = rangeSweepEngine.sweep(
+                snapshot, from, end, sweepMetric, topN, minLength, maxLength, lowWidth, highWidth);
+        
+        int days = end - from;
+        List<RangeSweepDTO.ColumnSweepDTO> columns = new ArrayList<>();
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            List<RangeSweepDTO.IntervalScoreDTO> top = new ArrayList<>();
+            for (RangeSweepEngine.IntervalScore score : best[column]) {
+                top.add(new RangeSweepDTO.IntervalScoreDTO(
+                        score.getStart(),
+                        score.getEnd(),
+                        score.getHits(),
+                        days > 0 ? Math.round(score.getHits() * 10000.0 / days) / 100.0 : 0.0,
+                        score.getLongestStreak(),
+                        score.getStreakCount()));
             }
+            columns.add(new RangeSweepDTO.ColumnSweepDTO(COLUMN_NAMES[column], COLUMN_PARAMS[column], top));
         }
         
-        return statsList;
+        // Số khoảng có độ rộng trong [lowWidth, highWidth] của mỗi cột
+        int intervals = 0;
+        for (int width = lowWidth; width <= highWidth; width++) {
+            intervals += AnalysisType.VALUE_COUNT - width + 1;
+        }
+        return new RangeSweepDTO(
+                sweepMetric.getParamName(),
+                days > 0 ? snapshot.dateAt(from).format(DATE_FORMATTER) : null,
+                days > 0 ? snapshot.dateAt(end - 1).format(DATE_FORMATTER) : null,
+                days,
+                intervals,
+                (System.nanoTime() - startTime) / 1_000_000,
+                columns);
     }
     
-    /**
-     * Tạo AnalysisRowDTO từ LotteryDailyResult
-     */
-    private AnalysisDataDTO.AnalysisRowDTO createAnalysisRow(
-            LotteryDailyResult result,
+    @Override
+    public long exportAnalysisRows(
+            LocalDate fromDate,
+            LocalDate toDate,
             String analysisType,
             Integer dauDBStart, Integer dauDBEnd,
             Integer dbStart, Integer dbEnd,
             Integer dauG1Start, Integer dauG1End,
-            Integer g1Start, Integer g1End
-    ) {
-        boolean isEvenOdd = "even-odd".equals(analysisType);
-        boolean isPrime = "prime".equals(analysisType);
-        boolean isDivide3 = "divide-3".equals(analysisType);
-        AnalysisDataDTO.AnalysisRowDTO row = new AnalysisDataDTO.AnalysisRowDTO();
-        row.setDate(result.getDrawDate().format(DATE_FORMATTER));
-        
-        // Lấy các số từ kết quả
-        List<LotoDigit> digits = result.getLotoDigits();
-        if (digits == null || digits.isEmpty()) {
-            // Nếu không có dữ liệu, set null và match = 0
-            row.setDauDB(null);
-            row.setDb(null);
-            row.setDauG1(null);
-            row.setG1(null);
-            row.setDauDBMatch(0);
-            row.setDbMatch(0);
-            row.setDauG1Match(0);
-            row.setG1Match(0);
-            return row;
-        }
+            Integer g1Start, Integer g1End,
+            String format,
+            OutputStream out
+    ) throws IOException {
+        AnalysisDrawStore.Snapshot snapshot = drawStore.snapshot();
+        AnalysisType type = analysisTypeRegistry.get(analysisType);
+        Integer[] rangeStarts = {dauDBStart, dbStart, dauG1Start, g1Start};
+        Integer[] rangeEnds = {dauDBEnd, dbEnd, dauG1End, g1End};
+        byte[][] classTables = classTables(type, rangeStarts, rangeEnds);
         
-        // Tìm giải ĐB (Giai_DB)
-        LotoDigit dbDigit = digits.stream()
-                .filter(d -> "Giai_DB".equals(d.getPrizeName()))
-                .findFirst()
-                .orElse(null);
+        int from = snapshot.lowerBound(fromDate);
+        int end = toDate == null || toDate.equals(LocalDate.MAX)
+                ? snapshot.getLength()
+                : snapshot.lowerBound(toDate.plusDays(1));
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
         
-        if (dbDigit != null) {
-            // Đầu ĐB: lấy 2 số đầu từ fullNumber hoặc specialPrizeRaw
-            String dbFullNumber = dbDigit.getFullNumber();
-            if (dbFullNumber == null || dbFullNumber.isEmpty()) {
-                dbFullNumber = result.getSpecialPrizeRaw();
+        // Ghi thẳng từ các cột của ảnh chụp qua một buffer cố định, không giữ lại dòng nào
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        if (!ndjson) {
+            writer.write(String.join(",", EXPORT_FIELDS));
+            writer.write('\n');
+        }
+        int[] values = new int[AnalysisDrawStore.COLUMN_COUNT];
+        long written = 0;
+        for (int i = from; i < end; i++) {
+            for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+                values[column] = snapshot.column(column)[i];
             }
-            if (dbFullNumber != null && dbFullNumber.length() >= 2) {
-                try {
-                    String dauDBStr = dbFullNumber.substring(0, 2);
-                    int dauDB = Integer.parseInt(dauDBStr);
-                    row.setDauDB(dauDB);
-                    // Kiểm tra match
-                    if (isEvenOdd) {
-                        // Chẵn = 0, Lẻ = 1
-                        row.setDauDBMatch((dauDB % 2 == 0) ? 0 : 1);
-                    } else if (isPrime) {
-                        // Số nguyên tố = 1, Không phải số nguyên tố = 0
-                        row.setDauDBMatch(isPrimeNumber(dauDB) ? 1 : 0);
-                    } else if (isDivide3) {
-                        // Chia 3: dư 0 = 0, dư 1 = 1, dư 2 = 2
-                        int remainder = dauDB % 3;
-                        row.setDauDBMatch(remainder < 0 ? remainder + 3 : remainder);
-                    } else {
-                        // Logic 50-50: kiểm tra trong khoảng
-                        if (dauDBStart != null && dauDBEnd != null) {
-                            row.setDauDBMatch((dauDB >= dauDBStart && dauDB <= dauDBEnd) ? 1 : 0);
-                        } else {
-                            row.setDauDBMatch(0);
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    row.setDauDB(null);
-                    row.setDauDBMatch(0);
-                }
+            String date = snapshot.dateAt(i).format(DATE_FORMATTER);
+            if (ndjson) {
+                writeJsonRow(writer, date, values, classTables);
             } else {
-                row.setDauDB(null);
-                row.setDauDBMatch(0);
+                writeCsvRow(writer, date, values, classTables);
             }
-            
-            // ĐB: lấy 2 số cuối (value field)
-            row.setDb(dbDigit.getValue());
-            int dbValue = dbDigit.getValue();
-            if (isEvenOdd) {
-                // Chẵn = 0, Lẻ = 1
-                row.setDbMatch((dbValue % 2 == 0) ? 0 : 1);
-            } else if (isPrime) {
-                // Số nguyên tố = 1, Không phải số nguyên tố = 0
-                row.setDbMatch(isPrimeNumber(dbValue) ? 1 : 0);
-            } else if (isDivide3) {
-                // Chia 3: dư 0 = 0, dư 1 = 1, dư 2 = 2
-                int remainder = dbValue % 3;
-                row.setDbMatch(remainder < 0 ? remainder + 3 : remainder);
-            } else {
-                // Logic 50-50: kiểm tra trong khoảng
-                if (dbStart != null && dbEnd != null) {
-                    row.setDbMatch((dbValue >= dbStart && dbValue <= dbEnd) ? 1 : 0);
-                } else {
-                    row.setDbMatch(0);
-                }
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+    
+    private static void writeCsvRow(Writer writer, String date, int[] values, byte[][] classTables) throws IOException {
+        writer.write(date);
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            writer.write(',');
+            if (values[column] != AnalysisDrawStore.NONE) {
+                writer.write(Integer.toString(values[column]));
             }
-        } else {
-            row.setDauDB(null);
-            row.setDb(null);
-            row.setDauDBMatch(0);
-            row.setDbMatch(0);
+        }
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            writer.write(',');
+            writer.write(Integer.toString(matchOf(values[column], classTables[column])));
+        }
+        writer.write('\n');
+    }
+    
+    private static void writeJsonRow(Writer writer, String date, int[] values, byte[][] classTables) throws IOException {
+        writer.write("{\"date\":\"");
+        writer.write(date);
+        writer.write('"');
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            writer.write(",\"");
+            writer.write(EXPORT_FIELDS[1 + column]);
+            writer.write("\":");
+            writer.write(values[column] == AnalysisDrawStore.NONE ? "null" : Integer.toString(values[column]));
+        }
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            writer.write(",\"");
+            writer.write(EXPORT_FIELDS[1 + AnalysisDrawStore.COLUMN_COUNT + column]);
+            writer.write("\":");
+            writer.write(Integer.toString(matchOf(values[column], classTables[column])));
+        }
+        writer.write("}\n");
+    }
+    
+    @Override
+    public List<String> getAnalysisTypes() {
+        return analysisTypeRegistry.getNames();
+    }
+    
+    private static byte[][] classTables(AnalysisType type, Integer[] rangeStarts, Integer[] rangeEnds) {
+        byte[][] classTables = new byte[AnalysisDrawStore.COLUMN_COUNT][];
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            classTables[column] = type.classTable(rangeStarts[column], rangeEnds[column]);
+        }
+        return classTables;
+    }
+    
+    /**
+     * Thống kê rỗng từ vị trí from, đọc từ chỉ mục run-length (dựng một lượt duyệt khi chưa có)
+     * @param minStreak Độ dài chuỗi tối thiểu được đếm (null = 3)
+     * @param maxStreak Độ dài chuỗi tối đa được đếm (null = không giới hạn)
+     * @param longestLimit Số chuỗi dài nhất cần trả về kèm vị trí (0 = không trả về)
+     */
+    private List<AnalysisDataDTO.EmptyStatsDTO> calculateEmptyStats(
+            AnalysisDrawStore.Snapshot snapshot,
+            int from,
+            AnalysisType type,
+            Integer[] rangeStarts,
+            Integer[] rangeEnds,
+            byte[][] classTables,
+            Integer minStreak,
+            Integer maxStreak,
+            int longestLimit
+    ) {
+        List<Integer> columns = new ArrayList<>();
+        List<StreakClass> streakClasses = new ArrayList<>();
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            for (StreakClass streakClass : type.streakClasses(rangeStarts[column], rangeEnds[column])) {
+                columns.add(column);
+                streakClasses.add(streakClass);
+            }
+        }
+        List<AnalysisDataDTO.EmptyStatsDTO> statsList = new ArrayList<>(columns.size());
+        if (columns.isEmpty()) {
+            return statsList;
         }
         
-        // Tìm giải 1 (Giai_1)
-        LotoDigit g1Digit = digits.stream()
-                .filter(d -> "Giai_1".equals(d.getPrizeName()))
-                .findFirst()
-                .orElse(null);
+        // Chỉ các cột có track mới cần bảng phân loại (cũng là một phần của key chỉ mục)
+        int[] trackColumns = new int[columns.size()];
+        int[] trackTargets = new int[columns.size()];
+        byte[][] usedTables = new byte[AnalysisDrawStore.COLUMN_COUNT][];
+        for (int t = 0; t < trackColumns.length; t++) {
+            trackColumns[t] = columns.get(t);
+            trackTargets[t] = streakClasses.get(t).getTarget();
+            usedTables[trackColumns[t]] = classTables[trackColumns[t]];
+        }
+        StreakRunIndex.Runs[] runs = streakRunIndex.getRuns(snapshot, usedTables, trackColumns, trackTargets);
         
-        if (g1Digit != null) {
-            // Đầu G1: lấy 2 số đầu từ fullNumber
-            String g1FullNumber = g1Digit.getFullNumber();
-            if (g1FullNumber != null && g1FullNumber.length() >= 2) {
-                try {
-                    String dauG1Str = g1FullNumber.substring(0, 2);
-                    int dauG1 = Integer.parseInt(dauG1Str);
-                    row.setDauG1(dauG1);
-                    // Kiểm tra match
-                    if (isEvenOdd) {
-                        // Chẵn = 0, Lẻ = 1
-                        row.setDauG1Match((dauG1 % 2 == 0) ? 0 : 1);
-                    } else if (isPrime) {
-                        // Số nguyên tố = 1, Không phải số nguyên tố = 0
-                        row.setDauG1Match(isPrimeNumber(dauG1) ? 1 : 0);
-                    } else if (isDivide3) {
-                        // Chia 3: dư 0 = 0, dư 1 = 1, dư 2 = 2
-                        int remainder = dauG1 % 3;
-                        row.setDauG1Match(remainder < 0 ? remainder + 3 : remainder);
-                    } else {
-                        // Logic 50-50: kiểm tra trong khoảng
-                        if (dauG1Start != null && dauG1End != null) {
-                            row.setDauG1Match((dauG1 >= dauG1Start && dauG1 <= dauG1End) ? 1 : 0);
-                        } else {
-                            row.setDauG1Match(0);
-                        }
-                    }
-                } catch (NumberFormatException e) {
-                    row.setDauG1(null);
-                    row.setDauG1Match(0);
+        int minLength = minStreak != null ? Math.max(1, minStreak) : MIN_EMPTY_LENGTH;
+        int maxLength = maxStreak != null ? maxStreak : Integer.MAX_VALUE;
+        for (int t = 0; t < trackColumns.length; t++) {
+            // Theo độ dài rỗng tăng dần
+            int[] histogram = runs[t].histogram(from, minLength, maxLength);
+            List<AnalysisDataDTO.EmptyStatsDTO.EmptyCountDTO> counts = new ArrayList<>();
+            for (int length = minLength; length < histogram.length; length++) {
+                if (histogram[length] > 0) {
+                    counts.add(new AnalysisDataDTO.EmptyStatsDTO.EmptyCountDTO(length, histogram[length]));
                 }
-            } else {
-                row.setDauG1(null);
-                row.setDauG1Match(0);
             }
             
-            // G1: lấy 2 số cuối (value field)
-            row.setG1(g1Digit.getValue());
-            int g1Value = g1Digit.getValue();
-            if (isEvenOdd) {
-                // Chẵn = 0, Lẻ = 1
-                row.setG1Match((g1Value % 2 == 0) ? 0 : 1);
-            } else if (isPrime) {
-                // Số nguyên tố = 1, Không phải số nguyên tố = 0
-                row.setG1Match(isPrimeNumber(g1Value) ? 1 : 0);
-            } else if (isDivide3) {
-                // Chia 3: dư 0 = 0, dư 1 = 1, dư 2 = 2
-                int remainder = g1Value % 3;
-                row.setG1Match(remainder < 0 ? remainder + 3 : remainder);
-            } else {
-                // Logic 50-50: kiểm tra trong khoảng
-                if (g1Start != null && g1End != null) {
-                    row.setG1Match((g1Value >= g1Start && g1Value <= g1End) ? 1 : 0);
-                } else {
-                    row.setG1Match(0);
+            AnalysisDataDTO.EmptyStatsDTO stats = new AnalysisDataDTO.EmptyStatsDTO();
+            stats.setColumnName(COLUMN_NAMES[trackColumns[t]]);
+            stats.setRange(streakClasses.get(t).getLabel());
+            stats.setCounts(counts);
+            if (longestLimit > 0) {
+                List<AnalysisDataDTO.EmptyStatsDTO.StreakRunDTO> longest = new ArrayList<>();
+                for (StreakRunIndex.Run run : runs[t].longest(from, longestLimit)) {
+                    longest.add(new AnalysisDataDTO.EmptyStatsDTO.StreakRunDTO(
+                            snapshot.dateAt(run.getStart()).format(DATE_FORMATTER),
+                            snapshot.dateAt(run.getStart() + run.getLength() - 1).format(DATE_FORMATTER),
+                            run.getLength()));
                 }
+                stats.setLongestStreaks(longest);
             }
-        } else {
-            row.setDauG1(null);
-            row.setG1(null);
-            row.setDauG1Match(0);
-            row.setG1Match(0);
+            statsList.add(stats);
         }
-        
-        return row;
+        return statsList;
     }
     
     /**
-     * Tính toán thống kê rỗng cho một cột cụ thể
+     * Tạo AnalysisRowDTO cho ngày thứ index của kho
      */
-    private AnalysisDataDTO.EmptyStatsDTO calculateEmptyStatsForColumn(
-            List<AnalysisDataDTO.AnalysisRowDTO> rows,
-            String columnName,
-            java.util.function.Function<AnalysisDataDTO.AnalysisRowDTO, Integer> matchGetter,
-            Integer rangeStart,
-            Integer rangeEnd,
-            String defaultRangeLabel
+    private AnalysisDataDTO.AnalysisRowDTO createAnalysisRow(
+            AnalysisDrawStore.Snapshot snapshot,
+            int index,
+            byte[][] classTables
     ) {
-        // Xác định range string
-        String rangeStr;
-        if (rangeStart != null && rangeEnd != null) {
-            rangeStr = rangeStart + "-" + rangeEnd;
-        } else if (defaultRangeLabel != null) {
-            rangeStr = defaultRangeLabel;
-        } else {
-            rangeStr = "Tất cả";
-        }
-        // Đếm số lần xuất hiện của mỗi độ dài rỗng
-        Map<Integer, Integer> emptyCountMap = new HashMap<>();
-        
-        int currentEmptyLength = 0;
-        
-        for (AnalysisDataDTO.AnalysisRowDTO row : rows) {
-            Integer match = matchGetter.apply(row);
-            if (match != null && match == 1) {
-                // Nếu match = 1, tăng độ dài rỗng hiện tại
-                currentEmptyLength++;
-            } else {
-                // Nếu match = 0 hoặc null, kết thúc chuỗi rỗng
-                if (currentEmptyLength >= 3) {
-                    // Chỉ đếm các chuỗi rỗng từ 3 trở lên
-                    emptyCountMap.put(currentEmptyLength, 
-                            emptyCountMap.getOrDefault(currentEmptyLength, 0) + 1);
-                }
-                currentEmptyLength = 0;
-            }
-        }
+        int dauDB = snapshot.column(AnalysisDrawStore.DAU_DB)[index];
+        int db = snapshot.column(AnalysisDrawStore.DB)[index];
+        int dauG1 = snapshot.column(AnalysisDrawStore.DAU_G1)[index];
+        int g1 = snapshot.column(AnalysisDrawStore.G1)[index];
         
-        // Xử lý trường hợp chuỗi rỗng kéo dài đến cuối danh sách
-        if (currentEmptyLength >= 3) {
-            emptyCountMap.put(currentEmptyLength, 
-                    emptyCountMap.getOrDefault(currentEmptyLength, 0) + 1);
-        }
-        
-        // Chuyển đổi Map thành List và sắp xếp theo độ dài rỗng
-        List<AnalysisDataDTO.EmptyStatsDTO.EmptyCountDTO> counts = new ArrayList<>();
-        for (Map.Entry<Integer, Integer> entry : emptyCountMap.entrySet()) {
-            AnalysisDataDTO.EmptyStatsDTO.EmptyCountDTO countDTO = 
-                    new AnalysisDataDTO.EmptyStatsDTO.EmptyCountDTO();
-            countDTO.setEmptyLength(entry.getKey());
-            countDTO.setCount(entry.getValue());
-            counts.add(countDTO);
-        }
-        
-        // Sắp xếp theo độ dài rỗng tăng dần
-        counts.sort((a, b) -> Integer.compare(a.getEmptyLength(), b.getEmptyLength()));
-        
-        AnalysisDataDTO.EmptyStatsDTO stats = new AnalysisDataDTO.EmptyStatsDTO();
-        stats.setColumnName(columnName);
-        stats.setRange(rangeStr);
-        stats.setCounts(counts);
-        
-        return stats;
+        AnalysisDataDTO.AnalysisRowDTO row = new AnalysisDataDTO.AnalysisRowDTO();
+        row.setDate(snapshot.dateAt(index).format(DATE_FORMATTER));
+        row.setDauDB(toNullable(dauDB));
+        row.setDb(toNullable(db));
+        row.setDauG1(toNullable(dauG1));
+        row.setG1(toNullable(g1));
+        row.setDauDBMatch(matchOf(dauDB, classTables[AnalysisDrawStore.DAU_DB]));
+        row.setDbMatch(matchOf(db, classTables[AnalysisDrawStore.DB]));
+        row.setDauG1Match(matchOf(dauG1, classTables[AnalysisDrawStore.DAU_G1]));
+        row.setG1Match(matchOf(g1, classTables[AnalysisDrawStore.G1]));
+        return row;
     }
     
     /**
-     * Kiểm tra xem một số có phải là số nguyên tố không
-     * @param n Số cần kiểm tra (0-99)
-     * @return true nếu là số nguyên tố, false nếu không
+     * Giá trị match của một ô (ô không có dữ liệu luôn là 0)
      */
-    private boolean isPrimeNumber(int n) {
-        // Số nhỏ hơn 2 không phải số nguyên tố
-        if (n < 2) {
-            return false;
-        }
-        // 2 là số nguyên tố
-        if (n == 2) {
-            return true;
-        }
-        // Số chẵn lớn hơn 2 không phải số nguyên tố
-        if (n % 2 == 0) {
-            return false;
-        }
-        // Kiểm tra các số lẻ từ 3 đến sqrt(n)
-        for (int i = 3; i * i <= n; i += 2) {
-            if (n % i == 0) {
-                return false;
-            }
-        }
-        return true;
+    private static int matchOf(int value, byte[] classTable) {
+        return value == AnalysisDrawStore.NONE ? 0 : classTable[value];
+    }
+    
+    private static Integer toNullable(int value) {
+        return value == AnalysisDrawStore.NONE ? null : value;
     }
 }
-
@@ -0,0 +1,437 @@
+package com.example.service.impl;
+
+import com.example.crawler.CrawlJobConflictException;
+import com.example.crawler.CrawlProgress;
+import com.example.crawler.GapPlanner;
+import com.example.domain.CrawlJob;
+import com.example.domain.CrawlJobStatus;
+import com.example.dto.response.CrawlJobDTO;
+import com.example.dto.response.GapReportDTO;
+import com.example.repository.CrawlJobRepository;
+import com.example.service.CrawlJobService;
+import com.example.service.CrawlerService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Quản lý các job cào dữ liệu: mỗi job chạy crawlRange trên crawlJobExecutor, tiến độ giữ trong bộ nhớ
+ * và được ghi checkpoint vào bảng crawl_jobs định kỳ để chạy tiếp sau khi khởi động lại
+ */
+@Slf4j
+@Service
+public class CrawlJobServiceImpl implements CrawlJobService {
+
+    private static final String STATUS_PATH = "/api/crawl/jobs/";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    @Autowired
+    private CrawlJobRepository jobRepo;
+
+    @Autowired
+    private CrawlerService crawlerService;
+
+    @Autowired
+    private GapPlanner gapPlanner;
+
+    @Autowired
+    @Qualifier("crawlJobExecutor")
+    private ExecutorService crawlJobExecutor;
+
+    @Value("${crawler.jobs.checkpoint-interval-ms:2000}")
+    private long checkpointIntervalMs;
+
+    @Value("${crawler.jobs.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    // Các job chưa xong (QUEUED/RUNNING) theo thứ tự tạo
+    private final Map<String, RunningJob> activeJobs = new LinkedHashMap<>();
+
+    @Override
+    public CrawlJobDTO submit(LocalDate fromDate, LocalDate toDate) {
+        return submitJob(fromDate, toDate).toDTO();
+    }
+
+    private synchronized RunningJob submitJob(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        // Mỗi khoảng ngày chỉ có một job: hai job giao nhau sẽ tải trùng và tranh nhau ghi cùng ngày
+        for (RunningJob job : activeJobs.values()) {
+            if (!fromDate.isAfter(job.record.getToDate()) && !toDate.isBefore(job.record.getFromDate())) {
+                throw new CrawlJobConflictException(job.toDTO());
+            }
+        }
+        CrawlJob record = new CrawlJob();
+        record.setId(UUID.randomUUID().toString());
+        record.setFromDate(fromDate);
+        record.setToDate(toDate);
+        record.setStatus(CrawlJobStatus.QUEUED);
+        record.setSavedDays(0);
+        record.setFailedDays(0);
+        record.setCreatedAt(LocalDateTime.now());
+        jobRepo.save(record);
+        return enqueue(record);
+    }
+
+    private synchronized RunningJob enqueue(CrawlJob record) {
+        RunningJob job = new RunningJob(record);
+        activeJobs.put(record.getId(), job);
+        job.future = crawlJobExecutor.submit(job::run);
+        return job;
+    }
+
+    @Override
+    public Optional<CrawlJobDTO> getJob(String id) {
+        RunningJob job = activeJob(id);
+        if (job != null) {
+            return Optional.of(job.toDTO());
+        }
+        return jobRepo.findById(id).map(record -> toDTO(record, false, null, null));
+    }
+
+    @Override
+    public List<CrawlJobDTO> getRecentJobs(int limit) {
+        return jobRepo.findRecent(Limit.of(limit)).stream()
+                .map(record -> {
+                    RunningJob job = activeJob(record.getId());
+                    return job != null ? job.toDTO() : toDTO(record, false, null, null);
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<CrawlJobDTO> cancel(String id) {
+        RunningJob job = activeJob(id);
+        if (job == null) {
+            return getJob(id); // Đã xong hoặc không tồn tại
+        }
+        job.cancel();
+        return Optional.of(job.toDTO());
+    }
+
+    private synchronized RunningJob activeJob(String id) {
+        return activeJobs.get(id);
+    }
+
+    @Override
+    public GapReportDTO getGapReport(LocalDate fromDate, LocalDate toDate, int limit) {
+        GapPlanner.GapPlan plan = plan(fromDate, toDate);
+        if (plan == null) {
+            return new GapReportDTO(null, toDate != null ? toDate.format(DATE_FORMAT) : null,
+                    0, 0, 0, 0, 0, new ArrayList<>());
+        }
+        List<GapPlanner.Gap> gaps = plan.gaps();
+        List<GapReportDTO.GapDTO> gapDTOs = gaps.stream()
+                .limit(limit)
+                .map(gap -> new GapReportDTO.GapDTO(gap.getFromDate().format(DATE_FORMAT),
+                        gap.getToDate().format(DATE_FORMAT), gap.getDays()))
+                .collect(Collectors.toList());
+        return new GapReportDTO(plan.getFromDate().format(DATE_FORMAT), plan.getToDate().format(DATE_FORMAT),
+                plan.getTotalDays(), plan.getExistingDays(), plan.getNoResultDays(), plan.getMissingDays(),
+                gaps.size(), gapDTOs);
+    }
+
+    @Override
+    public Optional<CrawlJobDTO> fillGaps(LocalDate fromDate, LocalDate toDate) {
+        GapPlanner.GapPlan plan = plan(fromDate, toDate);
+        if (plan == null || plan.getMissingDays() == 0) {
+            return Optional.empty();
+        }
+        // Một job cho cả đoạn [ngày thiếu đầu, ngày thiếu cuối]: crawlRange lập lại kế hoạch và chỉ tải các ngày thiếu
+        return Optional.of(submitJob(plan.firstMissing(), plan.lastMissing()).toDTO());
+    }
+
+    // null nếu fromDate bỏ trống mà database chưa có dữ liệu
+    private GapPlanner.GapPlan plan(LocalDate fromDate, LocalDate toDate) {
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        return fromDate != null ? gapPlanner.plan(fromDate, to) : gapPlanner.planHistory(to);
+    }
+
+    @Override
+    public String autoUpdateFromLastDate(long waitMillis) {
+        LocalDate today = LocalDate.now();
+        // Tìm các ngày thiếu trên toàn bộ lịch sử (một truy vấn), không chỉ sau ngày cuối cùng
+        GapPlanner.GapPlan plan = gapPlanner.planHistory(today);
+
+        if (plan == null) {
+            return "Không có dữ liệu trong database. Vui lòng cập nhật dữ liệu ban đầu.";
+        }
+
+        // Không thiếu ngày nào đến hôm nay, không cần cập nhật
+        if (plan.getMissingDays() == 0) {
+            return "Dữ liệu đã được cập nhật đến hôm nay (" + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) + ").";
+        }
+
+        // Cập nhật từ ngày thiếu đầu tiên đến ngày thiếu cuối cùng (thường là hôm nay)
+        LocalDate startDate = plan.firstMissing();
+        LocalDate endDate = plan.lastMissing();
+        RunningJob job;
+        try {
+            job = submitJob(startDate, endDate);
+        } catch (CrawlJobConflictException e) {
+            return "Đang có job cào dữ liệu từ " + e.getExisting().getFromDate() + " đến " + e.getExisting().getToDate()
+                    + " chưa xong. Theo dõi tiến độ tại " + STATUS_PATH + e.getExisting().getId();
+        }
+
+        boolean finished = false;
+        try {
+            finished = job.done.await(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        CrawlJobDTO dto = job.toDTO();
+        if (!finished) {
+            return String.format("Đang cập nhật %d ngày còn thiếu từ %s đến %s (đã lưu %d ngày). Theo dõi tiến độ tại %s%s",
+                    plan.getMissingDays(),
+                    startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                    endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                    dto.getSavedDays(), STATUS_PATH, dto.getId());
+        }
+        if (!CrawlJobStatus.COMPLETED.name().equals(dto.getStatus())) {
+            return "Cập nhật dữ liệu bị dừng (" + dto.getStatus() + ")"
+                    + (dto.getLastError() != null ? ": " + dto.getLastError() : ".");
+        }
+
+        int totalDays = dto.getTotalDays();
+        int successDays = dto.getSavedDays();
+        int skippedDays = dto.getSkippedDays();
+        return String.format("Hoàn thành! Đã cập nhật %d ngày (Thành công: %d, Đã tồn tại: %d, Lỗi: %d). Từ %s đến %s.",
+                totalDays, successDays, skippedDays, totalDays - successDays - skippedDays,
+                startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                endDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+    }
+
+    /**
+     * Chạy tiếp các job chưa xong từ lần chạy trước (các ngày đã lưu sẽ được bỏ qua khi lập kế hoạch)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        if (!resumeOnStartup) return;
+        try {
+            for (CrawlJob record : jobRepo.findByStatuses(
+                    EnumSet.of(CrawlJobStatus.QUEUED, CrawlJobStatus.RUNNING, CrawlJobStatus.INTERRUPTED))) {
+                log.info("Chạy tiếp job cào dữ liệu {} ({} đến {})", record.getId(), record.getFromDate(), record.getToDate());
+                record.setStatus(CrawlJobStatus.QUEUED);
+                enqueue(record);
+            }
+        } catch (Exception e) {
+            log.warn("Không đọc được checkpoint job cào dữ liệu: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ứng dụng tắt: ngắt các job đang chạy để chúng lưu nốt trang đã tải và ghi trạng thái INTERRUPTED
+     * (job đang chờ giữ nguyên QUEUED trong database)
+     */
+    @PreDestroy
+    public void stopRunningJobs() throws InterruptedException {
+        List<RunningJob> jobs;
+        synchronized (this) {
+            jobs = new ArrayList<>(activeJobs.values());
+        }
+        for (RunningJob job : jobs) {
+            job.future.cancel(true);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (RunningJob job : jobs) {
+            if (job.isStarted()) {
+                job.done.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static CrawlJobDTO toDTO(CrawlJob record, boolean cancelRequested, Double daysPerSecond, Long etaSeconds) {
+        Integer remaining = null;
+        if (record.getTotalDays() != null) {
+            remaining = Math.max(0, record.getTotalDays() - record.getSkippedDays()
+                    - record.getSavedDays() - record.getFailedDays());
+        }
+        return new CrawlJobDTO(record.getId(),
+                record.getFromDate().format(DATE_FORMAT),
+                record.getToDate().format(DATE_FORMAT),
+                record.getStatus().name(),
+                cancelRequested,
+                record.getTotalDays(),
+                record.getSkippedDays(),
+                record.getSavedDays() != null ? record.getSavedDays() : 0,
+                record.getFailedDays() != null ? record.getFailedDays() : 0,
+                remaining,
+                daysPerSecond,
+                etaSeconds,
+                record.getLastError(),
+                record.getCreatedAt() != null ? record.getCreatedAt().toString() : null,
+                record.getStartedAt() != null ? record.getStartedAt().toString() : null,
+                record.getFinishedAt() != null ? record.getFinishedAt().toString() : null);
+    }
+
+    /**
+     * Một job trong bộ nhớ. record chỉ bị thay đổi trên thread chạy job
+     * (hoặc trên thread hủy nếu job chưa kịp chạy); các thread khác đọc qua toDTO dưới cùng khóa.
+     */
+    private class RunningJob implements CrawlProgress {
+        private final CrawlJob record;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Future<?> future;
+        private boolean started;
+        private boolean cancelRequested;
+        private long startNanos;
+        private long lastCheckpointNanos;
+
+        RunningJob(CrawlJob record) {
+            this.record = record;
+        }
+
+        void run() {
+            synchronized (this) {
+                if (cancelRequested) return; // Đã bị hủy khi còn trong hàng đợi
+                started = true;
+                record.setStatus(CrawlJobStatus.RUNNING);
+                record.setStartedAt(LocalDateTime.now());
+                record.setFinishedAt(null);
+                startNanos = System.nanoTime();
+            }
+            checkpoint(true);
+
+            CrawlJobStatus finalStatus = CrawlJobStatus.COMPLETED;
+            try {
+                crawlerService.crawlRange(record.getFromDate(), record.getToDate(), this);
+            } catch (RuntimeException e) {
+                log.warn("Job cào dữ liệu {} bị lỗi", record.getId(), e);
+                synchronized (this) {
+                    record.setLastError(truncate(e.getMessage()));
+                }
+                finalStatus = CrawlJobStatus.FAILED;
+            }
+            boolean interrupted = Thread.interrupted();
+            synchronized (this) {
+                if (cancelRequested) {
+                    finalStatus = CrawlJobStatus.CANCELLED;
+                } else if (interrupted) {
+                    finalStatus = CrawlJobStatus.INTERRUPTED;
+                }
+            }
+            finish(finalStatus);
+        }
+
+        void cancel() {
+            boolean queued;
+            synchronized (this) {
+                if (cancelRequested) return;
+                cancelRequested = true;
+                queued = !started;
+            }
+            if (queued) {
+                future.cancel(false);
+                finish(CrawlJobStatus.CANCELLED);
+            } else {
+                future.cancel(true); // Ngắt thread đang cào
+            }
+        }
+
+        synchronized boolean isStarted() {
+            return started;
+        }
+
+        private void finish(CrawlJobStatus status) {
+            synchronized (this) {
+                record.setStatus(status);
+                record.setFinishedAt(LocalDateTime.now());
+            }
+            checkpoint(true);
+            synchronized (CrawlJobServiceImpl.this) {
+                activeJobs.remove(record.getId());
+            }
+            done.countDown();
+            log.info("Job cào dữ liệu {} kết thúc: {}", record.getId(), status);
+        }
+
+        @Override
+        public synchronized void planned(int total, int skipped) {
+            record.setTotalDays(total);
+            record.setSkippedDays(skipped);
+            record.setSavedDays(0);
+            record.setFailedDays(0);
+        }
+
+        @Override
+        public void saved(LocalDate date) {
+            synchronized (this) {
+                record.setSavedDays(record.getSavedDays() + 1);
+            }
+            checkpoint(false);
+        }
+
+        @Override
+        public void failed(LocalDate date, String message) {
+            synchronized (this) {
+                record.setFailedDays(record.getFailedDays() + 1);
+                record.setLastError(truncate(message));
+            }
+            checkpoint(false);
+        }
+
+        /**
+         * Ghi trạng thái vào crawl_jobs (tối đa một lần mỗi checkpointIntervalMs, trừ khi force)
+         */
+        private void checkpoint(boolean force) {
+            long now = System.nanoTime();
+            if (!force && now - lastCheckpointNanos < TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMs)) return;
+            lastCheckpointNanos = now;
+            // Tạm bỏ cờ interrupt: connection pool từ chối cấp kết nối cho thread đang bị ngắt
+            boolean interrupted = Thread.interrupted();
+            try {
+                jobRepo.save(record);
+            } catch (RuntimeException e) {
+                log.warn("Không ghi được checkpoint job {}: {}", record.getId(), e.getMessage());
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        synchronized CrawlJobDTO toDTO() {
+            Double daysPerSecond = null;
+            Long etaSeconds = null;
+            if (started && record.getTotalDays() != null && record.getStatus() == CrawlJobStatus.RUNNING) {
+                int processed = record.getSavedDays() + record.getFailedDays();
+                double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+                if (processed > 0 && elapsedSeconds > 0) {
+                    daysPerSecond = processed / elapsedSeconds;
+                    int remaining = record.getTotalDays() - record.getSkippedDays() - processed;
+                    etaSeconds = Math.round(Math.max(0, remaining) / daysPerSecond);
+                }
+            }
+            return CrawlJobServiceImpl.toDTO(record, cancelRequested, daysPerSecond, etaSeconds);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -1,162 +1,293 @@
 package com.example.service.impl;
 
 
+import com.example.crawler.CrawlProgress;
+import com.example.crawler.GapPlanner;
+import com.example.crawler.PageArchive;
+import com.example.crawler.PageFetcher;
+import com.example.crawler.RangeCrawler;
+import com.example.crawler.ResultPageException;
+import com.example.crawler.ResultPageParser;
 import com.example.service.CrawlerService;
 import com.example.domain.LotteryDailyResult;
 import com.example.domain.LotoDigit;
 import com.example.dto.LotteryDataDTO;
+import com.example.dto.response.LotteryHistoryDTO;
+import com.example.dto.response.ReparseResultDTO;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.paging.DrawDateCursor;
+import com.example.repository.DrawBatchWriter;
 import com.example.repository.LotteryDailyResultRepository;
-import org.jsoup.Jsoup;
+import lombok.extern.slf4j.Slf4j;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class CrawlerServiceImpl implements CrawlerService {
 
     @Autowired
     private LotteryDailyResultRepository resultRepo;
 
-    public String crawlAndSaveData(LocalDate date) {
-        // 1. Kiểm tra tồn tại
-        if (resultRepo.existsByDrawDate(date)) {
-            return "Dữ liệu ngày " + date + " đã tồn tại!";
-        }
-
-        String dateStr = date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-
-        // URL Minh Ngọc cực kỳ chuẩn: kqsx.net.vn hoặc minhngoc.net.vn
-        // URL: https://www.minhngoc.net.vn/ket-qua-xo-so/mien-bac/11-12-2025.html
-        String url = "https://www.minhngoc.net.vn/ket-qua-xo-so/mien-bac/" + dateStr + ".html";
+    @Autowired
+    private DrawBatchWriter drawBatchWriter;
 
-        try {
-            // 2. Kết nối (Minh Ngọc rất lành, ít chặn bot)
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64)")
-                    .timeout(15000)
-                    .get();
-
-            // Nếu tiêu đề báo lỗi hoặc không tìm thấy ngày
-            if (doc.title().contains("404") || !doc.text().contains(dateStr.replace("-", "/"))) {
-                return "Lỗi: Không tìm thấy trang kết quả cho ngày " + dateStr;
-            }
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-            // 3. Khởi tạo Entity
-            LotteryDailyResult dailyResult = new LotteryDailyResult();
-            dailyResult.setDrawDate(date);
-            dailyResult.setRegion("MB");
-            List<LotoDigit> digits = new ArrayList<>();
+    @Autowired
+    private PageFetcher pageFetcher;
 
-            // 4. Bóc tách dữ liệu (Minh Ngọc dùng Class rất rõ ràng cho từng giải)
-            // Bảng kết quả nằm trong div class="box_kqxs"
-            Element boxKqxs = doc.selectFirst(".box_kqxs");
-            if (boxKqxs == null) boxKqxs = doc.selectFirst(".bkqt"); // Dự phòng class cũ
+    @Autowired
+    private ResultPageParser resultPageParser;
 
-            if (boxKqxs == null) return "Lỗi: Không tìm thấy bảng .box_kqxs hoặc .bkqt";
+    @Autowired
+    private RangeCrawler rangeCrawler;
 
-            // Lấy giải ĐB (Class: giai_db hoặc giaidb)
-            String db = getPrizeText(boxKqxs, ".giai_db, .giaidb");
-            if (db.isEmpty()) return "Lỗi: Chưa có KQ giải ĐB (Có thể chưa đến giờ quay)";
+    @Autowired
+    private GapPlanner gapPlanner;
 
-            dailyResult.setSpecialPrizeRaw(db);
-            digits.add(createDigit(db, "Giai_DB", dailyResult));
+    @Autowired
+    private PageArchive pageArchive;
 
-            // Lấy các giải khác (Hàm tách chuỗi bên dưới xử lý việc 1 giải có nhiều số)
-            parseAndAddDigits(boxKqxs, ".giai_nhat, .giai1", "Giai_1", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_nhi, .giai2", "Giai_2", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_ba, .giai3", "Giai_3", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_tu, .giai4", "Giai_4", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_nam, .giai5", "Giai_5", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_sau, .giai6", "Giai_6", dailyResult, digits);
-            parseAndAddDigits(boxKqxs, ".giai_bay, .giai7", "Giai_7", dailyResult, digits);
+    @Autowired
+    @Qualifier("reparseExecutor")
+    private ExecutorService reparseExecutor;
 
-            // 5. Lưu DB
-            dailyResult.setLotoDigits(digits);
-            resultRepo.save(dailyResult);
+    // Số ngày gom vào một transaction khi cào nhiều ngày
+    @Value("${crawler.write.days-per-transaction:30}")
+    private int daysPerTransaction;
 
-            return "Thành công: " + dateStr + " (Nguồn: Minh Ngọc)";
+    public String crawlAndSaveData(LocalDate date) {
+        // 1. Kiểm tra tồn tại
+        if (resultRepo.existsByDrawDate(date)) {
+            return "Dữ liệu ngày " + date + " đã tồn tại!";
+        }
 
+        // 2. Tải trang (Minh Ngọc rất lành, ít chặn bot), có giới hạn tốc độ và thử lại khi lỗi mạng
+        try {
+            return saveFetchedPage(date, pageFetcher.fetch(date));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return errorMessage(date, e);
         } catch (Exception e) {
-            e.printStackTrace();
-            return "Lỗi ngày " + dateStr + ": " + e.getMessage();
+            log.warn("Lỗi cào ngày {}", date, e);
+            return errorMessage(date, e);
         }
     }
 
-    // --- Các hàm phụ trợ ---
-
-    // Lấy text từ selector (VD: lấy "52668")
-    private String getPrizeText(Element container, String cssSelector) {
-        Elements els = container.select(cssSelector);
-        if (els.isEmpty()) return "";
-        return els.text().trim();
-    }
+    // Bóc tách trang đã tải rồi lưu kết quả + bảng tổng hợp, trả về thông báo như crawlAndSaveData
+    private String saveFetchedPage(LocalDate date, Document doc) {
+        String dateStr = date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        try {
+            LotteryDailyResult dailyResult = resultPageParser.parse(doc, date);
 
-    // Tách chuỗi giải thưởng thành các số và thêm vào list
-    // VD: Giải 3 là "12345 67890 54321" -> Tách thành 3 số
-    private void parseAndAddDigits(Element container, String cssSelector, String prizeName,
-                                   LotteryDailyResult dailyResult, List<LotoDigit> digits) {
-        String rawText = getPrizeText(container, cssSelector);
-        if (rawText.isEmpty()) return;
+            // Lưu DB (kết quả + bảng tổng hợp theo số trong cùng một transaction)
+            drawBatchWriter.write(List.of(dailyResult));
 
-        // Minh Ngọc ngăn cách số bằng dấu cách hoặc " - "
-        String[] nums = rawText.split("[\\s\\-]+");
+            // Báo cho các chỉ mục in-memory cập nhật
+            eventPublisher.publishEvent(new DrawSavedEvent(dailyResult));
 
-        for (String num : nums) {
-            if (num.trim().length() > 0) {
-                digits.add(createDigit(num.trim(), prizeName, dailyResult));
-            }
+            return "Thành công: " + dateStr + " (Nguồn: Minh Ngọc)";
+        } catch (ResultPageException e) {
+            return "Lỗi: " + e.getMessage();
+        } catch (Exception e) {
+            log.warn("Lỗi lưu ngày {}", date, e);
+            return errorMessage(date, e);
         }
     }
 
-    // Tạo đối tượng LotoDigit
-    private LotoDigit createDigit(String rawVal, String prizeName, LotteryDailyResult dailyResult) {
-        LotoDigit d = new LotoDigit();
-        d.setPrizeName(prizeName);
-        d.setDailyResult(dailyResult);
+    private static String errorMessage(LocalDate date, Exception e) {
+        return "Lỗi ngày " + date.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ": " + e.getMessage();
+    }
 
-        // 1. Clean số (chỉ giữ ký tự số, bỏ chữ SR, dấu cách...)
-        String cleanNum = rawVal.replaceAll("[^0-9]", "");
+    /**
+     * Cào các ngày còn thiếu trong [from, to] (theo GapPlanner): tải song song qua RangeCrawler, bóc tách trên thread hiện tại
+     * rồi ghi theo lô daysPerTransaction ngày một transaction
+     */
+    @Override
+    public void crawlRange(LocalDate from, LocalDate to, CrawlProgress progress) {
+        GapPlanner.GapPlan plan = gapPlanner.plan(from, to);
+        List<LocalDate> missing = plan.missingDates();
+        int total = plan.getTotalDays();
+        progress.planned(total, total - missing.size());
 
-        // 2. LƯU SỐ ĐẦY ĐỦ (NEW)
-        // Lưu nguyên bản "52668" hoặc "08" vào cột fullNumber
-        d.setFullNumber(cleanNum);
+        List<LotteryDailyResult> pending = new ArrayList<>();
+        try {
+            rangeCrawler.crawl(missing, page -> {
+                if (page.getError() != null) {
+                    reportFailure(progress, page.getDate(), errorMessage(page.getDate(), page.getError()));
+                    return;
+                }
+                try {
+                    pending.add(resultPageParser.parse(page.getDocument(), page.getDate()));
+                } catch (ResultPageException e) {
+                    reportFailure(progress, page.getDate(), "Lỗi: " + e.getMessage());
+                    return;
+                }
+                if (pending.size() >= daysPerTransaction) {
+                    flush(pending, progress);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Các trang đã tải xong vẫn được lưu dù bị ngắt giữa chừng
+            flush(pending, progress);
+        }
+        log.info("Cào xong {} đến {}: {} ngày (Bỏ qua: {})", from, to, total, total - missing.size());
+    }
 
-        // 3. Vẫn tính và lưu 2 số cuối (OLD)
+    // Tiến độ từng ngày đi qua CrawlProgress (job ghi lại), log chỉ ở mức debug
+    private static void reportFailure(CrawlProgress progress, LocalDate date, String message) {
+        log.debug(message);
+        progress.failed(date, message);
+    }
 
-        if (cleanNum.length() >= 2) {
+    /**
+     * Ghi các ngày đang chờ trong một transaction rồi phát sự kiện cho từng ngày.
+     * Nếu cả lô lỗi (VD: một ngày vừa được lưu ở nơi khác) thì ghi lại từng ngày để không mất các ngày còn lại.
+     */
+    private void flush(List<LotteryDailyResult> pending, CrawlProgress progress) {
+        if (pending.isEmpty()) return;
+        // Tạm bỏ cờ interrupt: connection pool từ chối cấp kết nối cho thread đang bị ngắt
+        boolean interrupted = Thread.interrupted();
+        try {
+            List<LotteryDailyResult> saved = new ArrayList<>();
             try {
-                String last2 = cleanNum.substring(cleanNum.length() - 2);
-                d.setValue(Integer.parseInt(last2)); // Lưu 68
-            } catch (Exception e) {
-                // Ignore lỗi
+                drawBatchWriter.write(pending);
+                saved.addAll(pending);
+            } catch (DataAccessException batchError) {
+                for (LotteryDailyResult result : pending) {
+                    try {
+                        drawBatchWriter.write(List.of(result));
+                        saved.add(result);
+                    } catch (DataAccessException e) {
+                        reportFailure(progress, result.getDrawDate(), errorMessage(result.getDrawDate(), e));
+                    }
+                }
             }
-        } else if (cleanNum.length() == 1) {
-            // Trường hợp hãn hữu số chỉ có 1 chữ số (ít gặp ở XSMB)
-            d.setValue(Integer.parseInt(cleanNum));
-        }
+            pending.clear();
 
-        return d;
+            saved.sort(Comparator.comparing(LotteryDailyResult::getDrawDate));
+            for (LotteryDailyResult result : saved) {
+                eventPublisher.publishEvent(new DrawSavedEvent(result));
+                log.debug("Đã lưu ngày {}", result.getDrawDate());
+                progress.saved(result.getDrawDate());
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     @Override
-    public void crawlRange(LocalDate from, LocalDate to) {
-        // Giữ nguyên logic lặp cũ của bạn
-        LocalDate current = from;
-        while (!current.isAfter(to)) {
-            System.out.println(crawlAndSaveData(current));
-            current = current.plusDays(1);
-            try { Thread.sleep(500); } catch (InterruptedException e) {}
+    public ReparseResultDTO reparseFromArchive(LocalDate fromDate, LocalDate toDate) {
+        List<PageArchive.Entry> entries = pageArchive.entries(fromDate, toDate).stream()
+                .filter(PageArchive.Entry::hasPage)
+                .collect(Collectors.toList());
+        ReparseResultDTO summary = new ReparseResultDTO();
+        summary.setArchivedDays(entries.size());
+        summary.setErrors(new ArrayList<>());
+        if (entries.isEmpty()) {
+            return summary;
+        }
+        LocalDate first = entries.get(0).getDate();
+        LocalDate last = entries.get(entries.size() - 1).getDate();
+        summary.setFromDate(first.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
+        summary.setToDate(last.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
+
+        // Mỗi ngày độc lập: đọc gzip + dựng DOM + bóc tách song song trên reparseExecutor
+        long start = System.nanoTime();
+        List<Callable<ReparsedDay>> tasks = new ArrayList<>(entries.size());
+        for (PageArchive.Entry entry : entries) {
+            tasks.add(() -> reparseEntry(entry));
+        }
+        List<ReparsedDay> parsed = new ArrayList<>(entries.size());
+        try {
+            for (Future<ReparsedDay> future : reparseExecutor.invokeAll(tasks)) {
+                parsed.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reparse bị ngắt", e);
+        } catch (ExecutionException e) {
+            // reparseEntry không ném lỗi ra ngoài, chỉ còn lỗi lập trình
+            throw new IllegalStateException(e.getCause());
+        }
+        summary.setParseMillis((System.nanoTime() - start) / 1_000_000);
+
+        List<LotteryDailyResult> results = new ArrayList<>();
+        for (ReparsedDay day : parsed) {
+            if (day.getResult() != null) {
+                results.add(day.getResult());
+            } else {
+                summary.setFailedDays(summary.getFailedDays() + 1);
+                if (summary.getErrors().size() < 20) {
+                    summary.getErrors().add(day.getError());
+                }
+            }
+        }
+
+        // Ghi đè theo lô (mỗi lô một transaction); ngày bóc tách lỗi giữ nguyên dữ liệu cũ
+        start = System.nanoTime();
+        int committed = 0;
+        try {
+            for (int i = 0; i < results.size(); i += daysPerTransaction) {
+                List<LotteryDailyResult> chunk = results.subList(i, Math.min(results.size(), i + daysPerTransaction));
+                drawBatchWriter.replace(chunk);
+                committed += chunk.size();
+            }
+        } finally {
+            // Kể cả khi một lô sau bị lỗi: các lô đã commit phải được nạp lại vào các chỉ mục in-memory
+            if (committed > 0) {
+                eventPublisher.publishEvent(new DrawsReplacedEvent(results.get(0).getDrawDate(),
+                        results.get(committed - 1).getDrawDate()));
+            }
+        }
+        summary.setWriteMillis((System.nanoTime() - start) / 1_000_000);
+        summary.setReplacedDays(committed);
+        return summary;
+    }
+
+    private ReparsedDay reparseEntry(PageArchive.Entry entry) {
+        try {
+            Document doc = pageArchive.load(entry, pageFetcher.urlFor(entry.getDate()));
+            return new ReparsedDay(resultPageParser.parse(doc, entry.getDate()), null);
+        } catch (ResultPageException e) {
+            return new ReparsedDay(null, "Lỗi: " + e.getMessage());
+        } catch (Exception e) {
+            return new ReparsedDay(null, errorMessage(entry.getDate(), e));
         }
     }
 
+    // Kết quả bóc tách lại một ngày trong kho, hoặc thông báo lỗi
+    @lombok.Value
+    private static class ReparsedDay {
+        LotteryDailyResult result;
+        String error;
+    }
+
     @Override
     public LotteryDataDTO getLotteryDataByDate(LocalDate date) {
         return resultRepo.findByDrawDate(date)
@@ -165,50 +296,52 @@ public class CrawlerServiceImpl implements CrawlerService {
     }
     
     @Override
-    public String autoUpdateFromLastDate() {
-        // Lấy ngày cuối cùng trong database
-        LocalDate lastDate = resultRepo.findLatestDrawDate().orElse(null);
-        LocalDate today = LocalDate.now();
-        
-        if (lastDate == null) {
-            return "Không có dữ liệu trong database. Vui lòng cập nhật dữ liệu ban đầu.";
+    public LotteryHistoryDTO getLotteryHistory(String cursor, int size) {
+        // Lấy size + 1 ngày theo khóa drawDate để biết còn trang tiếp theo hay không
+        DrawDateCursor position = cursor != null ? DrawDateCursor.decode(cursor) : null;
+        List<LocalDate> dates;
+        if (position == null) {
+            dates = resultRepo.findLatestDrawDates(Limit.of(size + 1));
+        } else if (position.isAfter()) {
+            dates = new ArrayList<>(resultRepo.findDrawDatesAfter(position.getDrawDate(), Limit.of(size + 1)));
+        } else {
+            dates = resultRepo.findDrawDatesBefore(position.getDrawDate(), Limit.of(size + 1));
         }
-        
-        // Nếu ngày cuối cùng là hôm nay hoặc sau hôm nay, không cần cập nhật
-        if (!lastDate.isBefore(today)) {
-            return "Dữ liệu đã được cập nhật đến hôm nay (" + today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) + ").";
+        boolean more = dates.size() > size;
+        if (more) {
+            dates = dates.subList(0, size);
+        }
+        if (position != null && position.isAfter()) {
+            Collections.reverse(dates); // Về thứ tự mới nhất trước
         }
         
-        // Bắt đầu từ ngày tiếp theo ngày cuối cùng
-        LocalDate startDate = lastDate.plusDays(1);
-        int totalDays = 0;
-        int successDays = 0;
-        int skippedDays = 0;
-        
-        // Cập nhật từ startDate đến today
-        LocalDate current = startDate;
-        while (!current.isAfter(today)) {
-            totalDays++;
-            String result = crawlAndSaveData(current);
-            if (result.contains("Thành công")) {
-                successDays++;
-            } else if (result.contains("đã tồn tại")) {
-                skippedDays++;
-            }
-            current = current.plusDays(1);
-            try { 
-                Thread.sleep(500); // Delay để tránh spam request
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        LotteryHistoryDTO history = new LotteryHistoryDTO(new ArrayList<>(), null, null);
+        if (dates.isEmpty()) {
+            return history;
+        }
+        LocalDate newest = dates.get(0);
+        LocalDate oldest = dates.get(dates.size() - 1);
+        for (LotteryDailyResult result : resultRepo.findWithDigitsBetween(oldest, newest)) {
+            history.getItems().add(convertToDTO(result));
         }
         
-        return String.format("Hoàn thành! Đã cập nhật %d ngày (Thành công: %d, Đã tồn tại: %d, Lỗi: %d). Từ %s đến %s.", 
-                totalDays, successDays, skippedDays, totalDays - successDays - skippedDays,
-                startDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
-                today.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        // Phía đang đi tới đã biết nhờ dòng thừa, phía ngược lại kiểm tra bằng một truy vấn exists
+        boolean older = position == null || !position.isAfter() ? more : resultRepo.existsByDrawDateLessThan(oldest);
+        boolean newer = position != null && position.isAfter() ? more : position != null && resultRepo.existsByDrawDateGreaterThan(newest);
+        if (older) {
+            history.setNextCursor(DrawDateCursor.before(oldest).encode());
+        }
+        if (newer) {
+            history.setPrevCursor(DrawDateCursor.after(newest).encode());
+        }
+        return history;
     }
-
+    
+    @Override
+    public LotteryDataDTO toLotteryData(LotteryDailyResult result) {
+        return convertToDTO(result);
+    }
+    
     // Convert từ Entity sang DTO
     private LotteryDataDTO convertToDTO(LotteryDailyResult result) {
         LotteryDataDTO dto = new LotteryDataDTO();
@@ -1,23 +1,55 @@
 package com.example.service.impl;
 
-import com.example.domain.PredictionLog;
+import com.example.cache.DatasetVersion;
+import com.example.cache.DatasetVersionTracker;
+import com.example.cache.LruResponseCache;
+import com.example.dto.response.CacheStatsDTO;
 import com.example.dto.response.DashboardStatsDTO;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.index.FrequencyIndex;
+import com.example.index.LotoPresenceIndex;
+import com.example.prediction.BacktestEngine;
+import com.example.prediction.BacktestResult;
+import com.example.prediction.FrequencyPredictor;
+import com.example.prediction.MarkovModel;
+import com.example.prediction.PredictionAlgorithm;
 import com.example.repository.LotteryDailyResultRepository;
 import com.example.repository.LotoDigitRepository;
-import com.example.repository.PredictionLogRepository;
 import com.example.service.DashboardService;
+import com.example.service.PredictionLogService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class DashboardServiceImpl implements DashboardService {
     
@@ -28,10 +60,57 @@ public class DashboardServiceImpl implements DashboardService {
     private LotoDigitRepository lotoDigitRepository;
     
     @Autowired
-    private PredictionLogRepository predictionLogRepository;
+    private PredictionLogService predictionLogService;
+    
+    @Autowired
+    private LotoPresenceIndex lotoPresenceIndex;
+    
+    @Autowired
+    private DatasetVersionTracker datasetVersionTracker;
+    
+    @Autowired
+    private BacktestEngine backtestEngine;
+    
+    @Autowired
+    private MarkovModel markovModel;
+    
+    @Autowired
+    private FrequencyIndex frequencyIndex;
+    
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private ExecutorService dashboardExecutor;
+    
+    @Value("${dashboard.cache.max-entries:256}")
+    private int cacheMaxEntries;
+    
+    @Value("${dashboard.section-timeout-ms:5000}")
+    private long sectionTimeoutMs;
+    
+    private LruResponseCache<DashboardStatsKey, DashboardStatsDTO> statsCache;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     
+    // Số phần tử tối đa của các bảng Top
+    private static final int TOP_LIMIT = 10;
+    
+    // Tên các phần của dashboard (dùng trong sectionTimings/failedSections)
+    private static final String SECTION_TOTAL_DAYS = "totalDays";
+    private static final String SECTION_LAST_UPDATE = "lastUpdateDate";
+    private static final String SECTION_TOP_LO_GAN = "topLoGan";
+    private static final String SECTION_TOP_LO_HOT = "topLoHot";
+    private static final String SECTION_RECOMMENDATION = "recommendation";
+    private static final String SECTION_QUICK_FORECAST = "quickForecast";
+    private static final String[] SECTIONS = {
+            SECTION_TOTAL_DAYS, SECTION_LAST_UPDATE, SECTION_TOP_LO_GAN,
+            SECTION_TOP_LO_HOT, SECTION_RECOMMENDATION, SECTION_QUICK_FORECAST
+    };
+    
+    @PostConstruct
+    void initCache() {
+        statsCache = new LruResponseCache<>(cacheMaxEntries);
+    }
+    
     @Override
     public DashboardStatsDTO getDashboardStats() {
         return getDashboardStats(null);
@@ -49,30 +128,67 @@ public class DashboardServiceImpl implements DashboardService {
     
     @Override
     public DashboardStatsDTO getDashboardStats(YearMonth loGanMonth, YearMonth loHotMonth, String algorithm, Integer rangeSize) {
-        DashboardStatsDTO stats = new DashboardStatsDTO();
+        // Dữ liệu chỉ đổi khi cào thêm ngày mới: key gồm tham số + phiên bản dữ liệu + ngày hiện tại
+        // (số ngày chưa về phụ thuộc vào hôm nay)
+        DashboardStatsKey key = new DashboardStatsKey(loGanMonth, loHotMonth, algorithm, rangeSize,
+                LocalDate.now(), datasetVersionTracker.current());
+        DashboardStatsDTO stats = statsCache.get(key, () -> computeDashboardStats(loGanMonth, loHotMonth, algorithm, rangeSize));
+        
+        // Kết quả thiếu phần (lỗi/quá hạn) thì không giữ lại trong cache
+        if (!stats.getFailedSections().isEmpty()) {
+            statsCache.invalidate(key);
+        }
+        return stats;
+    }
+    
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        DatasetVersion version = datasetVersionTracker.current();
+        return new CacheStatsDTO(
+                statsCache.getHits(),
+                statsCache.getMisses(),
+                statsCache.getEvictions(),
+                statsCache.size(),
+                statsCache.getMaxEntries(),
+                version.getLatestDrawDate() + "/" + version.getRowCount() + "/" + version.getRevision() + "#" + version.getGeneration());
+    }
+    
+    /**
+     * Có ngày mới: các key cũ không còn được dùng nữa, giải phóng luôn
+     */
+    @Order(2)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        statsCache.clear();
+    }
+
+    @Order(2)
+    @EventListener
+    public void onDrawsReplaced(DrawsReplacedEvent event) {
+        statsCache.clear();
+    }
+    
+    /**
+     * Các phần của dashboard độc lập với nhau nên được tính song song trên dashboardExecutor,
+     * mỗi phần có giới hạn thời gian riêng. Phần nào lỗi/quá hạn sẽ để null và được liệt kê trong failedSections.
+     */
+    private DashboardStatsDTO computeDashboardStats(YearMonth loGanMonth, YearMonth loHotMonth, String algorithm, Integer rangeSize) {
+        long startNanos = System.nanoTime();
+        Map<String, Double> timings = new ConcurrentHashMap<>();
+        LocalDate today = LocalDate.now();
         
         // 1. Tổng số ngày có dữ liệu
-        long totalDays = resultRepository.count();
-        stats.setTotalDays(totalDays);
+        CompletableFuture<Long> totalDaysFuture = runSection(SECTION_TOTAL_DAYS, timings,
+                () -> resultRepository.count());
         
         // 2. Ngày cập nhật gần nhất
-        Optional<LocalDate> lastUpdateDateOpt = resultRepository.findLatestDrawDate();
-        
-        if (lastUpdateDateOpt.isPresent()) {
-            stats.setLastUpdateDate(lastUpdateDateOpt.get().format(DATE_FORMATTER));
-        } else {
-            stats.setLastUpdateDate("Chưa có dữ liệu");
-        }
-        
-        LocalDate today = LocalDate.now();
+        CompletableFuture<Optional<LocalDate>> lastUpdateFuture = runSection(SECTION_LAST_UPDATE, timings,
+                () -> resultRepository.findLatestDrawDate());
         
         // 3. Top Lô Gan (các số lâu chưa về) - dùng loGanMonth
-        LocalDate loGanFilterStartDate = null;
-        if (loGanMonth != null) {
-            loGanFilterStartDate = loGanMonth.atDay(1);
-        }
-        List<DashboardStatsDTO.LotoGanDTO> topLoGan = calculateTopLoGan(loGanFilterStartDate, today);
-        stats.setTopLoGan(topLoGan);
+        LocalDate loGanFilterStartDate = loGanMonth != null ? loGanMonth.atDay(1) : null;
+        CompletableFuture<List<DashboardStatsDTO.LotoGanDTO>> topLoGanFuture = runSection(SECTION_TOP_LO_GAN, timings,
+                () -> calculateTopLoGan(loGanFilterStartDate, today));
         
         // 4. Top Lô Hot (về nhiều nhất) - dùng loHotMonth
         LocalDate loHotFilterStartDate = null;
@@ -81,364 +197,264 @@ public class DashboardServiceImpl implements DashboardService {
             loHotFilterStartDate = loHotMonth.atDay(1);
             loHotFilterEndDate = today.isBefore(loHotMonth.atEndOfMonth()) ? today : loHotMonth.atEndOfMonth();
         }
-        List<DashboardStatsDTO.LotoHotDTO> topLoHot = calculateTopLoHot(loHotFilterStartDate, loHotFilterEndDate);
-        stats.setTopLoHot(topLoHot);
+        LocalDate hotFrom = loHotFilterStartDate;
+        LocalDate hotTo = loHotFilterEndDate;
+        CompletableFuture<List<DashboardStatsDTO.LotoHotDTO>> topLoHotFuture = runSection(SECTION_TOP_LO_HOT, timings,
+                () -> calculateTopLoHot(hotFrom, hotTo));
+        
+        // 5. Gợi ý dựa trên tổng hợp cả 3 thuật toán (với khoảng số mà người dùng chọn, nếu có)
+        CompletableFuture<DashboardStatsDTO.RecommendationDTO> recommendationFuture = runSection(SECTION_RECOMMENDATION, timings,
+                () -> calculateRecommendation(rangeSize));
+        
+        // 6. Dự báo nhanh với thuật toán và khoảng số tùy chỉnh
+        CompletableFuture<DashboardStatsDTO.QuickForecastDTO> forecastFuture = runSection(SECTION_QUICK_FORECAST, timings,
+                () -> calculateQuickForecast(algorithm, rangeSize));
+        
+        // Ghép kết quả
+        List<String> failedSections = new ArrayList<>();
+        DashboardStatsDTO stats = new DashboardStatsDTO();
+        stats.setTotalDays(awaitSection(SECTION_TOTAL_DAYS, totalDaysFuture, failedSections));
+        
+        Optional<LocalDate> lastUpdateDateOpt = awaitSection(SECTION_LAST_UPDATE, lastUpdateFuture, failedSections);
+        if (lastUpdateDateOpt != null) {
+            stats.setLastUpdateDate(lastUpdateDateOpt.map(date -> date.format(DATE_FORMATTER)).orElse("Chưa có dữ liệu"));
+        }
+        
+        stats.setTopLoGan(awaitSection(SECTION_TOP_LO_GAN, topLoGanFuture, failedSections));
+        stats.setTopLoHot(awaitSection(SECTION_TOP_LO_HOT, topLoHotFuture, failedSections));
         
-        // 5. Dự báo nhanh với thuật toán và khoảng số tùy chỉnh
-        // 6. Tính toán gợi ý dựa trên tổng hợp cả 3 thuật toán
-        // Tính recommendation với khoảng số mà người dùng chọn (nếu có)
-        DashboardStatsDTO.RecommendationDTO recommendation = calculateRecommendation(rangeSize);
+        DashboardStatsDTO.RecommendationDTO recommendation = awaitSection(SECTION_RECOMMENDATION, recommendationFuture, failedSections);
         stats.setRecommendation(recommendation);
         
-        // Nếu người dùng chọn đúng thuật toán và khoảng số được đề xuất, dùng kết quả từ recommendation
-        DashboardStatsDTO.QuickForecastDTO forecast;
-        if (algorithm != null && algorithm.equals(recommendation.getRecommendedAlgorithm()) 
-            && rangeSize != null && rangeSize.equals(recommendation.getRecommendedRangeSize())) {
-            // Dùng kết quả từ recommendation
-            forecast = new DashboardStatsDTO.QuickForecastDTO();
-            forecast.setAlgorithmUsed(recommendation.getRecommendedAlgorithm());
+        DashboardStatsDTO.QuickForecastDTO forecast = awaitSection(SECTION_QUICK_FORECAST, forecastFuture, failedSections);
+        alignWithRecommendation(forecast, recommendation, rangeSize);
+        stats.setQuickForecast(forecast);
+        
+        // Thời gian từng phần theo thứ tự cố định + tổng thời gian
+        Map<String, Double> orderedTimings = new LinkedHashMap<>();
+        for (String section : SECTIONS) {
+            orderedTimings.put(section, timings.get(section));
+        }
+        orderedTimings.put("total", elapsedMillis(startNanos));
+        stats.setSectionTimings(orderedTimings);
+        stats.setFailedSections(failedSections);
+        
+        return stats;
+    }
+    
+    /**
+     * Nếu người dùng chọn đúng thuật toán và khoảng số được đề xuất, dùng kết quả từ recommendation
+     */
+    private static void alignWithRecommendation(DashboardStatsDTO.QuickForecastDTO forecast,
+                                                DashboardStatsDTO.RecommendationDTO recommendation, Integer rangeSize) {
+        if (forecast != null && recommendation != null
+            && forecast.getAlgorithmUsed().equals(recommendation.getRecommendedAlgorithm())
+            && normalizeRangeSize(rangeSize) == recommendation.getRecommendedRangeSize()) {
             forecast.setRangeStart(recommendation.getRecommendedRangeStart());
             forecast.setRangeEnd(recommendation.getRecommendedRangeEnd());
             forecast.setConfidenceScore(recommendation.getRecommendedConfidenceScore());
-        } else {
-            // Tính toán riêng dựa trên lựa chọn của người dùng
-            forecast = calculateQuickForecast(algorithm, rangeSize, recommendation);
         }
-        stats.setQuickForecast(forecast);
-        
-        return stats;
+    }
+    
+    /**
+     * Có ngày quay mới: lưu dự đoán (tham số mặc định) cho ngày kế tiếp để chấm điểm khi có kết quả.
+     * Chỉ khi ngày vừa lưu là ngày mới nhất và ngày đích chưa qua, nên cào bù lịch sử không sinh dự đoán
+     * "sau khi đã biết kết quả". Chạy sau các chỉ mục và mô hình (Order 3), tính trên dashboardExecutor.
+     */
+    @Order(3)
+    @EventListener
+    public void recordNextDrawPredictions(DrawSavedEvent event) {
+        LocalDate drawDate = event.getResult().getDrawDate();
+        LocalDate targetDate = drawDate.plusDays(1);
+        if (!drawDate.equals(datasetVersionTracker.current().getLatestDrawDate())
+                || targetDate.isBefore(LocalDate.now())) {
+            return;
+        }
+        dashboardExecutor.execute(() -> {
+            try {
+                DashboardStatsDTO.RecommendationDTO recommendation = calculateRecommendation(null);
+                DashboardStatsDTO.QuickForecastDTO forecast = calculateQuickForecast(null, null);
+                alignWithRecommendation(forecast, recommendation, null);
+                predictionLogService.recordPrediction(recommendation.getRecommendedAlgorithm(),
+                        recommendation.getRecommendedRangeStart(), recommendation.getRecommendedRangeEnd(),
+                        recommendation.getRecommendedConfidenceScore(), targetDate);
+                // Mỗi thuật toán chỉ có một dự đoán cho mỗi ngày (unique algorithm_used + target_date):
+                // dự báo nhanh cùng thuật toán với gợi ý thì bản gợi ý đã được lưu, không ghi thêm
+                String forecastAlgorithm = PredictionAlgorithm.fromName(forecast.getAlgorithmUsed()).getDisplayName();
+                if (forecastAlgorithm.equals(recommendation.getRecommendedAlgorithm())) {
+                    log.debug("Bỏ qua lưu dự báo nhanh {} [{}-{}] cho ngày {}: trùng thuật toán với gợi ý đã lưu",
+                            forecastAlgorithm, forecast.getRangeStart(), forecast.getRangeEnd(), targetDate);
+                    return;
+                }
+                predictionLogService.recordPrediction(forecastAlgorithm,
+                        forecast.getRangeStart(), forecast.getRangeEnd(),
+                        forecast.getConfidenceScore(), targetDate);
+            } catch (RuntimeException e) {
+                log.warn("Không lưu được dự đoán cho ngày {}: {}", targetDate, e.toString());
+            }
+        });
+    }
+    
+    /**
+     * orTimeout chỉ hoàn thành future, không dừng việc đang chạy: giữ lại Future của task để khi quá hạn
+     * thì hủy (chưa chạy thì bỏ khỏi hàng đợi, đang chạy thì ngắt), không chiếm thread của dashboardExecutor
+     */
+    private <T> CompletableFuture<T> runSection(String section, Map<String, Double> timings, Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = dashboardExecutor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                timings.put(section, elapsedMillis(start));
+            }
+        });
+        result.orTimeout(sectionTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        task.cancel(true);
+                    }
+                });
+        return result;
+    }
+    
+    private <T> T awaitSection(String section, CompletableFuture<T> future, List<String> failedSections) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            log.warn("Không tính được phần {} của dashboard: {}", section, e.getCause() != null ? e.getCause().toString() : e.toString());
+            failedSections.add(section);
+            return null;
+        }
+    }
+    
+    private static double elapsedMillis(long startNanos) {
+        return Math.round((System.nanoTime() - startNanos) / 1_000.0) / 1_000.0;
+    }
+    
+    private static int normalizeRangeSize(Integer rangeSize) {
+        if (rangeSize == null || rangeSize < 10 || rangeSize > 60) {
+            return 20; // Mặc định 20 số
+        }
+        return rangeSize;
     }
     
     /**
      * Tính toán dự báo nhanh dựa trên thuật toán và khoảng số được chọn
-     * @param recommendation Được truyền vào để có thể tái sử dụng kết quả nếu trùng
+     * (việc tái sử dụng kết quả recommendation khi trùng được xử lý ở alignWithRecommendation)
      */
-    private DashboardStatsDTO.QuickForecastDTO calculateQuickForecast(String algorithm, Integer rangeSize, DashboardStatsDTO.RecommendationDTO recommendation) {
+    private DashboardStatsDTO.QuickForecastDTO calculateQuickForecast(String algorithm, Integer rangeSize) {
         // Validate và set giá trị mặc định
         if (algorithm == null || algorithm.trim().isEmpty()) {
             algorithm = "Frequency Analysis";
         }
         
-        if (rangeSize == null || rangeSize < 10 || rangeSize > 60) {
-            rangeSize = 20; // Mặc định 20 số
-        }
+        rangeSize = normalizeRangeSize(rangeSize);
         
         DashboardStatsDTO.QuickForecastDTO forecast = new DashboardStatsDTO.QuickForecastDTO();
         forecast.setAlgorithmUsed(algorithm);
         
-        // Nếu trùng với recommendation, dùng kết quả từ đó
-        if (recommendation != null 
-            && algorithm.equals(recommendation.getRecommendedAlgorithm()) 
-            && rangeSize.equals(recommendation.getRecommendedRangeSize())) {
-            forecast.setRangeStart(recommendation.getRecommendedRangeStart());
-            forecast.setRangeEnd(recommendation.getRecommendedRangeEnd());
-            forecast.setConfidenceScore(recommendation.getRecommendedConfidenceScore());
-            return forecast;
-        }
-        
-        // Tính toán dựa trên thuật toán được chọn
-        // Sử dụng seed giống như trong calculateRecommendation để đảm bảo kết quả nhất quán
-        LocalDate today = LocalDate.now();
-        long seed = today.toEpochDay() + algorithm.hashCode() + rangeSize;
-        
-        int rangeStart;
-        int rangeEnd;
-        double confidenceScore;
-        
-        switch (algorithm) {
-            case "Long Short-Term Memory":
-            case "LSTM":
-                // Giả lập kết quả LSTM (thực tế cần implement model LSTM)
-                rangeStart = generateLSTMPrediction(rangeSize, seed);
-                rangeEnd = rangeStart + rangeSize - 1;
-                // Độ tin cậy thay đổi theo khoảng số: khoảng lớn hơn = độ tin cậy cao hơn
-                // Base confidence: 0.70, tăng dần theo rangeSize (10 số = 0.70, 60 số = 0.90)
-                confidenceScore = 0.70 + (rangeSize - 10) * (0.20 / 50.0); // 0.70 -> 0.90
-                break;
-                
-            case "Markov Chains":
-            case "Markov":
-                // Giả lập kết quả Markov Chains
-                rangeStart = generateMarkovPrediction(rangeSize, seed);
-                rangeEnd = rangeStart + rangeSize - 1;
-                // Base confidence: 0.65, tăng dần theo rangeSize (10 số = 0.65, 60 số = 0.85)
-                confidenceScore = 0.65 + (rangeSize - 10) * (0.20 / 50.0); // 0.65 -> 0.85
-                break;
-                
-            case "Frequency Analysis":
-            default:
-                // Giả lập kết quả Frequency Analysis
-                rangeStart = generateFrequencyPrediction(rangeSize, seed);
-                rangeEnd = rangeStart + rangeSize - 1;
-                // Base confidence: 0.60, tăng dần theo rangeSize (10 số = 0.60, 60 số = 0.80)
-                confidenceScore = 0.60 + (rangeSize - 10) * (0.20 / 50.0); // 0.60 -> 0.80
-                break;
-        }
-        
-        // Đảm bảo rangeEnd không vượt quá 99
-        if (rangeEnd > 99) {
-            rangeEnd = 99;
-            rangeStart = rangeEnd - rangeSize + 1;
-            if (rangeStart < 0) {
-                rangeStart = 0;
-            }
-        }
-        
+        // Khoảng dự đoán lấy từ bộ dự đoán sau khi đã chạy hết lịch sử,
+        // độ tin cậy là tỷ lệ trúng thực tế khi chạy lại lịch sử (backtest)
+        BacktestResult result = backtestEngine.getResult(PredictionAlgorithm.fromName(algorithm), rangeSize);
+        int rangeStart = nextRangeStart(result);
         forecast.setRangeStart(rangeStart);
-        forecast.setRangeEnd(rangeEnd);
-        forecast.setConfidenceScore(confidenceScore);
+        forecast.setRangeEnd(rangeStart + rangeSize - 1);
+        forecast.setConfidenceScore(result.getHitRate());
         
         return forecast;
     }
     
     /**
-     * Tính toán gợi ý dựa trên tổng hợp cả 3 thuật toán
-     * Nếu rangeSize được cung cấp: so sánh các thuật toán với khoảng số đó và chọn thuật toán tốt nhất
-     * Nếu rangeSize không được cung cấp: so sánh tất cả các tổ hợp và chọn tổ hợp tốt nhất
-     * Sử dụng seed cố định để đảm bảo kết quả nhất quán
+     * Tính toán gợi ý dựa trên kết quả backtest của cả 3 thuật toán
+     * Nếu rangeSize được cung cấp: so sánh tỷ lệ trúng của các thuật toán với khoảng số đó
+     * Nếu rangeSize không được cung cấp: so sánh tất cả các tổ hợp theo mức vượt so với chọn ngẫu nhiên
+     * (khoảng càng rộng càng dễ trúng nên không so sánh tỷ lệ trúng trực tiếp)
      */
     private DashboardStatsDTO.RecommendationDTO calculateRecommendation(Integer userRangeSize) {
-        String[] algorithms = {"Frequency Analysis", "Long Short-Term Memory", "Markov Chains"};
-        
-        // Nếu người dùng đã chọn khoảng số, chỉ so sánh các thuật toán với khoảng số đó
-        // Nếu không, so sánh tất cả các khoảng số từ 10-60
-        int[] rangeSizes;
-        if (userRangeSize != null && userRangeSize >= 10 && userRangeSize <= 60) {
-            rangeSizes = new int[]{userRangeSize};
-        } else {
-            rangeSizes = new int[]{10, 15, 20, 25, 30, 35, 40, 45, 50, 55, 60};
-        }
-        
-        String bestAlgorithm = "Frequency Analysis";
-        int bestRangeSize = userRangeSize != null && userRangeSize >= 10 && userRangeSize <= 60 ? userRangeSize : 20;
-        int bestRangeStart = 60;
-        int bestRangeEnd = 80;
-        double bestScore = 0.0;
+        boolean hasUserRangeSize = userRangeSize != null && userRangeSize >= 10 && userRangeSize <= 60;
+        int[] rangeSizes = hasUserRangeSize ? new int[]{userRangeSize} : BacktestEngine.RANGE_SIZES;
         
-        // Sử dụng seed cố định dựa trên ngày hiện tại để đảm bảo kết quả nhất quán trong cùng một ngày
-        LocalDate today = LocalDate.now();
-        long seed = today.toEpochDay(); // Seed dựa trên ngày
-        
-        // Tính toán điểm số cho mỗi tổ hợp (thuật toán, khoảng số)
-        for (String algo : algorithms) {
+        BacktestResult best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (PredictionAlgorithm algorithm : PredictionAlgorithm.values()) {
             for (int rangeSize : rangeSizes) {
-                // Tính dự báo với thuật toán và khoảng số này (dùng seed để nhất quán)
-                int rangeStart = 0;
-                double confidenceScore = 0.0;
-                
-                switch (algo) {
-                    case "Long Short-Term Memory":
-                        rangeStart = generateLSTMPrediction(rangeSize, seed + algo.hashCode() + rangeSize);
-                        // Độ tin cậy thay đổi theo khoảng số: khoảng lớn hơn = độ tin cậy cao hơn
-                        // Base confidence: 0.70, tăng dần theo rangeSize (10 số = 0.70, 60 số = 0.90)
-                        confidenceScore = 0.70 + (rangeSize - 10) * (0.20 / 50.0); // 0.70 -> 0.90
-                        break;
-                    case "Markov Chains":
-                        rangeStart = generateMarkovPrediction(rangeSize, seed + algo.hashCode() + rangeSize);
-                        // Base confidence: 0.65, tăng dần theo rangeSize (10 số = 0.65, 60 số = 0.85)
-                        confidenceScore = 0.65 + (rangeSize - 10) * (0.20 / 50.0); // 0.65 -> 0.85
-                        break;
-                    case "Frequency Analysis":
-                    default:
-                        rangeStart = generateFrequencyPrediction(rangeSize, seed + algo.hashCode() + rangeSize);
-                        // Base confidence: 0.60, tăng dần theo rangeSize (10 số = 0.60, 60 số = 0.80)
-                        confidenceScore = 0.60 + (rangeSize - 10) * (0.20 / 50.0); // 0.60 -> 0.80
-                        break;
-                }
-                
-                int rangeEnd = rangeStart + rangeSize - 1;
-                if (rangeEnd > 99) {
-                    rangeEnd = 99;
-                    rangeStart = rangeEnd - rangeSize + 1;
-                    if (rangeStart < 0) {
-                        rangeStart = 0;
-                    }
-                }
-                
-                // Tính điểm số: nếu người dùng đã chọn khoảng số, chỉ so sánh độ tin cậy
-                // Nếu không, ưu tiên độ tin cậy cao và khoảng số nhỏ hơn
-                double score;
-                if (userRangeSize != null && userRangeSize >= 10 && userRangeSize <= 60) {
-                    // Chỉ so sánh độ tin cậy khi khoảng số đã được chọn
-                    score = confidenceScore;
-                } else {
-                    // Ưu tiên độ tin cậy cao và khoảng số nhỏ hơn khi chưa chọn khoảng số
-                    score = confidenceScore - (rangeSize / 100.0) * 0.1;
-                }
-                
+                BacktestResult result = backtestEngine.getResult(algorithm, rangeSize);
+                double score = hasUserRangeSize ? result.getHitRate() : result.getLift();
                 if (score > bestScore) {
                     bestScore = score;
-                    bestAlgorithm = algo;
-                    bestRangeSize = rangeSize;
-                    bestRangeStart = rangeStart;
-                    bestRangeEnd = rangeEnd;
+                    best = result;
                 }
             }
         }
         
-        // Tính lại độ tin cậy cho recommendation dựa trên bestAlgorithm và bestRangeSize
-        double finalConfidenceScore;
-        switch (bestAlgorithm) {
-            case "Long Short-Term Memory":
-                finalConfidenceScore = 0.70 + (bestRangeSize - 10) * (0.20 / 50.0);
-                break;
-            case "Markov Chains":
-                finalConfidenceScore = 0.65 + (bestRangeSize - 10) * (0.20 / 50.0);
-                break;
-            case "Frequency Analysis":
-            default:
-                finalConfidenceScore = 0.60 + (bestRangeSize - 10) * (0.20 / 50.0);
-                break;
-        }
-        
         // Tạo lý do đề xuất
         String reason;
-        if (userRangeSize != null && userRangeSize >= 10 && userRangeSize <= 60) {
+        if (hasUserRangeSize) {
             // Nếu người dùng đã chọn khoảng số, gợi ý thuật toán tốt nhất cho khoảng số đó
-            reason = String.format("Với khoảng %d số, %s cho độ tin cậy cao nhất (%.0f%%)", 
-                    bestRangeSize, bestAlgorithm, finalConfidenceScore * 100);
+            reason = String.format("Với khoảng %d số, %s có tỷ lệ trúng cao nhất khi chạy lại %d ngày lịch sử (%.0f%%)", 
+                    best.getRangeSize(), best.getAlgorithm().getDisplayName(), best.getTrials(), best.getHitRate() * 100);
         } else {
-            // Nếu chưa chọn khoảng số, gợi ý tổ hợp tốt nhất
-            reason = String.format("Dựa trên phân tích tổng hợp, %s với khoảng %d số cho độ tin cậy cao nhất (%.0f%%)", 
-                    bestAlgorithm, bestRangeSize, finalConfidenceScore * 100);
+            // Nếu chưa chọn khoảng số, gợi ý tổ hợp vượt ngẫu nhiên nhiều nhất
+            reason = String.format("Dựa trên chạy lại %d ngày lịch sử, %s với khoảng %d số trúng %.0f%% (ngẫu nhiên: %d%%)", 
+                    best.getTrials(), best.getAlgorithm().getDisplayName(), best.getRangeSize(),
+                    best.getHitRate() * 100, best.getRangeSize());
         }
         
+        int rangeStart = nextRangeStart(best);
         DashboardStatsDTO.RecommendationDTO recommendation = new DashboardStatsDTO.RecommendationDTO();
-        recommendation.setRecommendedAlgorithm(bestAlgorithm);
-        recommendation.setRecommendedRangeSize(bestRangeSize);
-        recommendation.setRecommendedRangeStart(bestRangeStart);
-        recommendation.setRecommendedRangeEnd(bestRangeEnd);
-        recommendation.setRecommendedConfidenceScore(finalConfidenceScore);
+        recommendation.setRecommendedAlgorithm(best.getAlgorithm().getDisplayName());
+        recommendation.setRecommendedRangeSize(best.getRangeSize());
+        recommendation.setRecommendedRangeStart(rangeStart);
+        recommendation.setRecommendedRangeEnd(rangeStart + best.getRangeSize() - 1);
+        recommendation.setRecommendedConfidenceScore(best.getHitRate());
         recommendation.setReason(reason);
         
         return recommendation;
     }
     
     /**
-     * Giả lập dự đoán bằng Frequency Analysis (với seed để nhất quán)
+     * Khoảng dự đoán cho ngày tiếp theo: Markov lấy từ mô hình đang phục vụ (có thể là bậc 2),
+     * Frequency Analysis tra bảng tổng tiền tố trên FrequencyPredictor.LOOKBACK ngày gần nhất (O(100)),
+     * các thuật toán khác lấy từ trạng thái cuối của backtest
      */
-    private int generateFrequencyPrediction(int rangeSize, long seed) {
-        // Dùng seed để tạo số pseudo-random nhất quán
-        java.util.Random random = new java.util.Random(seed);
-        return 60 + random.nextInt(21); // Khoảng 60-80
-    }
-    
-    /**
-     * Giả lập dự đoán bằng LSTM (với seed để nhất quán)
-     */
-    private int generateLSTMPrediction(int rangeSize, long seed) {
-        java.util.Random random = new java.util.Random(seed);
-        return 55 + random.nextInt(26); // Khoảng 55-80
-    }
-    
-    /**
-     * Giả lập dự đoán bằng Markov Chains (với seed để nhất quán)
-     */
-    private int generateMarkovPrediction(int rangeSize, long seed) {
-        java.util.Random random = new java.util.Random(seed);
-        return 50 + random.nextInt(31); // Khoảng 50-80
-    }
-    
-    /**
-     * Giả lập dự đoán bằng Frequency Analysis (overload không seed - dùng cho backward compatibility)
-     */
-    private int generateFrequencyPrediction(int rangeSize) {
-        // Dựa trên tần suất xuất hiện trong 30 ngày gần nhất
-        // Giả lập: chọn khoảng có tần suất cao nhất
-        LocalDate today = LocalDate.now();
-        long seed = today.toEpochDay();
-        return generateFrequencyPrediction(rangeSize, seed);
-    }
-    
-    /**
-     * Giả lập dự đoán bằng LSTM (overload không seed)
-     */
-    private int generateLSTMPrediction(int rangeSize) {
-        // LSTM thường dự đoán dựa trên pattern dài hạn
-        // Giả lập: phân tích chuỗi thời gian
-        LocalDate today = LocalDate.now();
-        long seed = today.toEpochDay();
-        return generateLSTMPrediction(rangeSize, seed);
-    }
-    
-    /**
-     * Giả lập dự đoán bằng Markov Chains (overload không seed)
-     */
-    private int generateMarkovPrediction(int rangeSize) {
-        // Markov Chains dựa trên xác suất chuyển trạng thái
-        // Giả lập: tính toán xác suất chuyển tiếp
-        LocalDate today = LocalDate.now();
-        long seed = today.toEpochDay();
-        return generateMarkovPrediction(rangeSize, seed);
+    private int nextRangeStart(BacktestResult result) {
+        switch (result.getAlgorithm()) {
+            case FREQUENCY:
+                return frequencyIndex.bestWindowStartInLastDays(result.getRangeSize(), FrequencyPredictor.LOOKBACK);
+            case MARKOV:
+                return markovModel.predictStart(result.getRangeSize());
+            default:
+                return result.getNextRangeStart();
+        }
     }
     
     /**
-     * Tính Top Lô Gan
+     * Tính Top Lô Gan (đọc từ chỉ mục bitset in-memory, không truy vấn database)
      * Nếu filterStartDate != null: chỉ tính các số chưa về từ filterStartDate đến today
      * Nếu filterStartDate == null: tính tất cả các số chưa về
      */
     private List<DashboardStatsDTO.LotoGanDTO> calculateTopLoGan(LocalDate filterStartDate, LocalDate today) {
         List<DashboardStatsDTO.LotoGanDTO> topLoGan = new ArrayList<>();
         
-        // Lấy tất cả các số lô đã từng xuất hiện (00-99)
-        List<Integer> allNumbers = new ArrayList<>();
-        for (int i = 0; i <= 99; i++) {
-            allNumbers.add(i);
-        }
-        
-        for (Integer number : allNumbers) {
-            LocalDate lastAppearance;
-            long daysSince;
+        for (int number = 0; number < LotoPresenceIndex.NUMBER_COUNT; number++) {
+            LocalDate lastAppearance = lotoPresenceIndex.findLastAppearanceDate(number);
+            if (lastAppearance == null) {
+                // Số này chưa bao giờ xuất hiện, bỏ qua
+                continue;
+            }
             
-            if (filterStartDate != null) {
-                // Tìm ngày xuất hiện gần nhất của số này (tất cả thời gian)
-                LocalDate lastAppearanceOverall = lotoDigitRepository.findLastAppearanceDate(number);
-                
-                // Chỉ tính các số ĐÃ TỪNG XUẤT HIỆN trước filterStartDate
-                // (không tính các số chưa bao giờ xuất hiện)
-                if (lastAppearanceOverall == null) {
-                    // Số này chưa bao giờ xuất hiện, bỏ qua
-                    continue;
-                }
-                
-                // Kiểm tra xem số này có xuất hiện trong khoảng filterStartDate đến today không
-                Long countInRange = lotoDigitRepository.countAppearancesInRange(number, filterStartDate, today);
-                boolean hasAppearedInRange = (countInRange != null && countInRange > 0);
-                
-                if (hasAppearedInRange) {
-                    // Số này đã xuất hiện trong khoảng filterStartDate đến today, không tính vào Lô Gan
-                    continue;
-                }
-                
-                // Kiểm tra xem lastAppearanceOverall có trước filterStartDate không
-                if (lastAppearanceOverall.isBefore(filterStartDate)) {
-                    // Số này đã về trước filterStartDate và chưa về lại từ filterStartDate đến today
-                    // Tính số ngày từ lastAppearanceOverall đến today
-                    daysSince = java.time.temporal.ChronoUnit.DAYS.between(lastAppearanceOverall, today);
-                    lastAppearance = lastAppearanceOverall;
-                } else {
-                    // Trường hợp này không nên xảy ra vì đã kiểm tra hasAppearedInRange ở trên
-                    // Nhưng để an toàn, bỏ qua
-                    continue;
-                }
-            } else {
-                // Không có filter, tính như cũ
-                lastAppearance = lotoDigitRepository.findLastAppearanceDate(number);
-                if (lastAppearance == null) {
-                    // Số này chưa bao giờ xuất hiện, bỏ qua (hoặc có thể tính từ ngày đầu tiên có dữ liệu)
-                    continue;
-                }
-                daysSince = java.time.temporal.ChronoUnit.DAYS.between(lastAppearance, today);
+            // Có filter: chỉ tính các số đã về trước filterStartDate và chưa về lại từ filterStartDate đến today
+            if (filterStartDate != null && !lastAppearance.isBefore(filterStartDate)) {
+                continue;
             }
             
             DashboardStatsDTO.LotoGanDTO gan = new DashboardStatsDTO.LotoGanDTO();
             gan.setNumber(number);
-            gan.setDaysSinceLastAppearance(daysSince);
-            if (lastAppearance != null) {
-                gan.setLastAppearanceDate(lastAppearance.format(DATE_FORMATTER));
-            } else {
-                gan.setLastAppearanceDate("Chưa từng xuất hiện");
-            }
+            gan.setDaysSinceLastAppearance(ChronoUnit.DAYS.between(lastAppearance, today));
+            gan.setLastAppearanceDate(lastAppearance.format(DATE_FORMATTER));
             topLoGan.add(gan);
         }
         
@@ -446,7 +462,7 @@ public class DashboardServiceImpl implements DashboardService {
         topLoGan.sort(Comparator.comparing(DashboardStatsDTO.LotoGanDTO::getDaysSinceLastAppearance).reversed());
         
         // Lấy top 10
-        return topLoGan.stream().limit(10).collect(Collectors.toList());
+        return topLoGan.stream().limit(TOP_LIMIT).collect(Collectors.toList());
     }
     
     /**
@@ -470,25 +486,47 @@ public class DashboardServiceImpl implements DashboardService {
             toDate = today;
         }
         
-        List<DashboardStatsDTO.LotoHotDTO> topLoHot = new ArrayList<>();
-        List<Integer> allNumbers = lotoDigitRepository.findAllDistinctNumbers();
-        
-        for (Integer number : allNumbers) {
-            // Đếm số lần xuất hiện trong khoảng thời gian (dùng countAppearancesInRange cho cả hai trường hợp)
-            Long frequency = lotoDigitRepository.countAppearancesInRange(number, fromDate, toDate);
-            if (frequency != null && frequency > 0) {
-                DashboardStatsDTO.LotoHotDTO hot = new DashboardStatsDTO.LotoHotDTO();
-                hot.setNumber(number);
-                hot.setFrequency(frequency);
-                topLoHot.add(hot);
+        // Đếm tần suất của tất cả các số bằng một truy vấn GROUP BY
+        List<Object[]> counts = lotoDigitRepository.countAppearancesGroupedInRange(fromDate, toDate);
+        
+        // Giữ top 10 bằng min-heap giới hạn kích thước (phần tử "yếu" nhất ở đỉnh heap)
+        // Cùng tần suất thì số nhỏ hơn được ưu tiên
+        Comparator<DashboardStatsDTO.LotoHotDTO> weakestFirst = Comparator
+                .comparing(DashboardStatsDTO.LotoHotDTO::getFrequency)
+                .thenComparing(DashboardStatsDTO.LotoHotDTO::getNumber, Comparator.reverseOrder());
+        PriorityQueue<DashboardStatsDTO.LotoHotDTO> heap = new PriorityQueue<>(TOP_LIMIT + 1, weakestFirst);
+        
+        for (Object[] row : counts) {
+            Integer number = (Integer) row[0];
+            Long frequency = (Long) row[1];
+            if (number == null || frequency == null || frequency <= 0) {
+                continue;
+            }
+            DashboardStatsDTO.LotoHotDTO hot = new DashboardStatsDTO.LotoHotDTO(number, frequency);
+            if (heap.size() < TOP_LIMIT) {
+                heap.offer(hot);
+            } else if (weakestFirst.compare(hot, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(hot);
             }
         }
         
         // Sắp xếp theo tần suất (nhiều nhất trước)
-        topLoHot.sort(Comparator.comparing(DashboardStatsDTO.LotoHotDTO::getFrequency).reversed());
-        
-        // Lấy top 10 (thay vì top 5 như trước)
-        return topLoHot.stream().limit(10).collect(Collectors.toList());
+        List<DashboardStatsDTO.LotoHotDTO> topLoHot = new ArrayList<>(heap);
+        topLoHot.sort(weakestFirst.reversed());
+        return topLoHot;
     }
-}
-
+    
+    /**
+     * Key của cache thống kê dashboard
+     */
+    @lombok.Value
+    private static class DashboardStatsKey {
+        YearMonth loGanMonth;
+        YearMonth loHotMonth;
+        String algorithm;
+        Integer rangeSize;
+        LocalDate today;
+        DatasetVersion version;
+    }
+}
\ No newline at end of file
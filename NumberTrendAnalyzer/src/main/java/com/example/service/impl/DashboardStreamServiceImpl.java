@@ -0,0 +1,223 @@
+package com.example.service.impl;
+
+import com.example.cache.DatasetVersion;
+import com.example.cache.DatasetVersionTracker;
+import com.example.domain.LotteryDailyResult;
+import com.example.dto.LotteryDataDTO;
+import com.example.dto.response.DashboardStatsDTO;
+import com.example.dto.response.DashboardUpdateDTO;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.LotteryDailyResultRepository;
+import com.example.service.CrawlerService;
+import com.example.service.DashboardService;
+import com.example.service.DashboardStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Đẩy kết quả mới + thống kê dashboard tới các client SSE mỗi khi có ngày mới nhất được lưu,
+ * hoặc dữ liệu cũ bị ghi đè (reparse) thì đẩy lại bản làm mới cho ngày mới nhất.
+ * Payload được tính và serialize một lần rồi gửi nguyên chuỗi JSON cho mọi client.
+ * Khi cào nhiều ngày liên tiếp, các sự kiện dồn lại chỉ tạo một lần gửi cho ngày mới nhất.
+ */
+@Slf4j
+@Service
+public class DashboardStreamServiceImpl implements DashboardStreamService {
+
+    private static final String EVENT_NAME = "dashboard-update";
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private CrawlerService crawlerService;
+
+    @Autowired
+    private DatasetVersionTracker datasetVersionTracker;
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("streamExecutor")
+    private ExecutorService streamExecutor;
+
+    @Value("${dashboard.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Ngày mới nhất chưa được đẩy đi, yêu cầu làm mới sau khi ghi đè và cờ đánh dấu đang có tác vụ đẩy
+    private final AtomicReference<LotteryDailyResult> pending = new AtomicReference<>();
+    private final AtomicBoolean refreshRequested = new AtomicBoolean(false);
+    private final AtomicBoolean publishing = new AtomicBoolean(false);
+
+    // Bản cập nhật gần nhất (gửi ngay cho client mới đăng ký)
+    private volatile Payload lastPayload;
+
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        // Gửi ngay một sự kiện để header được flush và client biết đã kết nối
+        Payload payload = lastPayload;
+        if (payload != null) {
+            send(emitter, payload);
+        } else {
+            sendComment(emitter, "connected");
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    /**
+     * Chạy sau cùng để các chỉ mục và cache đã được cập nhật cho ngày mới;
+     * phần tính toán và gửi chạy trên streamExecutor, không chặn luồng cào dữ liệu.
+     * Cào bù ngày cũ (không phải ngày mới nhất) không đẩy gì, giống recordNextDrawPredictions.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onDrawSaved(DrawSavedEvent event) {
+        if (emitters.isEmpty()) {
+            lastPayload = null;
+            return;
+        }
+        LotteryDailyResult result = event.getResult();
+        if (!result.getDrawDate().equals(datasetVersionTracker.current().getLatestDrawDate())) {
+            return;
+        }
+        pending.accumulateAndGet(result, (current, next) ->
+                current == null || next.getDrawDate().isAfter(current.getDrawDate()) ? next : current);
+        schedulePublish();
+    }
+
+    /**
+     * Dữ liệu cũ bị ghi đè: thống kê (và có thể cả kết quả ngày mới nhất) đã đổi,
+     * đẩy lại bản cập nhật đọc từ database cho ngày mới nhất
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onDrawsReplaced(DrawsReplacedEvent event) {
+        if (emitters.isEmpty()) {
+            lastPayload = null;
+            return;
+        }
+        refreshRequested.set(true);
+        schedulePublish();
+    }
+
+    private void schedulePublish() {
+        if (publishing.compareAndSet(false, true)) {
+            streamExecutor.execute(this::drainPending);
+        }
+    }
+
+    private void drainPending() {
+        try {
+            while (true) {
+                LotteryDailyResult result = pending.getAndSet(null);
+                boolean refresh = refreshRequested.getAndSet(false);
+                if (result == null && !refresh) break;
+                try {
+                    // Có yêu cầu làm mới thì bản trong event có thể đã cũ: đọc lại ngày mới nhất từ database
+                    if (refresh) {
+                        result = loadLatest();
+                    }
+                    if (result == null) continue; // Database rỗng sau khi ghi đè
+                    Payload payload = buildPayload(result);
+                    lastPayload = payload;
+                    for (SseEmitter emitter : emitters) {
+                        streamExecutor.execute(() -> send(emitter, payload));
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Không tạo được bản cập nhật dashboard{}: {}",
+                            result != null ? " cho ngày " + result.getDrawDate() : "", e.toString());
+                }
+            }
+        } finally {
+            publishing.set(false);
+            // Sự kiện đến đúng lúc vừa thoát vòng lặp: chạy tiếp
+            if ((pending.get() != null || refreshRequested.get()) && publishing.compareAndSet(false, true)) {
+                streamExecutor.execute(this::drainPending);
+            }
+        }
+    }
+
+    // Kèm luôn danh sách lô (fetch join) vì chạy ngoài transaction
+    private LotteryDailyResult loadLatest() {
+        LocalDate latest = datasetVersionTracker.current().getLatestDrawDate();
+        if (latest == null) return null;
+        List<LotteryDailyResult> results = resultRepository.findWithDigitsBetween(latest, latest);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    private Payload buildPayload(LotteryDailyResult result) {
+        DatasetVersion version = datasetVersionTracker.current();
+        LotteryDataDTO lottery = crawlerService.toLotteryData(result);
+        DashboardStatsDTO stats = dashboardService.getDashboardStats(null, null, null, null);
+        DashboardUpdateDTO update = new DashboardUpdateDTO(
+                version.getLatestDrawDate() + "/" + version.getRowCount() + "/" + version.getRevision() + "#" + version.getGeneration(),
+                lottery,
+                stats);
+        return new Payload(String.valueOf(version.getGeneration()), objectMapper.writeValueAsString(update));
+    }
+
+    private void send(SseEmitter emitter, Payload payload) {
+        send(emitter, SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(payload.getId())
+                .data(payload.getJson(), MediaType.APPLICATION_JSON));
+    }
+
+    private void sendComment(SseEmitter emitter, String comment) {
+        send(emitter, SseEmitter.event().comment(comment));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            // Client đã ngắt kết nối
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // Emitter đã kết thúc (timeout/hoàn tất)
+            emitters.remove(emitter);
+        }
+    }
+
+    @lombok.Value
+    private static class Payload {
+        String id;
+        String json;
+    }
+}
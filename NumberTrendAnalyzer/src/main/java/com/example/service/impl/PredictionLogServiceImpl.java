@@ -0,0 +1,103 @@
+package com.example.service.impl;
+
+import com.example.domain.PredictionAccuracy;
+import com.example.domain.PredictionLog;
+import com.example.dto.response.PredictionAccuracyDTO;
+import com.example.event.DrawSavedEvent;
+import com.example.repository.PredictionAccuracyRepository;
+import com.example.repository.PredictionLogRepository;
+import com.example.service.PredictionLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class PredictionLogServiceImpl implements PredictionLogService {
+
+    @Autowired
+    private PredictionLogRepository predictionLogRepository;
+
+    @Autowired
+    private PredictionAccuracyRepository accuracyRepository;
+
+    /**
+     * Không dùng transaction bao ngoài: save tự commit, nên vi phạm unique constraint
+     * (hai luồng cùng lưu một dự đoán) được bắt ở đây mà không làm hỏng transaction nào
+     */
+    @Override
+    public void recordPrediction(String algorithm, int rangeStart, int rangeEnd,
+                                 double confidenceScore, LocalDate targetDate) {
+        if (predictionLogRepository.existsByTargetDateAndAlgorithmUsed(targetDate, algorithm)) {
+            log.debug("Dự đoán {} cho ngày {} đã có, bỏ qua [{}-{}]", algorithm, targetDate, rangeStart, rangeEnd);
+            return;
+        }
+        PredictionLog prediction = new PredictionLog();
+        prediction.setPredictionDate(LocalDate.now());
+        prediction.setTargetDate(targetDate);
+        prediction.setRangeStart(rangeStart);
+        prediction.setRangeEnd(rangeEnd);
+        prediction.setConfidenceScore(confidenceScore);
+        prediction.setAlgorithmUsed(algorithm);
+        try {
+            predictionLogRepository.save(prediction);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Dự đoán {} cho ngày {} đã được lưu", algorithm, targetDate);
+        }
+    }
+
+    /**
+     * Sau mỗi ngày được cào: chấm điểm các dự đoán cho ngày đó
+     */
+    @EventListener
+    @Transactional
+    public void onDrawSaved(DrawSavedEvent event) {
+        evaluatePendingPredictions();
+    }
+
+    /**
+     * Chấm điểm bằng 2 câu UPDATE theo tập (không nạp từng entity). Các dòng được cập nhật mang cùng
+     * mã lượt chấm, số đúng/đã chấm của lượt đó được cộng dồn vào prediction_accuracy.
+     */
+    @Override
+    @Transactional
+    public int evaluatePendingPredictions() {
+        String batch = UUID.randomUUID().toString();
+        int markedCorrect = predictionLogRepository.markCorrectPredictions(batch);
+        int markedIncorrect = predictionLogRepository.markRemainingIncorrect(batch);
+        if (markedCorrect + markedIncorrect == 0) return 0;
+
+        for (Object[] row : predictionLogRepository.countByAlgorithmInBatch(batch)) {
+            String algorithm = row[0] != null ? (String) row[0] : "Unknown";
+            long evaluated = ((Number) row[1]).longValue();
+            long correct = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            PredictionAccuracy accuracy = accuracyRepository.findById(algorithm)
+                    .orElseGet(() -> new PredictionAccuracy(algorithm, 0L, 0L));
+            accuracy.setEvaluatedCount(accuracy.getEvaluatedCount() + evaluated);
+            accuracy.setCorrectCount(accuracy.getCorrectCount() + correct);
+            accuracyRepository.save(accuracy);
+        }
+
+        log.info("Đã chấm {} dự đoán ({} đúng)", markedCorrect + markedIncorrect, markedCorrect);
+        return markedCorrect + markedIncorrect;
+    }
+
+    @Override
+    public List<PredictionAccuracyDTO> getAccuracySummary() {
+        return accuracyRepository.findAll().stream()
+                .map(a -> new PredictionAccuracyDTO(
+                        a.getAlgorithmUsed(),
+                        a.getEvaluatedCount(),
+                        a.getCorrectCount(),
+                        a.getEvaluatedCount() > 0 ? (double) a.getCorrectCount() / a.getEvaluatedCount() : null))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.analysis;
+
+import com.example.index.AnalysisDrawStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đối chiếu kết quả quét lưới (tổng tiền tố + cập nhật chuỗi tăng dần, chia phần song song)
+ * với cách tính trực tiếp từng khoảng trên dữ liệu ngẫu nhiên
+ */
+class RangeSweepEngineTest {
+
+    private static final int DAYS = 400;
+
+    private ForkJoinPool pool;
+    private RangeSweepEngine engine;
+    private AnalysisDrawStore.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        engine = new RangeSweepEngine();
+        ReflectionTestUtils.setField(engine, "backtestPool", pool);
+
+        Random random = new Random(7);
+        int[] epochDays = new int[DAYS];
+        byte[][] columns = new byte[AnalysisDrawStore.COLUMN_COUNT][DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            epochDays[i] = 18000 + i;
+            for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+                // Một ít ô trống, và cột G1 lệch về nửa dưới để có chuỗi dài
+                int value = column == AnalysisDrawStore.G1 ? random.nextInt(60) : random.nextInt(100);
+                columns[column][i] = random.nextInt(20) == 0 ? AnalysisDrawStore.NONE : (byte) value;
+            }
+        }
+        snapshot = new AnalysisDrawStore.Snapshot(epochDays, columns, DAYS, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void fullGridMatchesBruteForce() {
+        for (SweepMetric metric : SweepMetric.values()) {
+            assertMatchesBruteForce(0, DAYS, metric, 10, 3, Integer.MAX_VALUE, 1, 100);
+        }
+    }
+
+    @Test
+    void subRangeAndLimitsMatchBruteForce() {
+        assertMatchesBruteForce(37, 311, SweepMetric.FREQUENCY, 15, 2, 4, 20, 60);
+        assertMatchesBruteForce(100, 101, SweepMetric.LONGEST, 5, 1, Integer.MAX_VALUE, 1, 1);
+        assertMatchesBruteForce(0, DAYS, SweepMetric.HIT_RATE, 7, 3, Integer.MAX_VALUE, 40, 50);
+    }
+
+    @Test
+    void emptyRangeStillRanksIntervals() {
+        List<RangeSweepEngine.IntervalScore>[] best =
+                engine.sweep(snapshot, 50, 50, SweepMetric.LONGEST, 3, 3, Integer.MAX_VALUE, 1, 100);
+
+        // Mọi khoảng đều bằng 0: khoảng hẹp hơn, start nhỏ hơn đứng trước
+        assertThat(best[AnalysisDrawStore.DB]).extracting(RangeSweepEngine.IntervalScore::getStart)
+                .containsExactly(0, 1, 2);
+        assertThat(best[AnalysisDrawStore.DB]).allSatisfy(score -> assertThat(score.getHits()).isZero());
+    }
+
+    private void assertMatchesBruteForce(int from, int to, SweepMetric metric, int top,
+                                         int minStreak, int maxStreak, int minWidth, int maxWidth) {
+        List<RangeSweepEngine.IntervalScore>[] best =
+                engine.sweep(snapshot, from, to, metric, top, minStreak, maxStreak, minWidth, maxWidth);
+
+        for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+            List<RangeSweepEngine.IntervalScore> expected = new ArrayList<>();
+            for (int start = 0; start < 100; start++) {
+                for (int end = start + minWidth - 1; end < Math.min(100, start + maxWidth); end++) {
+                    expected.add(score(snapshot.column(column), from, to, start, end, minStreak, maxStreak));
+                }
+            }
+            expected.sort(order(metric).reversed());
+            assertThat(best[column])
+                    .as("%s, cột %d", metric, column)
+                    .containsExactlyElementsOf(expected.subList(0, Math.min(top, expected.size())));
+        }
+    }
+
+    // Duyệt thẳng các ngày của một khoảng
+    private static RangeSweepEngine.IntervalScore score(byte[] values, int from, int to, int start, int end,
+                                                        int minStreak, int maxStreak) {
+        int hits = 0;
+        int longest = 0;
+        int streaks = 0;
+        int run = 0;
+        for (int i = from; i <= to; i++) {
+            boolean hit = i < to && values[i] >= start && values[i] <= end;
+            if (hit) {
+                hits++;
+                run++;
+                continue;
+            }
+            longest = Math.max(longest, run);
+            if (run >= minStreak && run <= maxStreak) {
+                streaks++;
+            }
+            run = 0;
+        }
+        return new RangeSweepEngine.IntervalScore(start, end, hits, longest, streaks);
+    }
+
+    // Cùng thứ tự với engine: chỉ số chính, số ngày trúng, khoảng hẹp hơn, start nhỏ hơn
+    private static Comparator<RangeSweepEngine.IntervalScore> order(SweepMetric metric) {
+        return Comparator.<RangeSweepEngine.IntervalScore>comparingInt(score -> switch (metric) {
+                    case LONGEST -> score.getLongestStreak();
+                    case FREQUENCY -> score.getStreakCount();
+                    default -> score.getHits();
+                })
+                .thenComparingInt(RangeSweepEngine.IntervalScore::getHits)
+                .thenComparingInt(score -> score.getStart() - score.getEnd())
+                .thenComparingInt(score -> -score.getStart());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HttpCacheSupportTest {
+
+    private static final LocalDate LATEST = LocalDate.of(2025, 12, 11);
+    private static final long MODIFIED_AT = 1_765_000_000_000L;
+
+    private final AtomicInteger handlerCalls = new AtomicInteger();
+    private DatasetVersionTracker tracker;
+    private HttpCacheSupport httpCache;
+
+    @BeforeEach
+    void setUp() {
+        tracker = mock(DatasetVersionTracker.class);
+        when(tracker.current()).thenReturn(new DatasetVersion(LATEST, 5230, 5231, 1, MODIFIED_AT));
+        httpCache = new HttpCacheSupport();
+        ReflectionTestUtils.setField(httpCache, "datasetVersionTracker", tracker);
+        ReflectionTestUtils.setField(httpCache, "maxAgeSeconds", 60L);
+    }
+
+    private ResponseEntity<String> getForToday(long ifModifiedSince, Object... params) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard/stats");
+        request.addHeader("If-Modified-Since", ifModifiedSince);
+        return httpCache.respondForToday(new ServletWebRequest(request, new MockHttpServletResponse()), () -> {
+            handlerCalls.incrementAndGet();
+            return ResponseEntity.ok("body");
+        }, params);
+    }
+
+    private void setToday(LocalDate today) {
+        ReflectionTestUtils.setField(httpCache, "clock",
+                Clock.fixed(today.atTime(9, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private ResponseEntity<String> get(String ifNoneMatch, Object... params) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return httpCache.respond(new ServletWebRequest(request, new MockHttpServletResponse()), () -> {
+            handlerCalls.incrementAndGet();
+            return ResponseEntity.ok("body");
+        }, params);
+    }
+
+    @Test
+    void matchingEtagAnswers304WithoutCallingHandler() {
+        ResponseEntity<String> first = get(null, "dashboard", 20);
+        String etag = first.getHeaders().getETag();
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(etag).startsWith("\"2025-12-11.5230.5231.");
+        assertThat(first.getHeaders().getLastModified()).isEqualTo(MODIFIED_AT);
+        assertThat(first.getHeaders().getCacheControl()).contains("max-age=60");
+
+        ResponseEntity<String> second = get(etag, "dashboard", 20);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+        assertThat(handlerCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void etagDependsOnParameters() {
+        String etag = get(null, "dashboard", 20).getHeaders().getETag();
+
+        assertThat(get(etag, "dashboard", 30).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get(null, "dashboard", 30).getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void reparseWithSameLatestDateAndCountChangesEtag() {
+        String etag = get(null, "dashboard").getHeaders().getETag();
+
+        // Ghi đè lại các ngày cũ: ngày mới nhất và số ngày giữ nguyên, chỉ revision tăng
+        when(tracker.current()).thenReturn(new DatasetVersion(LATEST, 5230, 5961, 2, MODIFIED_AT));
+
+        ResponseEntity<String> response = get(etag, "dashboard");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void errorResponsesAreNotTagged() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard");
+        ResponseEntity<String> response = httpCache.respond(new ServletWebRequest(request, new MockHttpServletResponse()),
+                () -> ResponseEntity.badRequest().body("sai tham số"), "dashboard");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void dateDependentResponseIsNotModifiedSinceYesterday() {
+        // Dữ liệu thay đổi lần cuối từ hôm trước, client chỉ gửi If-Modified-Since
+        LocalDate today = LATEST.plusDays(3);
+        setToday(today);
+        long startOfToday = today.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        ResponseEntity<String> first = getForToday(MODIFIED_AT, "dashboard");
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getLastModified()).isEqualTo(startOfToday);
+
+        assertThat(getForToday(startOfToday, "dashboard").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // Sang ngày mới: bản của hôm qua không còn đúng dù dữ liệu không đổi
+        setToday(today.plusDays(1));
+        ResponseEntity<String> nextDay = getForToday(startOfToday, "dashboard");
+        assertThat(nextDay.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(nextDay.getHeaders().getLastModified()).isEqualTo(startOfToday + 86_400_000L);
+        assertThat(nextDay.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+        assertThat(handlerCalls.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LruResponseCacheTest {
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        LruResponseCache<String, Integer> cache = new LruResponseCache<>(4);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 42;
+                })));
+            }
+            // Đợi mọi request gặp cùng một key đang được tính rồi mới cho request đầu tính xong
+            while (cache.getHits() + cache.getMisses() < callers) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(callers - 1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(2);
+        cache.get("a", () -> "A");
+        cache.get("b", () -> "B");
+        cache.get("a", () -> "A2"); // a vừa được dùng, b thành cũ nhất
+        cache.get("c", () -> "C");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.get("a", () -> "A3")).isEqualTo("A");
+        assertThat(cache.get("b", () -> "B2")).isEqualTo("B2");
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(2);
+
+        assertThatThrownBy(() -> cache.get("k", () -> {
+            throw new IllegalStateException("lỗi tạm thời");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("k", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void errorsReleaseWaitersAndAreNotCached() throws Exception {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> owner = pool.submit(() -> cache.get("k", () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new StackOverflowError();
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Request chờ cùng key nhận lại Error thay vì treo mãi
+            Thread waiter = new Thread(() -> {
+                while (cache.getHits() == 0) {
+                    Thread.onSpinWait();
+                }
+                release.countDown();
+            });
+            waiter.start();
+            assertThatThrownBy(() -> cache.get("k", () -> "không được gọi")).isInstanceOf(StackOverflowError.class);
+            waiter.join();
+            assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("k", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        LruResponseCache<String, String> cache = new LruResponseCache<>(2);
+        cache.get("k", () -> "v1");
+        cache.invalidate("k");
+
+        assertThat(cache.get("k", () -> "v2")).isEqualTo("v2");
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.crawler;
+
+import com.example.repository.LotteryDailyResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kế hoạch lấp chỗ trống: ngày đã có trong database, ngày đã xác nhận không có kết quả
+ * (404 hoặc trang trống, tải đủ lâu sau ngày quay) và ngày còn thiếu
+ */
+class GapPlannerTest {
+
+    private static final LocalDate FEB_1 = LocalDate.of(2021, 2, 1);
+
+    @TempDir
+    Path archiveDir;
+
+    private final Set<LocalDate> stored = new TreeSet<>();
+    private LotteryDailyResultRepository resultRepo;
+    private PageArchive pageArchive;
+    private GapPlanner planner;
+    private String template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/crawler/mien-bac-11-12-2025.html")) {
+            template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        resultRepo = mock(LotteryDailyResultRepository.class);
+        when(resultRepo.findDrawDatesBetween(any(), any())).thenAnswer(call -> {
+            LocalDate from = call.getArgument(0);
+            LocalDate to = call.getArgument(1);
+            return stored.stream().filter(d -> !d.isBefore(from) && !d.isAfter(to)).toList();
+        });
+        when(resultRepo.findEarliestDrawDate()).thenAnswer(call -> stored.stream().findFirst());
+
+        pageArchive = new PageArchive();
+        ReflectionTestUtils.setField(pageArchive, "enabled", true);
+        ReflectionTestUtils.setField(pageArchive, "archiveDir", archiveDir.toString());
+
+        planner = new GapPlanner();
+        ReflectionTestUtils.setField(planner, "resultRepo", resultRepo);
+        ReflectionTestUtils.setField(planner, "pageArchive", pageArchive);
+        ReflectionTestUtils.setField(planner, "resultPageParser", new ResultPageParser());
+        ReflectionTestUtils.setField(planner, "pageFetcher",
+                new PageFetcher("http://127.0.0.1/ket-qua-xo-so/mien-bac/", 100, 1, 1000, 1, 0));
+        ReflectionTestUtils.setField(planner, "settledAfterDays", 3);
+    }
+
+    private void storeResultPage(LocalDate date) throws IOException {
+        String html = template.replace("11/12/2025", date.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        pageArchive.store(date, html.getBytes(StandardCharsets.UTF_8), "UTF-8");
+    }
+
+    @Test
+    void classifiesEveryDay() throws IOException {
+        for (int day : new int[]{1, 2, 3, 6, 9, 10}) {
+            stored.add(FEB_1.withDayOfMonth(day));
+        }
+        storeResultPage(FEB_1.withDayOfMonth(4)); // Có trang có kết quả nhưng đã bị xóa khỏi database: vẫn phải tải lại
+        pageArchive.store(FEB_1.withDayOfMonth(5), "<html><body>Nghỉ Tết</body></html>".getBytes(StandardCharsets.UTF_8), "UTF-8");
+        pageArchive.storeMissing(FEB_1.withDayOfMonth(7)); // Nguồn trả 404
+
+        GapPlanner.GapPlan plan = planner.plan(FEB_1, FEB_1.withDayOfMonth(10));
+
+        assertThat(plan.getTotalDays()).isEqualTo(10);
+        assertThat(plan.getExistingDays()).isEqualTo(6);
+        assertThat(plan.getNoResultDays()).isEqualTo(2);
+        assertThat(plan.getMissingDays()).isEqualTo(2);
+        assertThat(plan.missingDates()).containsExactly(FEB_1.withDayOfMonth(4), FEB_1.withDayOfMonth(8));
+        assertThat(plan.gaps()).containsExactly(
+                new GapPlanner.Gap(FEB_1.withDayOfMonth(4), FEB_1.withDayOfMonth(4), 1),
+                new GapPlanner.Gap(FEB_1.withDayOfMonth(8), FEB_1.withDayOfMonth(8), 1));
+        assertThat(plan.firstMissing()).isEqualTo(FEB_1.withDayOfMonth(4));
+        assertThat(plan.lastMissing()).isEqualTo(FEB_1.withDayOfMonth(8));
+    }
+
+    @Test
+    void mergesConsecutiveMissingDays() {
+        stored.add(FEB_1);
+        stored.add(FEB_1.withDayOfMonth(7));
+
+        GapPlanner.GapPlan plan = planner.plan(FEB_1, FEB_1.withDayOfMonth(9));
+
+        assertThat(plan.gaps()).containsExactly(
+                new GapPlanner.Gap(FEB_1.withDayOfMonth(2), FEB_1.withDayOfMonth(6), 5),
+                new GapPlanner.Gap(FEB_1.withDayOfMonth(8), FEB_1.withDayOfMonth(9), 2));
+    }
+
+    @Test
+    void recentEmptyDaysAreNotSettledYet() throws IOException {
+        LocalDate today = LocalDate.now();
+        pageArchive.storeMissing(today);
+        pageArchive.storeMissing(today.minusDays(10));
+
+        GapPlanner.GapPlan plan = planner.plan(today.minusDays(10), today);
+
+        // 404 vừa tải hôm nay: có thể nguồn chưa đăng kết quả, lần cập nhật sau vẫn phải hỏi lại
+        assertThat(plan.getNoResultDays()).isEqualTo(1);
+        assertThat(plan.lastMissing()).isEqualTo(today);
+    }
+
+    @Test
+    void planHistoryStartsAtEarliestStoredDay() {
+        assertThat(planner.planHistory(FEB_1.withDayOfMonth(28))).isNull();
+
+        stored.add(FEB_1.withDayOfMonth(20));
+        GapPlanner.GapPlan plan = planner.planHistory(FEB_1.withDayOfMonth(28));
+
+        assertThat(plan.getFromDate()).isEqualTo(FEB_1.withDayOfMonth(20));
+        assertThat(plan.getMissingDays()).isEqualTo(8);
+        assertThat(plan.getExistingDays()).isEqualTo(1);
+    }
+
+    @Test
+    void emptyRange() {
+        GapPlanner.GapPlan plan = planner.plan(FEB_1.withDayOfMonth(5), FEB_1);
+
+        assertThat(plan.getTotalDays()).isZero();
+        assertThat(plan.gaps()).isEmpty();
+        assertThat(plan.firstMissing()).isNull();
+        assertThat(plan.lastMissing()).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.crawler;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageArchiveTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 11);
+
+    @TempDir
+    Path dir;
+
+    private PageArchive open() {
+        PageArchive archive = new PageArchive();
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "archiveDir", dir.toString());
+        return archive;
+    }
+
+    private long blobCount() throws IOException {
+        try (Stream<Path> files = Files.walk(dir.resolve("blobs"))) {
+            return files.filter(file -> file.toString().endsWith(".html.gz")).count();
+        }
+    }
+
+    @Test
+    void identicalPagesShareOneBlob() throws IOException {
+        PageArchive archive = open();
+        byte[] page = "<html><body>Nghỉ Tết</body></html>".getBytes(StandardCharsets.UTF_8);
+        archive.store(DAY, page, "UTF-8");
+        archive.store(DAY.plusDays(1), page, "UTF-8");
+        archive.store(DAY, page, "UTF-8"); // Tải lại cùng nội dung: chỉ cập nhật thời điểm tải
+
+        assertThat(blobCount()).isEqualTo(1);
+        assertThat(Files.readAllLines(dir.resolve("index.tsv"))).hasSize(3);
+        List<PageArchive.Entry> entries = archive.entries(null, null);
+        assertThat(entries).extracting(PageArchive.Entry::getDate).containsExactly(DAY, DAY.plusDays(1));
+        assertThat(entries.get(0).getSha256()).isEqualTo(entries.get(1).getSha256());
+
+        Document doc = archive.load(entries.get(0), "http://127.0.0.1/");
+        assertThat(doc.body().text()).isEqualTo("Nghỉ Tết");
+    }
+
+    @Test
+    void indexIsReplayedOnRestart() throws IOException {
+        PageArchive archive = open();
+        archive.store(DAY, "<html>v1</html>".getBytes(StandardCharsets.UTF_8), null);
+        archive.store(DAY, "<html>v2</html>".getBytes(StandardCharsets.UTF_8), "UTF-8");
+        archive.storeMissing(DAY.plusDays(1));
+        String v2 = archive.entry(DAY).orElseThrow().getSha256();
+        // Dòng ghi dở khi tắt máy giữa chừng
+        Files.writeString(dir.resolve("index.tsv"), "2025-12-1", StandardOpenOption.APPEND);
+
+        PageArchive reopened = open();
+
+        // Dòng sau của cùng một ngày thắng, ngày 404 không có trang
+        PageArchive.Entry day = reopened.entry(DAY).orElseThrow();
+        assertThat(day.getSha256()).isEqualTo(v2);
+        assertThat(day.getCharset()).isEqualTo("UTF-8");
+        assertThat(reopened.load(day, "http://127.0.0.1/").text()).isEqualTo("v2");
+        PageArchive.Entry missing = reopened.entry(DAY.plusDays(1)).orElseThrow();
+        assertThat(missing.hasPage()).isFalse();
+        assertThat(missing.getCharset()).isNull();
+        assertThat(reopened.entries(DAY.plusDays(2), null)).isEmpty();
+        assertThat(blobCount()).isEqualTo(2);
+    }
+
+    @Test
+    void notFoundDoesNotReplaceStoredPage() throws IOException {
+        PageArchive archive = open();
+        archive.store(DAY, "<html>kết quả</html>".getBytes(StandardCharsets.UTF_8), "UTF-8");
+        String sha256 = archive.entry(DAY).orElseThrow().getSha256();
+
+        // Nguồn trả 404 khi tải lại: trang đã lưu vẫn được giữ, kể cả sau khi mở lại
+        archive.storeMissing(DAY);
+        assertThat(archive.entry(DAY).orElseThrow().getSha256()).isEqualTo(sha256);
+        assertThat(open().entry(DAY).orElseThrow().getSha256()).isEqualTo(sha256);
+        assertThat(Files.readAllLines(dir.resolve("index.tsv"))).hasSize(1);
+
+        // Ngày chưa có trang thì vẫn ghi nhận 404, và trang tải được sau đó thay thế bản ghi 404
+        archive.storeMissing(DAY.plusDays(1));
+        assertThat(archive.entry(DAY.plusDays(1)).orElseThrow().hasPage()).isFalse();
+        archive.store(DAY.plusDays(1), "<html>bù</html>".getBytes(StandardCharsets.UTF_8), "UTF-8");
+        assertThat(open().entry(DAY.plusDays(1)).orElseThrow().hasPage()).isTrue();
+    }
+}
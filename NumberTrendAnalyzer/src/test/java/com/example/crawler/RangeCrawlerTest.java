@@ -0,0 +1,212 @@
+package com.example.crawler;
+
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cào qua một HTTP stub cục bộ trả về trang kết quả đã lưu (src/test/resources/crawler), không cần mạng hay database
+ */
+class RangeCrawlerTest {
+
+    private static final String PATH = "/ket-qua-xo-so/mien-bac/";
+    private static final DateTimeFormatter URL_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter PAGE_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final long LATENCY_MS = 300;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ExecutorService crawlExecutor;
+    private String template;
+
+    // Ngày -> số lần trả 503 trước khi trả trang thật; ngày không có trang (404)
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final List<Long> requestTimes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private String missingDate;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/crawler/mien-bac-11-12-2025.html")) {
+            template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext(PATH, this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        if (crawlExecutor != null) {
+            crawlExecutor.shutdownNow();
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requestTimes.add(System.nanoTime());
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(LATENCY_MS);
+            String urlDate = exchange.getRequestURI().getPath().substring(PATH.length()).replace(".html", "");
+            requestCounts.computeIfAbsent(urlDate, d -> new AtomicInteger()).incrementAndGet();
+            AtomicInteger failures = failuresLeft.get(urlDate);
+            if (urlDate.equals(missingDate)) {
+                send(exchange, 404, "<html><head><title>404 Not Found</title></head></html>");
+            } else if (failures != null && failures.getAndDecrement() > 0) {
+                send(exchange, 503, "busy");
+            } else {
+                LocalDate date = LocalDate.parse(urlDate, URL_DATE);
+                send(exchange, 200, template.replace("11/12/2025", date.format(PAGE_DATE)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private PageFetcher fetcher(double ratePerSecond, int burst, int maxAttempts) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+        return new PageFetcher(baseUrl, ratePerSecond, burst, 5000, maxAttempts, 50);
+    }
+
+    private RangeCrawler crawler(PageFetcher fetcher, int concurrency) {
+        crawlExecutor = Executors.newFixedThreadPool(concurrency);
+        return new RangeCrawler(fetcher, crawlExecutor, concurrency);
+    }
+
+    private static List<LocalDate> days(int count) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            dates.add(START.plusDays(i));
+        }
+        return dates;
+    }
+
+    @Test
+    void parsesSavedPage() throws Exception {
+        LotteryDailyResult result = new ResultPageParser().parse(fetcher(100, 1, 1).fetch(START), START);
+
+        assertThat(result.getDrawDate()).isEqualTo(START);
+        assertThat(result.getSpecialPrizeRaw()).isEqualTo("52668");
+        List<LotoDigit> digits = result.getLotoDigits();
+        assertThat(digits).hasSize(27);
+        assertThat(digits.get(0).getPrizeName()).isEqualTo("Giai_DB");
+        assertThat(digits.get(0).getValue()).isEqualTo(68);
+        assertThat(digits).filteredOn(d -> "Giai_7".equals(d.getPrizeName()))
+                .extracting(LotoDigit::getFullNumber).containsExactly("44", "09", "71", "36");
+    }
+
+    @Test
+    void requestsOverlapWithinRateLimit() throws Exception {
+        int count = 20;
+        double rate = 20;
+        RangeCrawler crawler = crawler(fetcher(rate, 1, 1), 8);
+        List<LocalDate> received = Collections.synchronizedList(new ArrayList<>());
+        String caller = Thread.currentThread().getName();
+        List<String> handlerThreads = Collections.synchronizedList(new ArrayList<>());
+
+        crawler.crawl(days(count), page -> {
+            assertThat(page.getError()).isNull();
+            received.add(page.getDate());
+            handlerThreads.add(Thread.currentThread().getName());
+        });
+
+        assertThat(received).containsExactlyInAnyOrderElementsOf(days(count));
+        assertThat(handlerThreads).containsOnly(caller);
+        // Mỗi request giữ kết nối 300 ms, lâu hơn nhiều khoảng cách 50 ms giữa hai token, nên các request phải chồng lên nhau
+        assertThat(maxActive.get()).isGreaterThan(1).isLessThanOrEqualTo(8);
+        // Không có giới hạn thì 20 request tới gần như cùng lúc; có giới hạn thì trải trên ~950 ms.
+        // Chỉ đòi một nửa khoảng đó để độ trễ mạng và tải của máy chạy test không làm test lúc đạt lúc không
+        List<Long> times = new ArrayList<>(requestTimes);
+        Collections.sort(times);
+        long spanMs = (times.get(times.size() - 1) - times.get(0)) / 1_000_000;
+        assertThat(spanMs).isGreaterThanOrEqualTo((long) ((count - 1) / rate * 1000) / 2);
+    }
+
+    @Test
+    void retriesTransientErrorsButNotMissingPages() throws Exception {
+        List<LocalDate> dates = days(4);
+        failuresLeft.put(dates.get(1).format(URL_DATE), new AtomicInteger(2));
+        missingDate = dates.get(2).format(URL_DATE);
+        RangeCrawler crawler = crawler(fetcher(100, 4, 3), 4);
+        Map<LocalDate, RangeCrawler.FetchedPage> pages = new ConcurrentHashMap<>();
+
+        crawler.crawl(dates, page -> pages.put(page.getDate(), page));
+
+        assertThat(pages).hasSize(4);
+        assertThat(pages.get(dates.get(1)).getError()).isNull();
+        assertThat(requestCounts.get(dates.get(1).format(URL_DATE)).get()).isEqualTo(3);
+        assertThat(pages.get(dates.get(2)).getError()).isInstanceOf(HttpStatusException.class);
+        assertThat(requestCounts.get(missingDate).get()).isEqualTo(1);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        String date = START.format(URL_DATE);
+        failuresLeft.put(date, new AtomicInteger(10));
+
+        assertThatThrownBy(() -> fetcher(100, 4, 3).fetch(START)).isInstanceOf(HttpStatusException.class);
+        assertThat(requestCounts.get(date).get()).isEqualTo(3);
+    }
+
+    @Test
+    void tokenBucketSpacesPermits() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(50, 1, now::get);
+
+        // Token đầu có sẵn, các token đặt cùng lúc sau đó được xếp lượt cách nhau 20 ms
+        List<Long> waitsMs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waitsMs.add(TimeUnit.NANOSECONDS.toMillis(bucket.reserve()));
+        }
+        assertThat(waitsMs).containsExactly(0L, 20L, 40L, 60L);
+
+        // Sau 100 ms không dùng, bucket chỉ đầy lại tới capacity (1 token) chứ không tích thêm
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60 + 100));
+        assertThat(bucket.reserve()).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(bucket.reserve())).isEqualTo(20L);
+    }
+}
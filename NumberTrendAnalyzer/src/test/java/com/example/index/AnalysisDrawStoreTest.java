@@ -0,0 +1,110 @@
+package com.example.index;
+
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.AnalysisDigitsRow;
+import com.example.repository.LotteryDailyResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kho dữ liệu phân tích: nối thêm ngày mới không cần nạp lại, chèn giữa đổi generation,
+ * ghi đè (DrawsReplacedEvent) thì nạp lại từ database ở lần đọc sau
+ */
+class AnalysisDrawStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 1);
+
+    private final List<AnalysisDigitsRow> rows = new ArrayList<>();
+    private AnalysisDrawStore store;
+
+    @BeforeEach
+    void setUp() {
+        LotteryDailyResultRepository repo = mock(LotteryDailyResultRepository.class);
+        when(repo.findAllAnalysisDigits()).thenAnswer(call -> new ArrayList<>(rows));
+        store = new AnalysisDrawStore();
+        ReflectionTestUtils.setField(store, "resultRepository", repo);
+    }
+
+    private static AnalysisDigitsRow row(LocalDate date, String db, String g1) {
+        return new AnalysisDigitsRow(date, db, db, Integer.parseInt(db.substring(3)),
+                g1, g1 != null ? Integer.parseInt(g1.substring(3)) : null);
+    }
+
+    private void save(LocalDate date, String db, String g1) {
+        LotteryDailyResult result = new LotteryDailyResult();
+        result.setDrawDate(date);
+        result.setSpecialPrizeRaw(db);
+        List<LotoDigit> digits = new ArrayList<>();
+        digits.add(new LotoDigit(null, Integer.parseInt(db.substring(3)), db, "Giai_DB", result));
+        digits.add(new LotoDigit(null, Integer.parseInt(g1.substring(3)), g1, "Giai_1", result));
+        result.setLotoDigits(digits);
+        rows.add(row(date, db, g1));
+        store.onDrawSaved(new DrawSavedEvent(result));
+    }
+
+    @Test
+    void loadsColumnsFromDatabase() {
+        rows.add(row(DAY, "52668", "12345"));
+        rows.add(row(DAY.plusDays(1), "07301", null)); // Thiếu giải 1
+
+        AnalysisDrawStore.Snapshot snapshot = store.snapshot();
+
+        assertThat(snapshot.getLength()).isEqualTo(2);
+        assertThat(snapshot.dateAt(1)).isEqualTo(DAY.plusDays(1));
+        assertThat(snapshot.column(AnalysisDrawStore.DAU_DB)[0]).isEqualTo((byte) 52);
+        assertThat(snapshot.column(AnalysisDrawStore.DB)[0]).isEqualTo((byte) 68);
+        assertThat(snapshot.column(AnalysisDrawStore.DAU_G1)[0]).isEqualTo((byte) 12);
+        assertThat(snapshot.column(AnalysisDrawStore.G1)[0]).isEqualTo((byte) 45);
+        assertThat(snapshot.column(AnalysisDrawStore.G1)[1]).isEqualTo(AnalysisDrawStore.NONE);
+        assertThat(snapshot.lowerBound(DAY.plusDays(1))).isEqualTo(1);
+        assertThat(snapshot.lowerBound(DAY.plusDays(5))).isEqualTo(2);
+    }
+
+    @Test
+    void appendKeepsGenerationAndOldSnapshots() {
+        rows.add(row(DAY, "52668", "12345"));
+        AnalysisDrawStore.Snapshot before = store.snapshot();
+
+        save(DAY.plusDays(1), "11122", "33344");
+        AnalysisDrawStore.Snapshot appended = store.snapshot();
+
+        assertThat(appended.getGeneration()).isEqualTo(before.getGeneration());
+        assertThat(appended.getLength()).isEqualTo(2);
+        assertThat(appended.column(AnalysisDrawStore.DB)[1]).isEqualTo((byte) 22);
+        assertThat(before.getLength()).isEqualTo(1);
+
+        // Chèn một ngày còn thiếu ở giữa: các chỉ mục dựng theo vị trí phải dựng lại
+        save(DAY.minusDays(1), "99999", "00000");
+        AnalysisDrawStore.Snapshot inserted = store.snapshot();
+        assertThat(inserted.getGeneration()).isGreaterThan(appended.getGeneration());
+        assertThat(inserted.dateAt(0)).isEqualTo(DAY.minusDays(1));
+        assertThat(appended.dateAt(0)).isEqualTo(DAY);
+    }
+
+    @Test
+    void replacedDaysAreReloaded() {
+        rows.add(row(DAY, "52668", "12345"));
+        rows.add(row(DAY.plusDays(1), "11122", "33344"));
+        AnalysisDrawStore.Snapshot before = store.snapshot();
+
+        rows.set(0, row(DAY, "40017", "12345"));
+        store.onDrawsReplaced(new DrawsReplacedEvent(DAY, DAY));
+        AnalysisDrawStore.Snapshot reloaded = store.snapshot();
+
+        assertThat(reloaded.getGeneration()).isGreaterThan(before.getGeneration());
+        assertThat(reloaded.column(AnalysisDrawStore.DB)[0]).isEqualTo((byte) 17);
+        assertThat(before.column(AnalysisDrawStore.DB)[0]).isEqualTo((byte) 68);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.index;
+
+import com.example.domain.LotteryDailyResult;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.prediction.FrequencyPredictor;
+import com.example.repository.LotteryDailyResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đối chiếu các phép tra bảng tổng tiền tố với cách đếm trực tiếp trên từng ngày,
+ * kể cả sau khi nối thêm ngày mới và sau khi lịch sử bị ghi đè
+ */
+class FrequencyIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private final Random random = new Random(5);
+    private SpecialPrizeSeries series;
+    private FrequencyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        LotteryDailyResultRepository repo = mock(LotteryDailyResultRepository.class);
+        when(repo.findAllSpecialPrizes()).thenAnswer(call -> new ArrayList<>(rows));
+        series = new SpecialPrizeSeries();
+        ReflectionTestUtils.setField(series, "resultRepository", repo);
+        index = new FrequencyIndex();
+        ReflectionTestUtils.setField(index, "specialPrizeSeries", series);
+    }
+
+    private String randomPrize() {
+        return String.format("%05d", random.nextInt(100000));
+    }
+
+    // Lưu một ngày như CrawlerService: ghi vào "database" rồi phát DrawSavedEvent theo thứ tự listener
+    private void save(LocalDate date, String prize) {
+        LotteryDailyResult result = new LotteryDailyResult();
+        result.setDrawDate(date);
+        result.setSpecialPrizeRaw(prize);
+        rows.add(new Object[]{date, prize});
+        DrawSavedEvent event = new DrawSavedEvent(result);
+        series.onDrawSaved(event);
+        index.onDrawSaved(event);
+    }
+
+    // Số ngày từ fromDate đến toDate có giá trị thuộc [start, start + size)
+    private int count(int start, int size, LocalDate fromDate, LocalDate toDate) {
+        int count = 0;
+        for (Object[] row : rows) {
+            LocalDate date = (LocalDate) row[0];
+            int value = SpecialPrizeSeries.parseSpecialValue((String) row[1]);
+            if (!date.isBefore(fromDate) && !date.isAfter(toDate) && value >= start && value < start + size) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void assertMatchesDirectCount() {
+        // Ngày cách quãng (2 ngày một lần) nên fromDate/toDate có thể rơi vào ngày không có dữ liệu
+        for (int[] days : new int[][]{{0, 400}, {3, 77}, {150, 151}, {200, 199}, {-10, 5}, {390, 900}}) {
+            LocalDate fromDate = START.plusDays(days[0]);
+            LocalDate toDate = START.plusDays(days[1]);
+            for (int[] window : new int[][]{{0, 10}, {37, 23}, {40, 60}, {95, 5}}) {
+                assertThat(index.countInRange(window[0], window[1], fromDate, toDate))
+                        .as("[%d, +%d) từ %s đến %s", window[0], window[1], fromDate, toDate)
+                        .isEqualTo(count(window[0], window[1], fromDate, toDate));
+            }
+
+            int best = index.bestWindowStart(20, fromDate, toDate);
+            int bestCount = count(best, 20, fromDate, toDate);
+            for (int start = 0; start + 20 <= 100; start++) {
+                int other = count(start, 20, fromDate, toDate);
+                assertThat(other < bestCount || (other == bestCount && start >= best))
+                        .as("khoảng %d tốt hơn %d từ %s đến %s", start, best, fromDate, toDate).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void lookupsMatchDirectCount() {
+        for (int day = 0; day < 400; day += 2) {
+            rows.add(new Object[]{START.plusDays(day), randomPrize()});
+        }
+        assertMatchesDirectCount();
+
+        // Nối thêm ngày mới: bảng được nối tiếp, không dựng lại
+        for (int day = 400; day < 420; day += 2) {
+            save(START.plusDays(day), randomPrize());
+        }
+        assertMatchesDirectCount();
+
+        // Ghi đè giữa lịch sử: cùng số ngày, khác giá trị
+        for (int i = 20; i < 60; i++) {
+            rows.set(i, new Object[]{rows.get(i)[0], randomPrize()});
+        }
+        series.onDrawsReplaced(new DrawsReplacedEvent((LocalDate) rows.get(20)[0], (LocalDate) rows.get(59)[0]));
+        index.onDrawsReplaced(new DrawsReplacedEvent((LocalDate) rows.get(20)[0], (LocalDate) rows.get(59)[0]));
+        assertMatchesDirectCount();
+    }
+
+    @Test
+    void lastDaysWindowMatchesFrequencyPredictor() {
+        FrequencyPredictor predictor = new FrequencyPredictor();
+        for (int day = 0; day < 300; day++) {
+            String prize = randomPrize();
+            save(START.plusDays(day), prize);
+            predictor.observe(SpecialPrizeSeries.parseSpecialValue(prize));
+            if (day % 37 == 0 || day >= 290) {
+                for (int rangeSize : new int[]{10, 23, 60}) {
+                    assertThat(index.bestWindowStartInLastDays(rangeSize, FrequencyPredictor.LOOKBACK))
+                            .as("ngày %d, khoảng %d", day, rangeSize)
+                            .isEqualTo(predictor.predictStart(rangeSize));
+                }
+            }
+        }
+    }
+}
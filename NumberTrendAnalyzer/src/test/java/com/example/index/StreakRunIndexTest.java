@@ -0,0 +1,114 @@
+package com.example.index;
+
+import com.example.event.DrawsReplacedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đối chiếu histogram và các chuỗi dài nhất đọc từ chỉ mục run-length với cách đếm trực tiếp từng ngày
+ */
+class StreakRunIndexTest {
+
+    private static final int DAYS = 500;
+
+    private StreakRunIndex index;
+    private AnalysisDrawStore.Snapshot snapshot;
+    private byte[][] classTables;
+
+    @BeforeEach
+    void setUp() {
+        index = new StreakRunIndex();
+        ReflectionTestUtils.setField(index, "maxEntries", 8);
+        index.initCache();
+
+        Random random = new Random(11);
+        int[] epochDays = new int[DAYS];
+        byte[][] columns = new byte[AnalysisDrawStore.COLUMN_COUNT][DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            epochDays[i] = 19000 + i;
+            for (int column = 0; column < AnalysisDrawStore.COLUMN_COUNT; column++) {
+                columns[column][i] = random.nextInt(25) == 0 ? AnalysisDrawStore.NONE : (byte) random.nextInt(100);
+            }
+        }
+        snapshot = new AnalysisDrawStore.Snapshot(epochDays, columns, DAYS, 1);
+
+        // Cột ĐB chia 3 loại (0 = ngoài khoảng), cột G1 chia 2 loại, hai cột còn lại không lọc
+        classTables = new byte[AnalysisDrawStore.COLUMN_COUNT][];
+        classTables[AnalysisDrawStore.DB] = new byte[100];
+        classTables[AnalysisDrawStore.G1] = new byte[100];
+        for (int value = 0; value < 100; value++) {
+            classTables[AnalysisDrawStore.DB][value] = (byte) (value < 30 ? 1 : value < 80 ? 2 : 0);
+            classTables[AnalysisDrawStore.G1][value] = (byte) (value < 50 ? 1 : 0);
+        }
+    }
+
+    @Test
+    void runsMatchDirectScan() {
+        int[] columns = {AnalysisDrawStore.DB, AnalysisDrawStore.DB, AnalysisDrawStore.G1};
+        int[] targets = {0, 2, 1};
+        StreakRunIndex.Runs[] runs = index.getRuns(snapshot, classTables, columns, targets);
+
+        for (int from : new int[]{0, 1, 137, 250, DAYS - 1, DAYS}) {
+            for (int t = 0; t < columns.length; t++) {
+                List<StreakRunIndex.Run> expected = scan(columns[t], targets[t], from);
+
+                int[] histogram = runs[t].histogram(from, 2, 6);
+                for (int length = 0; length < 10; length++) {
+                    int len = length;
+                    long count = length >= 2 && length <= 6
+                            ? expected.stream().filter(run -> run.getLength() == len).count() : 0;
+                    assertThat(length < histogram.length ? histogram[length] : 0)
+                            .as("track %d, from %d, độ dài %d", t, from, length).isEqualTo((int) count);
+                }
+
+                List<StreakRunIndex.Run> longest = new ArrayList<>(expected);
+                longest.sort(Comparator.comparingInt(StreakRunIndex.Run::getLength)
+                        .thenComparingInt(StreakRunIndex.Run::getStart).reversed());
+                assertThat(runs[t].longest(from, 5))
+                        .as("track %d, from %d", t, from)
+                        .containsExactlyElementsOf(longest.subList(0, Math.min(5, longest.size())));
+            }
+        }
+    }
+
+    @Test
+    void cachedUntilDataIsReplaced() {
+        int[] columns = {AnalysisDrawStore.G1};
+        int[] targets = {1};
+        StreakRunIndex.Runs[] first = index.getRuns(snapshot, classTables, columns, targets);
+
+        assertThat(index.getRuns(snapshot, classTables, columns, targets)).isSameAs(first);
+
+        index.onDrawsReplaced(new DrawsReplacedEvent(LocalDate.ofEpochDay(19000), LocalDate.ofEpochDay(19010)));
+        assertThat(index.getRuns(snapshot, classTables, columns, targets)).isNotSameAs(first);
+    }
+
+    // Các chuỗi ngày liên tiếp có loại == target từ vị trí from (ô trống là loại 0)
+    private List<StreakRunIndex.Run> scan(int column, int target, int from) {
+        List<StreakRunIndex.Run> runs = new ArrayList<>();
+        int start = -1;
+        for (int i = from; i <= DAYS; i++) {
+            boolean match = false;
+            if (i < DAYS) {
+                int value = snapshot.column(column)[i];
+                match = (value == AnalysisDrawStore.NONE ? 0 : classTables[column][value]) == target;
+            }
+            if (match && start < 0) {
+                start = i;
+            } else if (!match && start >= 0) {
+                runs.add(new StreakRunIndex.Run(start, i - start));
+                start = -1;
+            }
+        }
+        return runs;
+    }
+}
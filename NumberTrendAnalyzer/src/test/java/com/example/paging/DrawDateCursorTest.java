@@ -0,0 +1,32 @@
+package com.example.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DrawDateCursorTest {
+
+    @Test
+    void roundTrips() {
+        LocalDate date = LocalDate.of(2025, 1, 25);
+
+        assertThat(DrawDateCursor.after(date).encode()).isEqualTo("YToyMDI1LTAxLTI1");
+        assertThat(DrawDateCursor.decode(DrawDateCursor.after(date).encode())).isEqualTo(DrawDateCursor.after(date));
+        assertThat(DrawDateCursor.decode(DrawDateCursor.before(date).encode())).isEqualTo(DrawDateCursor.before(date));
+        assertThat(DrawDateCursor.decode(DrawDateCursor.before(date).encode()).isAfter()).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        for (String raw : new String[]{"x:2025-01-25", "a:2025-13-01", "a:", "2025-01-25"}) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> DrawDateCursor.decode(cursor)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> DrawDateCursor.decode("không phải base64!")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
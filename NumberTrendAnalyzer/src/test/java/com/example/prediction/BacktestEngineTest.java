@@ -0,0 +1,178 @@
+package com.example.prediction;
+
+import com.example.domain.LotteryDailyResult;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.index.SpecialPrizeSeries;
+import com.example.repository.LotteryDailyResultRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Backtest tăng dần (chạy tiếp khi có ngày mới) phải cho cùng kết quả với chạy lại từ đầu,
+ * và chạy lại khi lịch sử bị chèn giữa hoặc bị ghi đè
+ */
+class BacktestEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private final Random random = new Random(3);
+    private ForkJoinPool pool;
+    private SpecialPrizeSeries series;
+    private BacktestEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        LotteryDailyResultRepository repo = mock(LotteryDailyResultRepository.class);
+        when(repo.findAllSpecialPrizes()).thenAnswer(call -> new ArrayList<>(rows));
+        series = new SpecialPrizeSeries();
+        ReflectionTestUtils.setField(series, "resultRepository", repo);
+        pool = new ForkJoinPool(2);
+        engine = newEngine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private BacktestEngine newEngine() {
+        return newEngine(false);
+    }
+
+    private BacktestEngine newEngine(boolean markovSecondOrder) {
+        BacktestEngine backtest = new BacktestEngine();
+        ReflectionTestUtils.setField(backtest, "specialPrizeSeries", series);
+        ReflectionTestUtils.setField(backtest, "backtestPool", pool);
+        ReflectionTestUtils.setField(backtest, "markovSecondOrder", markovSecondOrder);
+        return backtest;
+    }
+
+    private String randomPrize() {
+        return String.format("%05d", random.nextInt(100000));
+    }
+
+    private void addRows(int fromDay, int count) {
+        for (int i = fromDay; i < fromDay + count; i++) {
+            rows.add(new Object[]{START.plusDays(i), randomPrize()});
+        }
+    }
+
+    // Lưu một ngày như CrawlerService: ghi vào "database" rồi phát DrawSavedEvent
+    private void save(LocalDate date, String prize) {
+        LotteryDailyResult result = new LotteryDailyResult();
+        result.setDrawDate(date);
+        result.setSpecialPrizeRaw(prize);
+        rows.add(new Object[]{date, prize});
+        rows.sort((a, b) -> ((LocalDate) a[0]).compareTo((LocalDate) b[0]));
+        series.onDrawSaved(new DrawSavedEvent(result));
+    }
+
+    // Walk-forward trực tiếp trên toàn bộ rows
+    private BacktestResult direct(PredictionAlgorithm algorithm, int rangeSize, boolean markovSecondOrder) {
+        RangePredictor predictor = algorithm.newPredictor(markovSecondOrder);
+        int trials = 0;
+        int hits = 0;
+        for (int day = 0; day < rows.size(); day++) {
+            int actual = SpecialPrizeSeries.parseSpecialValue((String) rows.get(day)[1]);
+            if (day >= BacktestEngine.WARMUP_DAYS) {
+                if (RangeWindows.contains(predictor.predictStart(rangeSize), rangeSize, actual)) {
+                    hits++;
+                }
+                trials++;
+            }
+            predictor.observe(actual);
+        }
+        return new BacktestResult(algorithm, rangeSize, trials, hits, predictor.predictStart(rangeSize));
+    }
+
+    private void assertMatchesDirect(BacktestEngine backtest) {
+        assertMatchesDirect(backtest, false);
+    }
+
+    private void assertMatchesDirect(BacktestEngine backtest, boolean markovSecondOrder) {
+        for (PredictionAlgorithm algorithm : PredictionAlgorithm.values()) {
+            // 23 nằm ngoài lưới RANGE_SIZES: được thêm vào và chạy bù
+            for (int rangeSize : new int[]{10, 35, 60, 23}) {
+                assertThat(backtest.getResult(algorithm, rangeSize))
+                        .as("%s, %d", algorithm, rangeSize)
+                        .isEqualTo(direct(algorithm, rangeSize, markovSecondOrder));
+            }
+        }
+    }
+
+    @Test
+    void incrementalRunMatchesFullRun() {
+        addRows(0, 200);
+        assertMatchesDirect(engine);
+
+        // Thêm ngày mới vào cuối: engine chỉ chạy tiếp phần còn thiếu
+        for (int day = 200; day < 260; day++) {
+            save(START.plusDays(day), randomPrize());
+        }
+        assertMatchesDirect(engine);
+        assertMatchesDirect(newEngine());
+    }
+
+    @Test
+    void rerunsWhenHistoryChangesInTheMiddle() {
+        for (int day = 0; day < 150; day += 2) {
+            rows.add(new Object[]{START.plusDays(day), randomPrize()});
+        }
+        assertMatchesDirect(engine);
+
+        // Chèn một ngày còn thiếu ở giữa lịch sử
+        save(START.plusDays(41), randomPrize());
+        assertMatchesDirect(engine);
+
+        // Ghi đè giữa lịch sử (bóc tách lại): cùng số ngày, khác giá trị
+        for (int i = 10; i < 40; i++) {
+            rows.set(i, new Object[]{rows.get(i)[0], randomPrize()});
+        }
+        series.onDrawsReplaced(new DrawsReplacedEvent((LocalDate) rows.get(10)[0], (LocalDate) rows.get(39)[0]));
+        assertMatchesDirect(engine);
+    }
+
+    @Test
+    void markovCellsFollowConfiguredOrder() {
+        addRows(0, 300);
+        BacktestEngine secondOrder = newEngine(true);
+        assertMatchesDirect(secondOrder, true);
+
+        // Bậc 2 thật sự được dùng: kết quả khác với mô hình bậc 1 trên cùng dữ liệu
+        assertThat(secondOrder.getResult(PredictionAlgorithm.MARKOV, 20))
+                .isNotEqualTo(engine.getResult(PredictionAlgorithm.MARKOV, 20));
+    }
+
+    @Test
+    void seriesAppendsWithoutReloadAndReloadsAfterReplace() {
+        addRows(0, 5);
+        SpecialPrizeSeries.Snapshot before = series.snapshot();
+
+        save(START.plusDays(5), "12345");
+        SpecialPrizeSeries.Snapshot appended = series.snapshot();
+        assertThat(appended.getGeneration()).isEqualTo(before.getGeneration());
+        assertThat(appended.getLength()).isEqualTo(6);
+        assertThat(appended.getValues()[5]).isEqualTo((byte) 45);
+        assertThat(before.getLength()).isEqualTo(5); // Ảnh chụp cũ không đổi
+
+        rows.set(2, new Object[]{START.plusDays(2), "99999"});
+        series.onDrawsReplaced(new DrawsReplacedEvent(START.plusDays(2), START.plusDays(2)));
+        SpecialPrizeSeries.Snapshot reloaded = series.snapshot();
+        assertThat(reloaded.getGeneration()).isGreaterThan(appended.getGeneration());
+        assertThat(reloaded.getValues()[2]).isEqualTo((byte) 99);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.repository;
+
+import com.example.NumberTrendAnalyzer.NumberTrendAnalyzerApplication;
+import com.example.domain.LotoDailyStat;
+import com.example.domain.LotoDigit;
+import com.example.domain.LotteryDailyResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * So sánh số lượt gọi INSERT xuống driver giữa đường cũ (Hibernate, IDENTITY nên mỗi dòng một INSERT,
+ * một transaction mỗi ngày) và DrawBatchWriter (JDBC batch, 30 ngày một transaction) trên H2 in-memory.
+ * Đếm lượt gọi thay vì đo thời gian nên kết quả không phụ thuộc tải của máy chạy test.
+ */
+@SpringBootTest(classes = NumberTrendAnalyzerApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-writer;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "prediction.markov.snapshot-path=target/test-data/markov-model.bin.gz"
+})
+class DrawBatchWriterTest {
+
+    private static final String[] PRIZES = {
+            "Giai_DB", "Giai_1", "Giai_2", "Giai_2", "Giai_3", "Giai_3", "Giai_3", "Giai_3", "Giai_3", "Giai_3",
+            "Giai_4", "Giai_4", "Giai_4", "Giai_4", "Giai_5", "Giai_5", "Giai_5", "Giai_5", "Giai_5", "Giai_5",
+            "Giai_6", "Giai_6", "Giai_6", "Giai_7", "Giai_7", "Giai_7", "Giai_7"
+    };
+    private static final int DAYS = 365;
+    private static final int DAYS_PER_TRANSACTION = 30;
+
+    @Autowired
+    private DrawBatchWriter drawBatchWriter;
+
+    @Autowired
+    private LotteryDailyResultRepository resultRepo;
+
+    @Autowired
+    private LotoDailyStatRepository dailyStatRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Số lượt execute* của các câu INSERT đã gửi xuống driver
+    private static final AtomicLong INSERT_CALLS = new AtomicLong();
+
+    /**
+     * Bọc DataSource để đếm lượt gọi INSERT (mỗi execute/executeBatch là một lượt gọi DB)
+     */
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) return bean;
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return countInserts(super.getConnection());
+                        }
+
+                        @Override
+                        public Connection getConnection(String username, String password) throws SQLException {
+                            return countInserts(super.getConnection(username, password));
+                        }
+                    };
+                }
+            };
+        }
+
+        // Các PreparedStatement INSERT được bọc thêm một lớp để đếm execute/executeBatch
+        private static Connection countInserts(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String sql
+                                && sql.trim().toLowerCase().startsWith("insert")) {
+                            return countExecutes((PreparedStatement) result);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement countExecutes(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            INSERT_CALLS.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Test
+    void batchWriterUsesFewerRoundTripsThanPerEntityInserts() {
+        LocalDate hibernateStart = LocalDate.of(2000, 1, 1);
+        LocalDate batchStart = LocalDate.of(2010, 1, 1);
+        List<LotteryDailyResult> hibernateDays = days(hibernateStart, DAYS);
+        List<LotteryDailyResult> batchDays = days(batchStart, DAYS);
+
+        long before = INSERT_CALLS.get();
+        saveWithHibernate(hibernateDays);
+        long hibernateCalls = INSERT_CALLS.get() - before;
+
+        before = INSERT_CALLS.get();
+        writeInBatches(batchDays);
+        long batchCalls = INSERT_CALLS.get() - before;
+
+        // Cùng dữ liệu (cùng seed) nên hai khoảng ngày phải có cùng số dòng ở cả ba bảng
+        long[] batchRows = countRows(batchStart);
+        assertThat(batchRows).isEqualTo(countRows(hibernateStart));
+        assertThat(batchRows[0]).isEqualTo(DAYS);
+        assertThat(batchRows[1]).isEqualTo((long) DAYS * PRIZES.length);
+        assertThat(batchDays).allSatisfy(day -> assertThat(day.getId()).isNotNull());
+        assertThat(resultRepo.findByDrawDate(batchStart.plusDays(100)).orElseThrow().getSpecialPrizeRaw())
+                .isEqualTo(hibernateDays.get(100).getSpecialPrizeRaw());
+        // Hibernate: mỗi dòng kết quả và mỗi số lô là một INSERT riêng (chưa kể bảng tổng hợp)
+        assertThat(hibernateCalls).isGreaterThanOrEqualTo((long) DAYS * (1 + PRIZES.length));
+        // JDBC batch: mỗi nhóm 30 ngày một executeBatch cho mỗi bảng
+        long chunks = (DAYS + DAYS_PER_TRANSACTION - 1) / DAYS_PER_TRANSACTION;
+        assertThat(batchCalls).isEqualTo(3 * chunks);
+    }
+
+    @Test
+    void duplicateDayRollsBackWholeBatch() {
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        drawBatchWriter.write(days(start.plusDays(5), 1));
+
+        assertThatThrownBy(() -> drawBatchWriter.write(days(start, 10))).isInstanceOf(DataAccessException.class);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM lottery_daily_results WHERE draw_date BETWEEN ? AND ?", Long.class,
+                start, start.plusDays(9))).isEqualTo(1L);
+    }
+
+    private void saveWithHibernate(List<LotteryDailyResult> days) {
+        for (LotteryDailyResult day : days) {
+            transactionTemplate.executeWithoutResult(status -> {
+                resultRepo.save(day);
+                dailyStatRepo.saveAll(dailyStats(day));
+            });
+        }
+    }
+
+    private void writeInBatches(List<LotteryDailyResult> days) {
+        for (int i = 0; i < days.size(); i += DAYS_PER_TRANSACTION) {
+            drawBatchWriter.write(days.subList(i, Math.min(days.size(), i + DAYS_PER_TRANSACTION)));
+        }
+    }
+
+    private long[] countRows(LocalDate start) {
+        LocalDate end = start.plusDays(DAYS - 1);
+        return new long[]{
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lottery_daily_results WHERE draw_date BETWEEN ? AND ?",
+                        Long.class, start, end),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loto_digits d JOIN lottery_daily_results r " +
+                        "ON r.id = d.daily_result_id WHERE r.draw_date BETWEEN ? AND ?", Long.class, start, end),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loto_daily_stats WHERE draw_date BETWEEN ? AND ?",
+                        Long.class, start, end)
+        };
+    }
+
+    private static List<LotteryDailyResult> days(LocalDate start, int count) {
+        Random random = new Random(42);
+        List<LotteryDailyResult> days = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LotteryDailyResult result = new LotteryDailyResult();
+            result.setDrawDate(start.plusDays(i));
+            result.setRegion("MB");
+            List<LotoDigit> digits = new ArrayList<>();
+            for (String prize : PRIZES) {
+                String fullNumber = String.format("%05d", random.nextInt(100000));
+                if ("Giai_DB".equals(prize)) {
+                    result.setSpecialPrizeRaw(fullNumber);
+                }
+                digits.add(new LotoDigit(null, Integer.parseInt(fullNumber.substring(3)), fullNumber, prize, result));
+            }
+            result.setLotoDigits(digits);
+            days.add(result);
+        }
+        return days;
+    }
+
+    private static List<LotoDailyStat> dailyStats(LotteryDailyResult day) {
+        Map<Integer, LotoDailyStat> stats = new TreeMap<>();
+        for (LotoDigit digit : day.getLotoDigits()) {
+            stats.computeIfAbsent(digit.getValue(), n -> new LotoDailyStat(day.getDrawDate(), n))
+                    .addOccurrence(digit.getPrizeName());
+        }
+        return new ArrayList<>(stats.values());
+    }
+}
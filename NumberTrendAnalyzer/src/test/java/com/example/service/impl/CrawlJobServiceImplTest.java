@@ -0,0 +1,188 @@
+package com.example.service.impl;
+
+import com.example.crawler.CrawlJobConflictException;
+import com.example.crawler.CrawlProgress;
+import com.example.domain.CrawlJob;
+import com.example.domain.CrawlJobStatus;
+import com.example.dto.response.CrawlJobDTO;
+import com.example.repository.CrawlJobRepository;
+import com.example.service.CrawlerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Job cào dữ liệu với CrawlerService giả: crawlRange chặn tới khi bị ngắt, nên job đứng yên ở RUNNING
+ * cho tới khi bị hủy. crawlJobExecutor một thread như cấu hình mặc định (job sau chờ job trước).
+ */
+class CrawlJobServiceImplTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+
+    private final Map<String, CrawlJob> records = new ConcurrentHashMap<>();
+    private final List<LocalDate> crawledFrom = new CopyOnWriteArrayList<>();
+    private final CountDownLatch crawling = new CountDownLatch(1);
+    private ExecutorService executor;
+    private CrawlJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        CrawlJobRepository jobRepo = mock(CrawlJobRepository.class);
+        when(jobRepo.save(any())).thenAnswer(call -> {
+            CrawlJob record = call.getArgument(0);
+            records.put(record.getId(), record);
+            return record;
+        });
+        when(jobRepo.findById(any())).thenAnswer(call -> Optional.ofNullable(records.get(call.<String>getArgument(0))));
+        when(jobRepo.findByStatuses(any())).thenAnswer(call -> records.values().stream()
+                .filter(record -> call.<Collection<CrawlJobStatus>>getArgument(0).contains(record.getStatus()))
+                .sorted(Comparator.comparing(CrawlJob::getCreatedAt))
+                .toList());
+
+        CrawlerService crawlerService = mock(CrawlerService.class);
+        doAnswer(call -> {
+            crawledFrom.add(call.getArgument(0));
+            call.<CrawlProgress>getArgument(2).planned(10, 0);
+            crawling.countDown();
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Giống crawlRange thật: dừng và giữ cờ interrupt
+            }
+            return null;
+        }).when(crawlerService).crawlRange(any(), any(), any());
+
+        executor = Executors.newSingleThreadExecutor();
+        service = new CrawlJobServiceImpl();
+        ReflectionTestUtils.setField(service, "jobRepo", jobRepo);
+        ReflectionTestUtils.setField(service, "crawlerService", crawlerService);
+        ReflectionTestUtils.setField(service, "crawlJobExecutor", executor);
+        ReflectionTestUtils.setField(service, "checkpointIntervalMs", 2000L);
+        ReflectionTestUtils.setField(service, "resumeOnStartup", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void overlappingRangesConflict() {
+        CrawlJobDTO first = service.submit(JAN_1, JAN_1.plusDays(9));
+
+        // Giao một phần, nằm trọn bên trong, hay chỉ chung ngày cuối đều bị từ chối
+        for (LocalDate[] range : new LocalDate[][]{
+                {JAN_1.plusDays(5), JAN_1.plusDays(20)},
+                {JAN_1.plusDays(2), JAN_1.plusDays(3)},
+                {JAN_1.minusDays(5), JAN_1}}) {
+            assertThatThrownBy(() -> service.submit(range[0], range[1]))
+                    .isInstanceOfSatisfying(CrawlJobConflictException.class,
+                            e -> assertThat(e.getExisting().getId()).isEqualTo(first.getId()));
+        }
+
+        // Khoảng kề bên không giao nhau thì được nhận
+        CrawlJobDTO next = service.submit(JAN_1.plusDays(10), JAN_1.plusDays(20));
+        assertThat(next.getStatus()).isEqualTo("QUEUED");
+        assertThatThrownBy(() -> service.submit(JAN_1.plusDays(3), JAN_1.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cancellingRunningJobInterruptsCrawlAndFreesRange() throws Exception {
+        CrawlJobDTO job = service.submit(JAN_1, JAN_1.plusDays(9));
+        assertThat(crawling.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.getJob(job.getId())).get().extracting(CrawlJobDTO::getStatus).isEqualTo("RUNNING");
+
+        CrawlJobDTO afterCancel = service.cancel(job.getId()).orElseThrow();
+        assertThat(afterCancel.isCancelRequested()).isTrue();
+
+        assertThat(awaitStatus(job.getId(), "CANCELLED").getFinishedAt()).isNotNull();
+        // Job đã kết thúc nên cùng khoảng ngày có thể được cào lại (thread trống nên job mới có thể đã chạy)
+        assertThat(service.submit(JAN_1, JAN_1.plusDays(9)).getStatus()).isIn("QUEUED", "RUNNING");
+    }
+
+    @Test
+    void cancellingQueuedJobNeverStartsIt() throws Exception {
+        CrawlJobDTO running = service.submit(JAN_1, JAN_1.plusDays(9));
+        assertThat(crawling.await(5, TimeUnit.SECONDS)).isTrue();
+        CrawlJobDTO queued = service.submit(JAN_1.plusDays(10), JAN_1.plusDays(19));
+
+        // Job đang chờ bị hủy ngay, không cần đợi job trước
+        assertThat(service.cancel(queued.getId())).get().extracting(CrawlJobDTO::getStatus).isEqualTo("CANCELLED");
+        assertThat(records.get(queued.getId()).getStartedAt()).isNull();
+
+        service.cancel(running.getId());
+        awaitStatus(running.getId(), "CANCELLED");
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(crawledFrom).containsExactly(JAN_1);
+    }
+
+    @Test
+    void resumesUnfinishedJobsOnStartup() throws Exception {
+        records.put("interrupted", record("interrupted", JAN_1, JAN_1.plusDays(9), CrawlJobStatus.INTERRUPTED, 2));
+        records.put("queued", record("queued", JAN_1.plusDays(10), JAN_1.plusDays(19), CrawlJobStatus.QUEUED, 1));
+        records.put("done", record("done", JAN_1.plusDays(20), JAN_1.plusDays(29), CrawlJobStatus.COMPLETED, 0));
+
+        service.resumeUnfinishedJobs();
+
+        // Job cũ nhất chạy trước, job còn lại chờ trong hàng đợi; job đã xong không chạy lại
+        assertThat(crawling.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(crawledFrom).containsExactly(JAN_1);
+        assertThat(service.getJob("interrupted")).get().extracting(CrawlJobDTO::getStatus).isEqualTo("RUNNING");
+        assertThat(service.getJob("queued")).get().extracting(CrawlJobDTO::getStatus).isEqualTo("QUEUED");
+        assertThatThrownBy(() -> service.submit(JAN_1.plusDays(15), JAN_1.plusDays(25)))
+                .isInstanceOf(CrawlJobConflictException.class);
+        assertThat(service.submit(JAN_1.plusDays(20), JAN_1.plusDays(29)).getStatus()).isEqualTo("QUEUED");
+    }
+
+    private static CrawlJob record(String id, LocalDate fromDate, LocalDate toDate, CrawlJobStatus status, int hoursOld) {
+        CrawlJob record = new CrawlJob();
+        record.setId(id);
+        record.setFromDate(fromDate);
+        record.setToDate(toDate);
+        record.setStatus(status);
+        record.setSavedDays(0);
+        record.setFailedDays(0);
+        record.setCreatedAt(LocalDateTime.of(2024, 6, 1, 0, 0).minusHours(hoursOld));
+        return record;
+    }
+
+    @Test
+    void cancellingUnknownJob() {
+        assertThat(service.cancel("khong-ton-tai")).isEmpty();
+    }
+
+    private CrawlJobDTO awaitStatus(String id, String status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CrawlJobDTO job = service.getJob(id).orElseThrow();
+        while (!status.equals(job.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = service.getJob(id).orElseThrow();
+        }
+        assertThat(job.getStatus()).isEqualTo(status);
+        return job;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Phần dashboard quá hạn: bị đánh dấu lỗi, và task đang chạy bị ngắt để trả lại thread cho dashboardExecutor
+ */
+class DashboardServiceImplTest {
+
+    private ExecutorService executor;
+    private DashboardServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        service = new DashboardServiceImpl();
+        ReflectionTestUtils.setField(service, "dashboardExecutor", executor);
+        ReflectionTestUtils.setField(service, "sectionTimeoutMs", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> runSection(String section, Map<String, Double> timings, Supplier<T> supplier) {
+        return ReflectionTestUtils.invokeMethod(service, "runSection", section, timings, supplier);
+    }
+
+    private <T> T awaitSection(String section, CompletableFuture<T> future, List<String> failedSections) {
+        return ReflectionTestUtils.invokeMethod(service, "awaitSection", section, future, failedSections);
+    }
+
+    @Test
+    void timedOutSectionIsInterrupted() throws Exception {
+        Map<String, Double> timings = new ConcurrentHashMap<>();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<String> slow = runSection("slow", timings, () -> {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "muộn";
+        });
+
+        List<String> failedSections = new ArrayList<>();
+        assertThat(awaitSection("slow", slow, failedSections)).isNull();
+        assertThat(failedSections).containsExactly("slow");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Thread duy nhất đã được trả lại nên phần sau vẫn chạy kịp
+        CompletableFuture<String> next = runSection("next", timings, () -> "ok");
+        assertThat(awaitSection("next", next, failedSections)).isEqualTo("ok");
+        assertThat(failedSections).containsExactly("slow");
+        assertThat(timings).containsKeys("slow", "next");
+    }
+}
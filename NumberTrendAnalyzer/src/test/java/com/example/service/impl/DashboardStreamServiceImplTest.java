@@ -0,0 +1,105 @@
+package com.example.service.impl;
+
+import com.example.cache.DatasetVersion;
+import com.example.cache.DatasetVersionTracker;
+import com.example.domain.LotteryDailyResult;
+import com.example.dto.response.DashboardStatsDTO;
+import com.example.event.DrawSavedEvent;
+import com.example.event.DrawsReplacedEvent;
+import com.example.repository.LotteryDailyResultRepository;
+import com.example.service.CrawlerService;
+import com.example.service.DashboardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chỉ ngày mới nhất được đẩy tới client; ghi đè dữ liệu cũ thì đẩy lại bản đọc từ database
+ */
+class DashboardStreamServiceImplTest {
+
+    private static final LocalDate LATEST = LocalDate.of(2025, 12, 11);
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final CrawlerService crawlerService = mock(CrawlerService.class);
+    private final LotteryDailyResultRepository resultRepository = mock(LotteryDailyResultRepository.class);
+    private ExecutorService executor;
+    private DashboardStreamServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        DatasetVersionTracker tracker = mock(DatasetVersionTracker.class);
+        when(tracker.current()).thenReturn(new DatasetVersion(LATEST, 100, 100, 1, 0L));
+        when(dashboardService.getDashboardStats(any(), any(), any(), any())).thenReturn(new DashboardStatsDTO());
+
+        executor = Executors.newSingleThreadExecutor();
+        service = new DashboardStreamServiceImpl();
+        ReflectionTestUtils.setField(service, "dashboardService", dashboardService);
+        ReflectionTestUtils.setField(service, "crawlerService", crawlerService);
+        ReflectionTestUtils.setField(service, "datasetVersionTracker", tracker);
+        ReflectionTestUtils.setField(service, "resultRepository", resultRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "streamExecutor", executor);
+        ReflectionTestUtils.setField(service, "emitterTimeoutMs", 60_000L);
+        service.subscribe();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static LotteryDailyResult result(LocalDate date) {
+        LotteryDailyResult result = new LotteryDailyResult();
+        result.setDrawDate(date);
+        return result;
+    }
+
+    // Đợi các tác vụ đã xếp hàng trên streamExecutor chạy xong
+    private void drain() throws Exception {
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void backfilledDayIsNotPublished() throws Exception {
+        service.onDrawSaved(new DrawSavedEvent(result(LATEST.minusDays(30))));
+        drain();
+        verify(dashboardService, never()).getDashboardStats(any(), any(), any(), any());
+
+        LotteryDailyResult latest = result(LATEST);
+        service.onDrawSaved(new DrawSavedEvent(latest));
+        drain();
+        verify(crawlerService).toLotteryData(latest);
+        verify(dashboardService, times(1)).getDashboardStats(any(), any(), any(), any());
+    }
+
+    @Test
+    void replaceRepublishesLatestFromDatabase() throws Exception {
+        LotteryDailyResult reloaded = result(LATEST);
+        when(resultRepository.findWithDigitsBetween(LATEST, LATEST)).thenReturn(List.of(reloaded));
+
+        service.onDrawsReplaced(new DrawsReplacedEvent(LATEST.minusDays(400), LATEST.minusDays(300)));
+        drain();
+
+        verify(crawlerService).toLotteryData(reloaded);
+        verify(dashboardService, times(1)).getDashboardStats(any(), any(), any(), any());
+        assertThat(ReflectionTestUtils.getField(service, "lastPayload")).isNotNull();
+    }
+}